@@ -0,0 +1,41 @@
+package com.vimofama.benchmarks;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+final class Contexts {
+
+    private Contexts() {
+    }
+
+    /**
+     * Starts a service without its web server. Both services ship an {@code application.properties}, so neither
+     * is loaded and every benchmark passes the settings it depends on.
+     */
+    static ConfigurableApplicationContext start(Class<?> application, String... properties) {
+        String[] all = new String[properties.length + 3];
+        all[0] = "spring.config.name=benchmark";
+        all[1] = "logging.level.root=WARN";
+        all[2] = "spring.jpa.open-in-view=false";
+        System.arraycopy(properties, 0, all, 3, properties.length);
+        return new SpringApplicationBuilder(application)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(all)
+                .run();
+    }
+
+    static String tempDirectory(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
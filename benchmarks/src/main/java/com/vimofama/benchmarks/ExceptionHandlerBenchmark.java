@@ -0,0 +1,87 @@
+package com.vimofama.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vimofama.inventoryservice.exception.InsufficientStockException;
+import com.vimofama.productservice.dto.CreateProductDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error-response building in both {@code GlobalExceptionHandler}s: a validation failure with three field errors
+ * and an insufficient-stock conflict, each alone and followed by serializing the body as Spring would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    private com.vimofama.productservice.exception.GlobalExceptionHandler productHandler;
+    private com.vimofama.inventoryservice.exception.GlobalExceptionHandler inventoryHandler;
+    private ObjectMapper objectMapper;
+    private MethodArgumentNotValidException validationException;
+    private InsufficientStockException insufficientStockException;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        productHandler = new com.vimofama.productservice.exception.GlobalExceptionHandler();
+        inventoryHandler = new com.vimofama.inventoryservice.exception.GlobalExceptionHandler();
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(
+                new CreateProductDTO("", "", null, "x"), "createProductDTO");
+        bindingResult.addError(new FieldError("createProductDTO", "name", "El nombre del producto no puede estar vacío"));
+        bindingResult.addError(new FieldError("createProductDTO", "price", "El precio del producto es obligatorio"));
+        bindingResult.addError(new FieldError("createProductDTO", "sku", "El SKU del producto debe tener al menos 3 caracteres"));
+        MethodParameter parameter = new MethodParameter(
+                ExceptionHandlerBenchmark.class.getDeclaredMethod("target", CreateProductDTO.class), 0);
+        validationException = new MethodArgumentNotValidException(parameter, bindingResult);
+        insufficientStockException = new InsufficientStockException(42L, 10);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> validation() {
+        return productHandler.handleValidationExceptions(validationException);
+    }
+
+    @Benchmark
+    public byte[] validationSerialized() throws Exception {
+        return objectMapper.writeValueAsBytes(productHandler.handleValidationExceptions(validationException).getBody());
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> insufficientStock() {
+        return inventoryHandler.handleInsufficientStock(insufficientStockException);
+    }
+
+    @Benchmark
+    public byte[] insufficientStockSerialized() throws Exception {
+        return objectMapper.writeValueAsBytes(inventoryHandler.handleInsufficientStock(insufficientStockException).getBody());
+    }
+
+    @SuppressWarnings("unused")
+    private static void target(CreateProductDTO createProductDTO) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.vimofama.benchmarks;
+
+import com.vimofama.inventoryservice.InventoryserviceApplication;
+import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.service.InventoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InventoryService#increaseQuantity} and {@link InventoryService#decreaseQuantity} with eight threads,
+ * either all on one hot product (row lock and stock counter contention) or spread over many cold ones, with and
+ * without the adjustment combiner. Quantities start high enough that decreases never run out of stock.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryServiceContentionBenchmark {
+
+    private static final long HOT_PRODUCT = 1L;
+    private static final int INITIAL_QUANTITY = 1_000_000_000;
+
+    @Param("10000")
+    int coldProducts;
+
+    @Param({"true", "false"})
+    boolean combine;
+
+    private ConfigurableApplicationContext context;
+    private InventoryService inventoryService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        String directory = Contexts.tempDirectory("inventory-benchmark");
+        context = Contexts.start(InventoryserviceApplication.class,
+                "inventory.journal.directory=" + directory + "/journal",
+                "inventory.snapshot.directory=" + directory + "/snapshots",
+                "inventory.product-replica.directory=" + directory + "/replica",
+                "inventory.product-replica.poll-interval=1h",
+                "inventory.combiner.enabled=" + combine);
+        inventoryService = context.getBean(InventoryService.class);
+        List<Inventory> inventories = new ArrayList<>(coldProducts + 1);
+        LocalDateTime now = LocalDateTime.now();
+        for (long productId = HOT_PRODUCT; productId <= coldProducts + 1; productId++) {
+            inventories.add(new Inventory(productId, INITIAL_QUANTITY, now));
+        }
+        inventoryService.getInventoryRepository().saveAll(inventories);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("hot")
+    @GroupThreads(4)
+    public Inventory hotIncrease() {
+        return inventoryService.increaseQuantity(HOT_PRODUCT, 1);
+    }
+
+    @Benchmark
+    @Group("hot")
+    @GroupThreads(4)
+    public Inventory hotDecrease() {
+        return inventoryService.decreaseQuantity(HOT_PRODUCT, 1);
+    }
+
+    @Benchmark
+    @Group("cold")
+    @GroupThreads(4)
+    public Inventory coldIncrease() {
+        return inventoryService.increaseQuantity(randomColdProduct(), 1);
+    }
+
+    @Benchmark
+    @Group("cold")
+    @GroupThreads(4)
+    public Inventory coldDecrease() {
+        return inventoryService.decreaseQuantity(randomColdProduct(), 1);
+    }
+
+    private long randomColdProduct() {
+        return ThreadLocalRandom.current().nextLong(HOT_PRODUCT + 1, coldProducts + 2);
+    }
+}
@@ -0,0 +1,75 @@
+package com.vimofama.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.productservice.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization of a {@link Product} and of {@code List<Inventory>} pages, with an {@link ObjectMapper}
+ * configured the way Spring Boot configures the one used by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "500"})
+    int inventories;
+
+    private ObjectMapper objectMapper;
+    private Product product;
+    private List<Inventory> inventoryList;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        LocalDateTime now = LocalDateTime.now();
+        product = new Product("Teclado mecánico", "Teclado mecánico con switches rojos", new BigDecimal("49.90"), "SKU-00042");
+        product.setId(42L);
+        product.setVersion(3L);
+        product.setCreatedAt(now);
+        product.setUpdatedAt(now);
+
+        inventoryList = new ArrayList<>(inventories);
+        for (long i = 1; i <= inventories; i++) {
+            Inventory inventory = new Inventory(i, (int) (i * 7 % 1000), now);
+            inventory.setId(i);
+            inventory.setVersion(0L);
+            inventoryList.add(inventory);
+        }
+    }
+
+    @Benchmark
+    public byte[] product() throws Exception {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] inventoryList() throws Exception {
+        return objectMapper.writeValueAsBytes(inventoryList);
+    }
+}
@@ -0,0 +1,88 @@
+package com.vimofama.benchmarks;
+
+import com.vimofama.productservice.ProductserviceApplication;
+import com.vimofama.productservice.dto.CreateProductDTO;
+import com.vimofama.productservice.dto.UpdateProductDTO;
+import com.vimofama.productservice.model.Product;
+import com.vimofama.productservice.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ProductService} create, read and update against the in-memory H2 database, with the search index and
+ * version cache in the path just like in the running service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param("10000")
+    int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private final AtomicLong skus = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = Contexts.start(ProductserviceApplication.class,
+                "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                "spring.jpa.properties.hibernate.order_inserts=true");
+        productService = context.getBean(ProductService.class);
+        for (int i = 0; i < products; i++) {
+            productService.create(newProduct());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Product create() {
+        return productService.create(newProduct());
+    }
+
+    @Benchmark
+    public Product getById() {
+        return productService.getById(randomId());
+    }
+
+    @Benchmark
+    public Product update() {
+        BigDecimal price = BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(100, 100_000), 2);
+        return productService.update(randomId(), new UpdateProductDTO(null, null, price, null));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, products + 1);
+    }
+
+    private CreateProductDTO newProduct() {
+        long sku = skus.incrementAndGet();
+        return new CreateProductDTO("Producto " + sku, "Descripción del producto " + sku,
+                new BigDecimal("19.99"), "BENCH-" + sku);
+    }
+}
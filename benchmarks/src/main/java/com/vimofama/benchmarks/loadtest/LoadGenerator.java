@@ -0,0 +1,310 @@
+package com.vimofama.benchmarks.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import com.vimofama.inventoryservice.dto.QuantityDTO;
+import com.vimofama.productservice.dto.CreateProductDTO;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: arrivals follow a Poisson process at {@link LoadTestOptions#rate()} and every arrival
+ * is sent on its own virtual thread, so a slow response never delays the next request the way a fixed pool of
+ * clients would.
+ */
+public class LoadGenerator {
+
+    public enum Operation {
+        PRODUCT_CREATE,
+        INVENTORY_CREATE,
+        PRODUCT_READ,
+        INVENTORY_READ,
+        STOCK_INCREASE,
+        STOCK_DECREASE
+    }
+
+    private static final int INITIAL_QUANTITY = 1_000_000_000;
+    private static final int SEED_CONCURRENCY = 32;
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestOptions options;
+    private final URI productService;
+    private final URI inventoryService;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong skus = new AtomicLong();
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private long[] productIds;
+
+    public LoadGenerator(LoadTestOptions options, URI productService, URI inventoryService) {
+        this.options = options;
+        this.productService = productService;
+        this.inventoryService = inventoryService;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder());
+        }
+    }
+
+    /**
+     * Creates {@link LoadTestOptions#products()} products with their inventories. The first
+     * {@link LoadTestOptions#hotProducts()} of them are the hot ones.
+     */
+    public void seed() throws InterruptedException {
+        long[] ids = new long[options.products()];
+        try (ExecutorService executor = Executors.newFixedThreadPool(SEED_CONCURRENCY)) {
+            List<Future<?>> futures = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    ids[index] = createProduct(System.nanoTime(), false);
+                    if (ids[index] < 0 || !createInventory(ids[index], false)) {
+                        throw new IllegalStateException("Could not seed product " + index);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seeding failed", e.getCause());
+        }
+        productIds = ids;
+    }
+
+    public LoadTestReport run() throws InterruptedException {
+        if (productIds == null) {
+            seed();
+        }
+        SplittableRandom random = new SplittableRandom(options.seed());
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long arrivals = 0;
+        long dropped = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            double next = start;
+            while (next < end) {
+                long intendedStart = (long) next;
+                waitUntil(intendedStart);
+                boolean measured = intendedStart >= measureFrom;
+                Runnable request = nextRequest(random, intendedStart, measured);
+                if (measured) {
+                    arrivals++;
+                }
+                if (inFlight.incrementAndGet() > options.maxInFlight()) {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        dropped++;
+                    }
+                } else {
+                    executor.execute(() -> {
+                        try {
+                            request.run();
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                    });
+                }
+                next += -Math.log(1 - random.nextDouble()) * meanGapNanos;
+            }
+        }
+        return report(arrivals, dropped);
+    }
+
+    private Runnable nextRequest(SplittableRandom random, long intendedStart, boolean measured) {
+        int pick = random.nextInt(options.createWeight() + options.readWeight() + options.movementWeight());
+        if (pick < options.createWeight()) {
+            return () -> {
+                long productId = createProduct(intendedStart, measured);
+                if (productId >= 0) {
+                    createInventory(productId, measured);
+                }
+            };
+        }
+        long productId = pickProduct(random);
+        boolean flip = random.nextBoolean();
+        if (pick < options.createWeight() + options.readWeight()) {
+            return flip
+                    ? () -> send(Operation.PRODUCT_READ, get(productService, "/api/products/" + productId), intendedStart, measured)
+                    : () -> send(Operation.INVENTORY_READ, get(inventoryService, "/api/inventory/" + productId), intendedStart, measured);
+        }
+        return flip
+                ? () -> send(Operation.STOCK_INCREASE, post(inventoryService, "/api/inventory/increase/" + productId,
+                new QuantityDTO(1)), intendedStart, measured)
+                : () -> send(Operation.STOCK_DECREASE, post(inventoryService, "/api/inventory/decrease/" + productId,
+                new QuantityDTO(1)), intendedStart, measured);
+    }
+
+    private long pickProduct(SplittableRandom random) {
+        int hot = options.hotProducts();
+        if (random.nextDouble() < options.hotShare()) {
+            return productIds[random.nextInt(hot)];
+        }
+        return productIds[hot + random.nextInt(productIds.length - hot)];
+    }
+
+    private long createProduct(long intendedStart, boolean measured) {
+        long sku = skus.incrementAndGet();
+        CreateProductDTO product = new CreateProductDTO("Producto de carga " + sku,
+                "Producto generado por la prueba de carga", new BigDecimal("9.99"), "LOAD-" + sku);
+        HttpResponse<String> response = send(Operation.PRODUCT_CREATE,
+                post(productService, "/api/products", product), intendedStart, measured);
+        if (response == null) {
+            return -1;
+        }
+        try {
+            return objectMapper.readTree(response.body()).get("id").asLong();
+        } catch (JsonProcessingException e) {
+            return -1;
+        }
+    }
+
+    private boolean createInventory(long productId, boolean measured) {
+        return send(Operation.INVENTORY_CREATE, post(inventoryService, "/api/inventory",
+                new CreateInventoryDTO(productId, INITIAL_QUANTITY)), System.nanoTime(), measured) != null;
+    }
+
+    /**
+     * Returns the response when it was successful, or {@code null} after recording the error.
+     */
+    private HttpResponse<String> send(Operation operation, HttpRequest request, long intendedStart, boolean measured) {
+        Recorder recorder = recorders.get(operation);
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (measured) {
+                recorder.latency(System.nanoTime() - intendedStart);
+            }
+            if (response.statusCode() >= 400) {
+                if (measured) {
+                    recorder.error("HTTP " + response.statusCode());
+                }
+                return null;
+            }
+            return response;
+        } catch (IOException e) {
+            if (measured) {
+                recorder.latency(System.nanoTime() - intendedStart);
+                recorder.error(e.getClass().getSimpleName());
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(URI base, String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(base.resolve(path))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private LoadTestReport report(long arrivals, long dropped) {
+        double seconds = options.duration().toNanos() / 1e9;
+        List<LoadTestReport.OperationStats> operations = new ArrayList<>();
+        Histogram all = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        long errors = 0;
+        for (Map.Entry<Operation, Recorder> entry : recorders.entrySet()) {
+            Recorder recorder = entry.getValue();
+            operations.add(recorder.stats(entry.getKey().name(), seconds));
+            all.add(recorder.histogram);
+            errors += recorder.errors.sum();
+        }
+        // Dropped arrivals never reached an operation's recorder, so they only count against the total
+        long requests = all.getTotalCount() + dropped;
+        LoadTestReport.OperationStats total = stats("TOTAL", all, requests, errors + dropped,
+                dropped == 0 ? Map.of() : Map.of("dropped", dropped), seconds);
+        return new LoadTestReport(options, seconds, arrivals, dropped, operations, total);
+    }
+
+    private static LoadTestReport.OperationStats stats(String name, Histogram histogram, long requests, long errors,
+                                                       Map<String, Long> errorsByCause, double seconds) {
+        return new LoadTestReport.OperationStats(name, requests, errors,
+                requests == 0 ? 0 : (double) errors / requests,
+                (requests - errors) / seconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                errorsByCause);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Recorder {
+
+        private final ConcurrentHistogram histogram = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> causes = new ConcurrentHashMap<>();
+
+        void latency(long nanos) {
+            histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_LATENCY_MICROS));
+        }
+
+        void error(String cause) {
+            errors.increment();
+            causes.computeIfAbsent(cause, key -> new LongAdder()).increment();
+        }
+
+        LoadTestReport.OperationStats stats(String name, double seconds) {
+            Map<String, Long> byCause = new TreeMap<>();
+            causes.forEach((cause, count) -> byCause.put(cause, count.sum()));
+            return LoadGenerator.stats(name, histogram, histogram.getTotalCount(), errors.sum(), byCause, seconds);
+        }
+    }
+}
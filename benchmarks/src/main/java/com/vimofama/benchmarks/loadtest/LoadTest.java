@@ -0,0 +1,42 @@
+package com.vimofama.benchmarks.loadtest;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Starts both services, seeds them and drives the configured traffic mix, then prints the report and optionally
+ * writes it as JSON. Options are {@code key=value} arguments, see {@link LoadTestOptions}.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        LoadTestReport report;
+        try (LoadTestEnvironment environment = new LoadTestEnvironment()) {
+            LoadGenerator generator = new LoadGenerator(options, environment.productServiceUri(),
+                    environment.inventoryServiceUri());
+            System.out.printf("Seeding %d products (%d hot)%n", options.products(), options.hotProducts());
+            generator.seed();
+            System.out.printf("Running %.1f req/s: %s warmup, %s measured%n",
+                    options.rate(), options.warmup(), options.duration());
+            report = generator.run();
+        }
+        report.print(System.out);
+        if (options.report() != null) {
+            Files.createDirectories(options.report().toAbsolutePath().getParent());
+            JsonMapper.builder()
+                    .findAndAddModules()
+                    .enable(SerializationFeature.INDENT_OUTPUT)
+                    .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                    .build()
+                    .writeValue(options.report().toFile(), report);
+            System.out.println("Report written to " + options.report().toAbsolutePath());
+        }
+    }
+}
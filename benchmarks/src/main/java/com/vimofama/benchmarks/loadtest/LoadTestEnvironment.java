@@ -0,0 +1,89 @@
+package com.vimofama.benchmarks.loadtest;
+
+import com.vimofama.inventoryservice.InventoryserviceApplication;
+import com.vimofama.productservice.ProductserviceApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Both services running in this JVM on random ports, with inventory service pointed at product service.
+ */
+public class LoadTestEnvironment implements AutoCloseable {
+
+    private final ConfigurableApplicationContext productService;
+    private final ConfigurableApplicationContext inventoryService;
+
+    public LoadTestEnvironment() {
+        Path data = temporaryDirectory();
+        productService = start(ProductserviceApplication.class,
+                "spring.application.name=productservice",
+                "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                "spring.jpa.properties.hibernate.order_inserts=true");
+        try {
+            inventoryService = start(InventoryserviceApplication.class,
+                    "spring.application.name=inventoryservice",
+                    "inventory.product-service.url=" + productServiceUri(),
+                    "inventory.product-service.max-connections=200",
+                    "inventory.product-service.bulkhead.max-concurrent-calls=100",
+                    "inventory.journal.directory=" + data.resolve("journal"),
+                    "inventory.snapshot.directory=" + data.resolve("snapshots"),
+                    "inventory.product-replica.directory=" + data.resolve("replica"));
+        } catch (RuntimeException e) {
+            productService.close();
+            throw e;
+        }
+    }
+
+    public URI productServiceUri() {
+        return baseUri(productService);
+    }
+
+    public URI inventoryServiceUri() {
+        return baseUri(inventoryService);
+    }
+
+    @Override
+    public void close() {
+        inventoryService.close();
+        productService.close();
+    }
+
+    /**
+     * Each service ships its own {@code application.properties} and both are on this classpath, so neither is
+     * read and the settings the run depends on are passed explicitly.
+     */
+    private static ConfigurableApplicationContext start(Class<?> application, String... properties) {
+        return new SpringApplicationBuilder(application)
+                .web(WebApplicationType.SERVLET)
+                .bannerMode(Banner.Mode.OFF)
+                .properties("spring.config.name=loadtest",
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=true",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    private static URI baseUri(ConfigurableApplicationContext context) {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return URI.create("http://localhost:" + port);
+    }
+
+    private static Path temporaryDirectory() {
+        try {
+            return Files.createTempDirectory("inventoryapp-loadtest");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.vimofama.benchmarks.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test settings, given on the command line as {@code key=value} pairs. Any key left out keeps its default.
+ *
+ * @param rate           arrivals per second; requests are issued on this schedule whether or not earlier ones
+ *                       have completed
+ * @param warmup         time at the start of the run whose requests are not recorded
+ * @param duration       measured time after the warmup
+ * @param products       products (each with its inventory) created before the run and targeted by reads and
+ *                       stock movements
+ * @param hotProducts    how many of those products are hot
+ * @param hotShare       fraction of reads and stock movements that go to a hot product
+ * @param createWeight   relative weight of product plus inventory creations
+ * @param readWeight     relative weight of product and inventory reads
+ * @param movementWeight relative weight of stock increases and decreases
+ * @param maxInFlight    requests outstanding at once; arrivals beyond it are dropped and counted as errors
+ * @param seed           seed for the arrival times and the operation and product picks
+ * @param report         JSON report file, or {@code null} to only print the summary
+ */
+public record LoadTestOptions(
+        double rate,
+        Duration warmup,
+        Duration duration,
+        int products,
+        int hotProducts,
+        double hotShare,
+        int createWeight,
+        int readWeight,
+        int movementWeight,
+        int maxInFlight,
+        long seed,
+        Path report
+) {
+
+    public static final LoadTestOptions DEFAULTS = new LoadTestOptions(
+            200, Duration.ofSeconds(10), Duration.ofSeconds(60), 1000, 10, 0.8, 5, 50, 45, 2000, 42, null);
+
+    public LoadTestOptions {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        if (hotProducts < 1 || hotProducts >= products) {
+            throw new IllegalArgumentException("hotProducts must be between 1 and products - 1");
+        }
+        if (hotShare < 0 || hotShare > 1) {
+            throw new IllegalArgumentException("hotShare must be between 0 and 1");
+        }
+        if (createWeight < 0 || readWeight < 0 || movementWeight < 0 || createWeight + readWeight + movementWeight == 0) {
+            throw new IllegalArgumentException("weights must be non-negative and not all zero");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+    }
+
+    public static LoadTestOptions parse(String... args) {
+        LoadTestOptions options = DEFAULTS;
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+            options = options.with(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private LoadTestOptions with(String key, String value) {
+        return switch (key) {
+            case "rate" -> new LoadTestOptions(Double.parseDouble(value), warmup, duration, products, hotProducts,
+                    hotShare, createWeight, readWeight, movementWeight, maxInFlight, seed, report);
+            case "warmup" -> new LoadTestOptions(rate, DurationStyle.detectAndParse(value), duration, products,
+                    hotProducts, hotShare, createWeight, readWeight, movementWeight, maxInFlight, seed, report);
+            case "duration" -> new LoadTestOptions(rate, warmup, DurationStyle.detectAndParse(value), products,
+                    hotProducts, hotShare, createWeight, readWeight, movementWeight, maxInFlight, seed, report);
+            case "products" -> new LoadTestOptions(rate, warmup, duration, Integer.parseInt(value), hotProducts,
+                    hotShare, createWeight, readWeight, movementWeight, maxInFlight, seed, report);
+            case "hotProducts" -> new LoadTestOptions(rate, warmup, duration, products, Integer.parseInt(value),
+                    hotShare, createWeight, readWeight, movementWeight, maxInFlight, seed, report);
+            case "hotShare" -> new LoadTestOptions(rate, warmup, duration, products, hotProducts,
+                    Double.parseDouble(value), createWeight, readWeight, movementWeight, maxInFlight, seed, report);
+            case "createWeight" -> new LoadTestOptions(rate, warmup, duration, products, hotProducts, hotShare,
+                    Integer.parseInt(value), readWeight, movementWeight, maxInFlight, seed, report);
+            case "readWeight" -> new LoadTestOptions(rate, warmup, duration, products, hotProducts, hotShare,
+                    createWeight, Integer.parseInt(value), movementWeight, maxInFlight, seed, report);
+            case "movementWeight" -> new LoadTestOptions(rate, warmup, duration, products, hotProducts, hotShare,
+                    createWeight, readWeight, Integer.parseInt(value), maxInFlight, seed, report);
+            case "maxInFlight" -> new LoadTestOptions(rate, warmup, duration, products, hotProducts, hotShare,
+                    createWeight, readWeight, movementWeight, Integer.parseInt(value), seed, report);
+            case "seed" -> new LoadTestOptions(rate, warmup, duration, products, hotProducts, hotShare,
+                    createWeight, readWeight, movementWeight, maxInFlight, Long.parseLong(value), report);
+            case "report" -> new LoadTestOptions(rate, warmup, duration, products, hotProducts, hotShare,
+                    createWeight, readWeight, movementWeight, maxInFlight, seed, value.isBlank() ? null : Path.of(value));
+            default -> throw new IllegalArgumentException("Unknown option '" + key + "'");
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.vimofama.benchmarks.loadtest;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a load test run. Latencies are measured from the moment a request was scheduled to arrive, not from
+ * when it was actually sent, so a saturated system shows up as queueing delay instead of being hidden by it.
+ */
+public record LoadTestReport(
+        LoadTestOptions options,
+        double measuredSeconds,
+        long arrivals,
+        long dropped,
+        List<OperationStats> operations,
+        OperationStats total
+) {
+
+    public record OperationStats(
+            String operation,
+            long requests,
+            long errors,
+            double errorRate,
+            double throughput,
+            double p50Millis,
+            double p90Millis,
+            double p99Millis,
+            double p999Millis,
+            double maxMillis,
+            Map<String, Long> errorsByCause
+    ) {
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%nOffered %.1f req/s for %.1f s: %d arrivals, %d dropped (more than %d in flight)%n",
+                options.rate(), measuredSeconds, arrivals, dropped, options.maxInFlight());
+        out.printf("%-18s %9s %8s %8s %10s %9s %9s %9s %9s %9s%n", "operation", "requests", "errors", "error %",
+                "ok/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (OperationStats stats : operations) {
+            print(out, stats);
+        }
+        print(out, total);
+        for (OperationStats stats : operations) {
+            if (!stats.errorsByCause().isEmpty()) {
+                out.printf("%-18s errors: %s%n", stats.operation(), stats.errorsByCause());
+            }
+        }
+    }
+
+    private static void print(PrintStream out, OperationStats stats) {
+        out.printf("%-18s %9d %8d %8.2f %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", stats.operation(), stats.requests(),
+                stats.errors(), stats.errorRate() * 100, stats.throughput(), stats.p50Millis(), stats.p90Millis(),
+                stats.p99Millis(), stats.p999Millis(), stats.maxMillis());
+    }
+}
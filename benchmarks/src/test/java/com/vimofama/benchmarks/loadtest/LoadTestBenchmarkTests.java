@@ -0,0 +1,30 @@
+package com.vimofama.benchmarks.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Short end-to-end run of the load test at a rate both services sustain even on a single core.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -pl benchmarks -Dtest=LoadTestBenchmarkTests}.
+ */
+@Tag("benchmark")
+public class LoadTestBenchmarkTests {
+
+    @Test
+    void sustainsModerateMixedTraffic() throws InterruptedException {
+        LoadTestOptions options = LoadTestOptions.parse("rate=40", "warmup=5s", "duration=15s", "products=200");
+        LoadTestReport report;
+        try (LoadTestEnvironment environment = new LoadTestEnvironment()) {
+            report = new LoadGenerator(options, environment.productServiceUri(), environment.inventoryServiceUri()).run();
+        }
+        report.print(System.out);
+
+        assertThat(report.dropped()).isZero();
+        assertThat(report.total().errorRate()).isZero();
+        assertThat(report.total().throughput()).isGreaterThan(options.rate() * 0.8);
+        assertThat(report.operations()).allSatisfy(stats -> assertThat(stats.requests()).isPositive());
+    }
+}
@@ -0,0 +1,37 @@
+package com.vimofama.benchmarks.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LoadTestOptionsTests {
+
+    @Test
+    void parseKeepsDefaultsForMissingKeys() {
+        LoadTestOptions options = LoadTestOptions.parse("rate=750.5", "duration=2m", "hotShare=0.5", "report=out.json");
+
+        assertThat(options.rate()).isEqualTo(750.5);
+        assertThat(options.duration()).isEqualTo(Duration.ofMinutes(2));
+        assertThat(options.hotShare()).isEqualTo(0.5);
+        assertThat(options.report()).isEqualTo(Path.of("out.json"));
+        assertThat(options.warmup()).isEqualTo(LoadTestOptions.DEFAULTS.warmup());
+        assertThat(options.products()).isEqualTo(LoadTestOptions.DEFAULTS.products());
+    }
+
+    @Test
+    void parseRejectsUnknownAndInvalidOptions() {
+        assertThatThrownBy(() -> LoadTestOptions.parse("threads=8"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("threads");
+        assertThatThrownBy(() -> LoadTestOptions.parse("rate"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LoadTestOptions.parse("products=10", "hotProducts=10"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LoadTestOptions.parse("createWeight=0", "readWeight=0", "movementWeight=0"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
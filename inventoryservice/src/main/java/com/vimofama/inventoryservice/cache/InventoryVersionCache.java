@@ -0,0 +1,52 @@
+package com.vimofama.inventoryservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vimofama.inventoryservice.event.RowVersion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Last known row id and {@code @Version} of recently read or written inventories, keyed by product ID, used to
+ * answer conditional GETs without querying the database. Only a newer {@link RowVersion} replaces the one held,
+ * so a read that started before a write can never put an older version back.
+ */
+@Component
+public class InventoryVersionCache implements MeterBinder {
+
+    private final Cache<Long, RowVersion> cache;
+
+    public InventoryVersionCache(@Value("${inventory.version-cache.max-size:10000}") long maxSize,
+                                 @Value("${inventory.version-cache.ttl:1m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public RowVersion get(Long productId) {
+        return cache.getIfPresent(productId);
+    }
+
+    public void record(Long productId, Long inventoryId, Long version) {
+        if (productId != null && inventoryId != null && version != null) {
+            cache.asMap().merge(productId, new RowVersion(inventoryId, version),
+                    (held, recorded) -> recorded.isNewerThan(held) ? recorded : held);
+        }
+    }
+
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "inventory-version");
+    }
+}
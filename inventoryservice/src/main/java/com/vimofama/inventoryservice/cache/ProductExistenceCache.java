@@ -0,0 +1,93 @@
+package com.vimofama.inventoryservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.vimofama.inventoryservice.dto.CacheStatsDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Read-through cache of product IDs known to exist (or not) in product service.
+ * Negative results are kept for a shorter time so newly created products are picked up quickly.
+ */
+@Component
+public class ProductExistenceCache implements MeterBinder {
+
+    private final Cache<Long, Boolean> cache;
+
+    public ProductExistenceCache(@Value("${inventory.product-cache.max-size:100000}") long maxSize,
+                                 @Value("${inventory.product-cache.ttl:10m}") Duration ttl,
+                                 @Value("${inventory.product-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExistenceExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Concurrent misses for the same product share a single load; a failed load is not cached.
+     */
+    public boolean exists(Long productId, Predicate<Long> loader) {
+        return cache.get(productId, loader::test);
+    }
+
+    public Boolean getIfPresent(Long productId) {
+        return cache.getIfPresent(productId);
+    }
+
+    public void put(Long productId, boolean exists) {
+        cache.put(productId, exists);
+    }
+
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    public Cache<Long, Boolean> getCache() {
+        return cache;
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.loadFailureCount()
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "product-existence");
+    }
+
+    private record ExistenceExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<Long, Boolean> {
+
+        @Override
+        public long expireAfterCreate(Long key, Boolean exists, long currentTime) {
+            return exists ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Boolean exists, long currentTime, long currentDuration) {
+            return exists ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Boolean exists, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
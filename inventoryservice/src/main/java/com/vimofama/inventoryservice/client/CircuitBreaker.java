@@ -0,0 +1,60 @@
+package com.vimofama.inventoryservice.client;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures the circuit opens and rejects
+ * calls; once {@code openDuration} has passed a single probe call is let through (half-open) and its outcome
+ * decides whether the circuit closes again or stays open for another period.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    public boolean tryAcquirePermission() {
+        return switch (state.get()) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openedAt >= openDurationNanos
+                    && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            case HALF_OPEN -> false;
+        };
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            trip();
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private void trip() {
+        openedAt = System.nanoTime();
+        consecutiveFailures.set(0);
+        state.set(State.OPEN);
+    }
+}
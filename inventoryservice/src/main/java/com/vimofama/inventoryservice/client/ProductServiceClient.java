@@ -0,0 +1,225 @@
+package com.vimofama.inventoryservice.client;
+
+import com.vimofama.inventoryservice.dto.ProductChangePageDTO;
+import com.vimofama.inventoryservice.dto.ProductClientStatsDTO;
+import com.vimofama.inventoryservice.dto.ProductLookupResultDTO;
+import com.vimofama.inventoryservice.dto.ProductSummaryDTO;
+import com.vimofama.inventoryservice.exception.ProductServiceRejectedException;
+import com.vimofama.inventoryservice.exception.ProductServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Component
+public class ProductServiceClient implements DisposableBean, MeterBinder {
+
+    private static final int LOOKUP_CHUNK = 1000;
+
+    private final ProductServiceProperties properties;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejectedByCircuitBreaker = new LongAdder();
+    private final LongAdder rejectedByBulkhead = new LongAdder();
+
+    public ProductServiceClient(ProductServiceProperties properties, RestTemplateBuilder restTemplateBuilder) {
+        this.properties = properties;
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.maxConnections())
+                .setMaxConnPerRoute(properties.maxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.readTimeout()))
+                        .setTimeToLive(TimeValue.of(properties.keepAlive()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(1))
+                        .build())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(properties.keepAlive()))
+                .evictIdleConnections(TimeValue.of(properties.keepAlive()))
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.connectTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.readTimeout()))
+                        .build())
+                .build();
+        this.restTemplate = restTemplateBuilder
+                .rootUri(properties.url())
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+        this.circuitBreaker = new CircuitBreaker(
+                properties.circuitBreaker().failureThreshold(),
+                properties.circuitBreaker().openDuration()
+        );
+        this.bulkhead = new Semaphore(properties.bulkhead().maxConcurrentCalls());
+    }
+
+    public boolean productExists(Long productId) {
+        return execute(() -> {
+            try {
+                restTemplate.exchange("/api/products/{id}", HttpMethod.HEAD, null, Void.class, productId);
+                return true;
+            } catch (HttpClientErrorException.NotFound e) {
+                return false;
+            }
+        });
+    }
+
+    public ProductLookupResultDTO lookupProducts(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        List<ProductSummaryDTO> found = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOOKUP_CHUNK, ids.size()));
+            ProductLookupResultDTO result = execute(() -> restTemplate.postForObject(
+                    "/api/products/lookup", Map.of("ids", chunk), ProductLookupResultDTO.class));
+            if (result != null) {
+                found.addAll(result.found());
+                missing.addAll(result.missing());
+            }
+        }
+        return new ProductLookupResultDTO(found, missing);
+    }
+
+    public ProductChangePageDTO productChanges(long afterSequence, int limit) {
+        return execute(() -> restTemplate.getForObject("/api/products/changes?after={after}&limit={limit}",
+                ProductChangePageDTO.class, afterSequence, limit));
+    }
+
+    public ProductClientStatsDTO stats() {
+        PoolStats poolStats = connectionManager.getTotalStats();
+        return new ProductClientStatsDTO(
+                circuitBreaker.getState().name(),
+                calls.sum(),
+                failures.sum(),
+                rejectedByCircuitBreaker.sum(),
+                rejectedByBulkhead.sum(),
+                properties.bulkhead().maxConcurrentCalls() - bulkhead.availablePermits(),
+                poolStats.getLeased(),
+                poolStats.getAvailable(),
+                poolStats.getPending(),
+                poolStats.getMax()
+        );
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Call latency is recorded by the {@code http.client.requests} observation of the RestTemplate; this adds
+     * the outcomes the HTTP layer never sees plus the connection pool gauges, all read from existing counters.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "product-service").bindTo(registry);
+        FunctionCounter.builder("product.client.calls", calls, LongAdder::sum)
+                .description("Llamadas al servicio de productos")
+                .register(registry);
+        FunctionCounter.builder("product.client.errors", failures, LongAdder::sum)
+                .description("Llamadas fallidas al servicio de productos")
+                .register(registry);
+        FunctionCounter.builder("product.client.rejected", rejectedByCircuitBreaker, LongAdder::sum)
+                .tag("reason", "circuit-breaker")
+                .register(registry);
+        FunctionCounter.builder("product.client.rejected", rejectedByBulkhead, LongAdder::sum)
+                .tag("reason", "bulkhead")
+                .register(registry);
+        Gauge.builder("product.client.bulkhead.active", bulkhead,
+                        permits -> properties.bulkhead().maxConcurrentCalls() - permits.availablePermits())
+                .register(registry);
+        Gauge.builder("product.client.circuit.open", circuitBreaker,
+                        breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .register(registry);
+    }
+
+    /**
+     * Runs a call through the bulkhead and the circuit breaker. Every call that got a permission reports its
+     * outcome, whatever it throws, so a half-open probe always closes or reopens the circuit. A 4xx answer means the
+     * service is up, except a 429, which counts as a failure like a 5xx.
+     */
+    <T> T execute(Supplier<T> call) {
+        if (!acquireBulkhead()) {
+            rejectedByBulkhead.increment();
+            throw new ProductServiceUnavailableException("Demasiadas solicitudes concurrentes al servicio de productos");
+        }
+        try {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                rejectedByCircuitBreaker.increment();
+                throw new ProductServiceUnavailableException("El servicio de productos no está disponible temporalmente");
+            }
+            calls.increment();
+            boolean answered = false;
+            try {
+                T result = call.get();
+                answered = true;
+                return result;
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                throw new ProductServiceUnavailableException("El servicio de productos está saturado", e);
+            } catch (HttpClientErrorException e) {
+                answered = true;
+                throw new ProductServiceRejectedException(e.getStatusCode().value(), e);
+            } catch (RestClientException e) {
+                throw new ProductServiceUnavailableException("Error al comunicarse con el servicio de productos", e);
+            } finally {
+                if (answered) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    failures.increment();
+                    circuitBreaker.onFailure();
+                }
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private boolean acquireBulkhead() {
+        try {
+            return bulkhead.tryAcquire(properties.bulkhead().maxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,30 @@
+package com.vimofama.inventoryservice.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "inventory.product-service")
+public record ProductServiceProperties(
+        @DefaultValue("http://localhost:8080") String url,
+        @DefaultValue("1s") Duration connectTimeout,
+        @DefaultValue("2s") Duration readTimeout,
+        @DefaultValue("50") int maxConnections,
+        @DefaultValue("30s") Duration keepAlive,
+        @DefaultValue CircuitBreakerProperties circuitBreaker,
+        @DefaultValue BulkheadProperties bulkhead
+) {
+
+    public record CircuitBreakerProperties(
+            @DefaultValue("5") int failureThreshold,
+            @DefaultValue("10s") Duration openDuration
+    ) {
+    }
+
+    public record BulkheadProperties(
+            @DefaultValue("20") int maxConcurrentCalls,
+            @DefaultValue("100ms") Duration maxWait
+    ) {
+    }
+}
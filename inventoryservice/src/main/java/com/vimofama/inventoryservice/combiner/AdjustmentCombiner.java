@@ -0,0 +1,169 @@
+package com.vimofama.inventoryservice.combiner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Merges concurrent quantity adjustments of the same product into one write (flat combining).
+ * <p>
+ * Every caller appends its adjustment to the product's lock-free queue. Whoever finds no combiner running for
+ * that product becomes it: it waits up to the window if the product was contended last time, takes up to the
+ * batch size of queued adjustments in arrival order, hands them to the {@link BatchWriter} as one batch and
+ * wakes each caller with its own result. The other callers just park until their result is there, and the one
+ * at the head of the queue takes over when the combiner finishes without reaching it.
+ * <p>
+ * Idle products are dropped from the map. A caller still holding a dropped slot combines on it alone, so at
+ * worst two batches of one product run at the same time; the writer has to serialize them itself, which it
+ * does anyway to stay correct against writes from other paths.
+ */
+public class AdjustmentCombiner<R> {
+
+    @FunctionalInterface
+    public interface BatchWriter<R> {
+
+        /**
+         * Applies the adjustments of one product in order, as a single change.
+         *
+         * @return one result per adjustment, in the same order
+         */
+        List<R> write(Long productId, int[] deltas);
+    }
+
+    private static final long MIN_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ConcurrentMap<Long, Slot<R>> slots = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BatchWriter<R> writer;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder adjustments = new LongAdder();
+
+    public AdjustmentCombiner(Duration window, int maxBatchSize, BatchWriter<R> writer) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.writer = writer;
+    }
+
+    /**
+     * Applies {@code delta} to the product together with whatever adjustments are queued with it and returns
+     * this adjustment's own result. Exceptions thrown by the writer are rethrown to every caller of the batch.
+     */
+    public R adjust(Long productId, int delta) {
+        Pending<R> pending = new Pending<>(delta);
+        Slot<R> slot = slots.computeIfAbsent(productId, id -> new Slot<>());
+        slot.queue.add(pending);
+        while (!pending.done) {
+            if (slot.combining.compareAndSet(false, true)) {
+                try {
+                    if (!pending.done) {
+                        combine(productId, slot);
+                    }
+                } finally {
+                    slot.combining.set(false);
+                }
+                Pending<R> next = slot.queue.peek();
+                if (next == null) {
+                    slots.remove(productId, slot);
+                } else {
+                    LockSupport.unpark(next.waiter);
+                }
+            } else {
+                LockSupport.parkNanos(this, Math.max(windowNanos, MIN_PARK_NANOS));
+            }
+        }
+        return pending.result();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    public long adjustments() {
+        return adjustments.sum();
+    }
+
+    private void combine(Long productId, Slot<R> slot) {
+        if (windowNanos > 0 && slot.lastBatchSize > 1) {
+            LockSupport.parkNanos(this, windowNanos);
+        }
+        List<Pending<R>> batch = new ArrayList<>(Math.min(maxBatchSize, 64));
+        Pending<R> pending;
+        while (batch.size() < maxBatchSize && (pending = slot.queue.poll()) != null) {
+            batch.add(pending);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        slot.lastBatchSize = batch.size();
+        batches.increment();
+        adjustments.add(batch.size());
+
+        int[] deltas = new int[batch.size()];
+        for (int i = 0; i < deltas.length; i++) {
+            deltas[i] = batch.get(i).delta;
+        }
+        List<R> results;
+        try {
+            results = writer.write(productId, deltas);
+        } catch (RuntimeException e) {
+            for (Pending<R> failed : batch) {
+                failed.fail(e);
+            }
+            return;
+        }
+        for (int i = 0; i < deltas.length; i++) {
+            batch.get(i).complete(results.get(i));
+        }
+    }
+
+    private static final class Slot<R> {
+
+        final ConcurrentLinkedQueue<Pending<R>> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean combining = new AtomicBoolean();
+        // Only read and written by the thread holding the combining flag
+        int lastBatchSize;
+    }
+
+    private static final class Pending<R> {
+
+        final int delta;
+        final Thread waiter = Thread.currentThread();
+        volatile boolean done;
+        private R result;
+        private RuntimeException failure;
+
+        Pending(int delta) {
+            this.delta = delta;
+        }
+
+        void complete(R value) {
+            result = value;
+            done = true;
+            LockSupport.unpark(waiter);
+        }
+
+        void fail(RuntimeException e) {
+            failure = e;
+            done = true;
+            LockSupport.unpark(waiter);
+        }
+
+        R result() {
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+    }
+}
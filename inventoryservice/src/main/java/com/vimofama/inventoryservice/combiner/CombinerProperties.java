@@ -0,0 +1,20 @@
+package com.vimofama.inventoryservice.combiner;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled      route single increases and decreases through the {@link AdjustmentCombiner}
+ * @param window       how long a combiner waits for more adjustments when its product was contended on the last
+ *                     batch; uncontended products are written right away
+ * @param maxBatchSize adjustments merged into one write at most
+ */
+@ConfigurationProperties(prefix = "inventory.combiner")
+public record CombinerProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1ms") Duration window,
+        @DefaultValue("256") int maxBatchSize
+) {
+}
@@ -0,0 +1,85 @@
+package com.vimofama.inventoryservice.controller;
+
+import com.vimofama.inventoryservice.dto.ClusterMembersDTO;
+import com.vimofama.inventoryservice.dto.ClusterStatusDTO;
+import com.vimofama.inventoryservice.dto.HandoffBatchDTO;
+import com.vimofama.inventoryservice.dto.HandoffResultDTO;
+import com.vimofama.inventoryservice.dto.JoinClusterDTO;
+import com.vimofama.inventoryservice.shard.ShardCoordinator;
+import com.vimofama.inventoryservice.shard.ShardRouter;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.function.Supplier;
+
+/**
+ * Membership and handoff between nodes. Only other nodes may call it: requests without the cluster's shared secret
+ * in {@value ShardRouter#FORWARDED_HEADER} are refused.
+ */
+@RestController
+@RequestMapping("/api/inventory/cluster")
+public class ClusterController {
+
+    private final ShardRouter shardRouter;
+    private final ShardCoordinator shardCoordinator;
+
+    public ClusterController(ShardRouter shardRouter, ShardCoordinator shardCoordinator) {
+        this.shardRouter = shardRouter;
+        this.shardCoordinator = shardCoordinator;
+    }
+
+    @GetMapping
+    public ResponseEntity<ClusterStatusDTO> getStatus() {
+        return fromCluster(() -> ResponseEntity.ok(shardCoordinator.status()));
+    }
+
+    @PostMapping("/join")
+    public ResponseEntity<ClusterStatusDTO> join(@Valid @RequestBody JoinClusterDTO joinClusterDTO) {
+        return fromCluster(() -> ResponseEntity.ok(shardCoordinator.join(joinClusterDTO.url())));
+    }
+
+    @PostMapping("/prepare")
+    public ResponseEntity<Void> prepare(@Valid @RequestBody ClusterMembersDTO clusterMembersDTO) {
+        return fromCluster(() -> {
+            shardCoordinator.prepare(clusterMembersDTO.nodes());
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    @PostMapping("/commit")
+    public ResponseEntity<Void> commit(@Valid @RequestBody ClusterMembersDTO clusterMembersDTO) {
+        return fromCluster(() -> {
+            shardCoordinator.commit(clusterMembersDTO.nodes());
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    @PostMapping("/abort")
+    public ResponseEntity<Void> abort(@Valid @RequestBody ClusterMembersDTO clusterMembersDTO) {
+        return fromCluster(() -> {
+            shardCoordinator.abort(clusterMembersDTO.nodes());
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    @PostMapping("/handoff")
+    public ResponseEntity<HandoffResultDTO> handoff(@Valid @RequestBody HandoffBatchDTO handoffBatchDTO) {
+        return fromCluster(() -> ResponseEntity.ok(new HandoffResultDTO(shardCoordinator.receive(handoffBatchDTO))));
+    }
+
+    private <T> ResponseEntity<T> fromCluster(Supplier<ResponseEntity<T>> action) {
+        if (!shardRouter.enabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!shardRouter.isForwarded()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return action.get();
+    }
+}
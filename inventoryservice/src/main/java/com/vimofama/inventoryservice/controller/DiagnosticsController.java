@@ -0,0 +1,52 @@
+package com.vimofama.inventoryservice.controller;
+
+import com.vimofama.inventoryservice.cache.ProductExistenceCache;
+import com.vimofama.inventoryservice.client.ProductServiceClient;
+import com.vimofama.inventoryservice.dto.CacheStatsDTO;
+import com.vimofama.inventoryservice.dto.ProductClientStatsDTO;
+import com.vimofama.inventoryservice.dto.ProductReplicaStatusDTO;
+import com.vimofama.inventoryservice.dto.ReadModelStatusDTO;
+import com.vimofama.inventoryservice.readmodel.InventoryReadModel;
+import com.vimofama.inventoryservice.replica.ProductReplica;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/inventory/diagnostics")
+public class DiagnosticsController {
+
+    private final ProductExistenceCache productExistenceCache;
+    private final ProductServiceClient productServiceClient;
+    private final ProductReplica productReplica;
+    private final InventoryReadModel inventoryReadModel;
+
+    public DiagnosticsController(ProductExistenceCache productExistenceCache, ProductServiceClient productServiceClient,
+                                 ProductReplica productReplica, InventoryReadModel inventoryReadModel) {
+        this.productExistenceCache = productExistenceCache;
+        this.productServiceClient = productServiceClient;
+        this.productReplica = productReplica;
+        this.inventoryReadModel = inventoryReadModel;
+    }
+
+    @GetMapping("/product-cache")
+    public ResponseEntity<CacheStatsDTO> getProductCacheStats() {
+        return ResponseEntity.ok(productExistenceCache.stats());
+    }
+
+    @GetMapping("/product-client")
+    public ResponseEntity<ProductClientStatsDTO> getProductClientStats() {
+        return ResponseEntity.ok(productServiceClient.stats());
+    }
+
+    @GetMapping("/product-replica")
+    public ResponseEntity<ProductReplicaStatusDTO> getProductReplicaStatus() {
+        return ResponseEntity.ok(productReplica.status());
+    }
+
+    @GetMapping("/read-model")
+    public ResponseEntity<ReadModelStatusDTO> getReadModelStatus() {
+        return ResponseEntity.ok(inventoryReadModel.status());
+    }
+}
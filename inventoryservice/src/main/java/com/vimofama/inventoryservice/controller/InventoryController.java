@@ -1,73 +1,363 @@
 package com.vimofama.inventoryservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vimofama.inventoryservice.dto.AvailabilityDTO;
+import com.vimofama.inventoryservice.dto.BulkInventoryResultDTO;
+import com.vimofama.inventoryservice.dto.CreateInventoryBatchDTO;
 import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import com.vimofama.inventoryservice.dto.CreateReservationDTO;
+import com.vimofama.inventoryservice.dto.CursorPageDTO;
+import com.vimofama.inventoryservice.dto.InventoryDetailsDTO;
+import com.vimofama.inventoryservice.dto.InventoryStatsDTO;
+import com.vimofama.inventoryservice.dto.LowStockItemDTO;
 import com.vimofama.inventoryservice.dto.QuantityDTO;
+import com.vimofama.inventoryservice.dto.ReorderThresholdDTO;
+import com.vimofama.inventoryservice.dto.StockMovementBatchDTO;
+import com.vimofama.inventoryservice.dto.StockHistoryDTO;
+import com.vimofama.inventoryservice.dto.StockMovementResultDTO;
+import com.vimofama.inventoryservice.event.RowVersion;
+import com.vimofama.inventoryservice.history.StockHistory;
+import com.vimofama.inventoryservice.idempotency.IdempotencyStore;
+import com.vimofama.inventoryservice.journal.JournalRecord;
+import com.vimofama.inventoryservice.journal.MovementJournal;
+import com.vimofama.inventoryservice.lowstock.LowStockAlerts;
+import com.vimofama.inventoryservice.lowstock.LowStockIndex;
 import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.model.Reservation;
 import com.vimofama.inventoryservice.service.InventoryService;
+import com.vimofama.inventoryservice.service.ReservationService;
+import com.vimofama.inventoryservice.shard.ShardGateway;
+import com.vimofama.inventoryservice.shard.ShardRouter;
+import com.vimofama.inventoryservice.shard.ShardedByProduct;
+import com.vimofama.inventoryservice.stats.InventoryStats;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/inventory")
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final ReservationService reservationService;
+    private final MovementJournal movementJournal;
+    private final LowStockIndex lowStockIndex;
+    private final LowStockAlerts lowStockAlerts;
+    private final InventoryStats inventoryStats;
+    private final StockHistory stockHistory;
+    private final IdempotencyStore idempotencyStore;
+    private final ShardRouter shardRouter;
+    private final ShardGateway shardGateway;
+    private final ObjectMapper objectMapper;
 
-    public InventoryController(InventoryService inventoryService) {
+    public static final int MAX_JOURNAL_RECORDS = 1000;
+    public static final Duration DEFAULT_HISTORY_RANGE = Duration.ofDays(7);
+
+    public InventoryController(InventoryService inventoryService, ReservationService reservationService,
+                               MovementJournal movementJournal, LowStockIndex lowStockIndex,
+                               LowStockAlerts lowStockAlerts, InventoryStats inventoryStats, StockHistory stockHistory,
+                               IdempotencyStore idempotencyStore, ShardRouter shardRouter, ShardGateway shardGateway,
+                               ObjectMapper objectMapper) {
         this.inventoryService = inventoryService;
+        this.reservationService = reservationService;
+        this.movementJournal = movementJournal;
+        this.lowStockIndex = lowStockIndex;
+        this.lowStockAlerts = lowStockAlerts;
+        this.inventoryStats = inventoryStats;
+        this.stockHistory = stockHistory;
+        this.idempotencyStore = idempotencyStore;
+        this.shardRouter = shardRouter;
+        this.shardGateway = shardGateway;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
     public ResponseEntity<List<Inventory>> getAllInventory() {
-        return ResponseEntity.ok(inventoryService.findAll());
+        return ResponseEntity.ok(shardGateway.findAll());
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<Inventory>> getInventoryPage(@RequestParam(required = false) Long after,
+                                                                     @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(inventoryService.findPage(after, size));
+    }
+
+    @GetMapping("/details")
+    public ResponseEntity<CursorPageDTO<InventoryDetailsDTO>> getInventoryDetailsPage(@RequestParam(required = false) Long after,
+                                                                                      @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(inventoryService.findDetailsPage(after, size));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamInventory() {
+        StreamingResponseBody body = out -> inventoryService.streamAll(inventory -> writeLine(out, inventory));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/journal")
+    public ResponseEntity<List<JournalRecord>> getJournal(@RequestParam(defaultValue = "0") long afterSequence,
+                                                          @RequestParam(required = false) Long productId,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        int maxRecords = Math.min(Math.max(limit, 1), MAX_JOURNAL_RECORDS);
+        return ResponseEntity.ok(movementJournal.read(afterSequence, productId, from, to, maxRecords));
+    }
+
+    @GetMapping("/low-stock")
+    public ResponseEntity<List<LowStockItemDTO>> getLowStock() {
+        return ResponseEntity.ok(lowStockIndex.findAll());
+    }
+
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockAlerts() {
+        return lowStockAlerts.subscribe();
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<InventoryStatsDTO> getStats() {
+        return ResponseEntity.ok(inventoryStats.snapshot());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Inventory> getInventoryByProductId(@PathVariable Long id) {
-        var inventory = inventoryService.findByProductId(id);
+    @ShardedByProduct
+    public ResponseEntity<Inventory> getInventoryByProductId(@PathVariable Long id,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        RowVersion cachedVersion = inventoryService.getCachedVersion(id);
+        if (cachedVersion != null && matchesETag(ifNoneMatch, cachedVersion)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(cachedVersion)).build();
+        }
+        var inventory = inventoryService.readByProductId(id);
         if (inventory == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(inventory);
+        // Spring turns a matching If-None-Match into a 304 before the body is serialized
+        return ResponseEntity.ok().eTag(etag(new RowVersion(inventory.getId(), inventory.getVersion()))).body(inventory);
     }
 
-    @PostMapping
-    public ResponseEntity<Inventory> createInventory(@Valid @RequestBody CreateInventoryDTO  createInventoryDTO, UriComponentsBuilder ubc) {
-        var inventory = inventoryService.save(createInventoryDTO);
-        if (inventory == null) {
+    @GetMapping("/{id}/details")
+    @ShardedByProduct
+    public ResponseEntity<InventoryDetailsDTO> getInventoryDetails(@PathVariable Long id) {
+        InventoryDetailsDTO details = inventoryService.findDetailsByProductId(id);
+        if (details == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(details);
+    }
+
+    @GetMapping("/{id}/history")
+    @ShardedByProduct
+    public ResponseEntity<StockHistoryDTO> getHistory(@PathVariable Long id,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                      @RequestParam(required = false) Duration step) {
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(DEFAULT_HISTORY_RANGE) : from;
+        if (start.isAfter(end) || (step != null && !stockHistory.acceptsStep(start, end, step))) {
             return ResponseEntity.badRequest().build();
         }
-        URI uri = ubc.path("/api/inventory/{id}").buildAndExpand(inventory.getProductId()).toUri();
-        return ResponseEntity.created(uri).body(inventory);
+        StockHistoryDTO history = stockHistory.query(id, start, end, step);
+        if (history == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(history);
+    }
+
+    @PostMapping
+    public ResponseEntity<Inventory> createInventory(@Valid @RequestBody CreateInventoryDTO  createInventoryDTO, UriComponentsBuilder ubc,
+                                                     @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return shardRouter.write(createInventoryDTO.productId(), () ->
+                idempotent(idempotencyKey, List.of("create", createInventoryDTO), () -> {
+                    var inventory = inventoryService.save(createInventoryDTO);
+                    if (inventory == null) {
+                        return ResponseEntity.badRequest().build();
+                    }
+                    URI uri = ubc.path("/api/inventory/{id}").buildAndExpand(inventory.getProductId()).toUri();
+                    return ResponseEntity.created(uri).body(inventory);
+                }));
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkInventoryResultDTO> createInventories(@Valid @RequestBody CreateInventoryBatchDTO createInventoryBatchDTO,
+                                                                    @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, List.of("bulk", createInventoryBatchDTO),
+                () -> ResponseEntity.ok(shardGateway.saveAll(createInventoryBatchDTO.items())));
     }
 
     @PostMapping("/increase/{id}")
-    public ResponseEntity<Inventory> increaseQuantity(@PathVariable Long id, @Valid @RequestBody QuantityDTO quantityDTO) {
-        var inventory = inventoryService.increaseQuantity(id, quantityDTO.quantity());
-        if (inventory == null) {
+    @ShardedByProduct
+    public ResponseEntity<Inventory> increaseQuantity(@PathVariable Long id, @Valid @RequestBody QuantityDTO quantityDTO,
+                                                      @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, List.of("increase", id, quantityDTO), () -> {
+            var inventory = inventoryService.increaseQuantity(id, quantityDTO.quantity());
+            if (inventory == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(inventory);
+        });
+    }
+
+    @PostMapping("/decrease/{id}")
+    @ShardedByProduct
+    public ResponseEntity<Inventory> decreaseQuantity(@PathVariable Long id, @Valid @RequestBody QuantityDTO quantityDTO,
+                                                      @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, List.of("decrease", id, quantityDTO), () -> {
+            var inventory = inventoryService.decreaseQuantity(id, quantityDTO.quantity());
+            if (inventory == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(inventory);
+        });
+    }
+
+    @PutMapping("/{id}/reorder-threshold")
+    @ShardedByProduct
+    public ResponseEntity<Inventory> updateReorderThreshold(@PathVariable Long id, @Valid @RequestBody ReorderThresholdDTO reorderThresholdDTO,
+                                                            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, List.of("reorder-threshold", id, reorderThresholdDTO), () -> {
+            var inventory = inventoryService.updateReorderThreshold(id, reorderThresholdDTO.reorderThreshold());
+            if (inventory == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(inventory);
+        });
+    }
+
+    @PostMapping("/movements")
+    public ResponseEntity<List<StockMovementResultDTO>> applyMovements(@Valid @RequestBody StockMovementBatchDTO stockMovementBatchDTO,
+                                                                       @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, List.of("movements", stockMovementBatchDTO),
+                () -> ResponseEntity.ok(shardGateway.applyMovements(stockMovementBatchDTO.movements())));
+    }
+
+    @GetMapping("/{id}/availability")
+    @ShardedByProduct
+    public ResponseEntity<AvailabilityDTO> getAvailability(@PathVariable Long id) {
+        var availability = reservationService.availability(id);
+        if (availability == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(inventory);
+        return ResponseEntity.ok(availability);
     }
 
-    @PostMapping("/decrease/{id}")
-    public ResponseEntity<Inventory> decreaseQuantity(@PathVariable Long id, @Valid @RequestBody QuantityDTO quantityDTO) {
-        var inventory = inventoryService.decreaseQuantity(id, quantityDTO.quantity());
-        if (inventory == null) {
+    @PostMapping("/reservations")
+    public ResponseEntity<Reservation> reserve(@Valid @RequestBody CreateReservationDTO createReservationDTO, UriComponentsBuilder ubc,
+                                               @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return shardRouter.reserve(createReservationDTO.productId(), () ->
+                idempotent(idempotencyKey, List.of("reserve", createReservationDTO), () -> {
+                    var reservation = reservationService.reserve(createReservationDTO);
+                    if (reservation == null) {
+                        return ResponseEntity.notFound().build();
+                    }
+                    URI url = ubc.path("/api/inventory/reservations/{id}").queryParam("productId", reservation.getProductId())
+                            .buildAndExpand(reservation.getId()).toUri();
+                    return ResponseEntity.created(url).body(reservation);
+                }));
+    }
+
+    // Reservation ids are only unique within a node, so the product both routes these and tells them apart
+    @GetMapping("/reservations/{id}")
+    @ShardedByProduct("productId")
+    public ResponseEntity<Reservation> getReservation(@PathVariable Long id, @RequestParam Long productId) {
+        var reservation = reservationService.findById(id, productId);
+        if (reservation == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(inventory);
+        return ResponseEntity.ok(reservation);
+    }
+
+    @PostMapping("/reservations/{id}/commit")
+    @ShardedByProduct("productId")
+    public ResponseEntity<Reservation> commitReservation(@PathVariable Long id, @RequestParam Long productId,
+                                                         @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, List.of("commit", id, productId), () -> {
+            var reservation = reservationService.commit(id, productId);
+            if (reservation == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(reservation);
+        });
+    }
+
+    @PostMapping("/reservations/{id}/release")
+    @ShardedByProduct("productId")
+    public ResponseEntity<Reservation> releaseReservation(@PathVariable Long id, @RequestParam Long productId,
+                                                          @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, List.of("release", id, productId), () -> {
+            var reservation = reservationService.release(id, productId);
+            if (reservation == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(reservation);
+        });
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteInventory(@PathVariable Long id) {
-        var inventory = inventoryService.deleteById(id);
-        if (!inventory) return ResponseEntity.notFound().build();
-        return ResponseEntity.noContent().build();
+    @ShardedByProduct
+    public ResponseEntity<?> deleteInventory(@PathVariable Long id, @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, List.of("delete", id), () -> {
+            var inventory = inventoryService.deleteById(id);
+            if (!inventory) return ResponseEntity.notFound().build();
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    /**
+     * Runs a mutation at most once per {@code Idempotency-Key}; requests without the header always run.
+     */
+    private <T> ResponseEntity<T> idempotent(String idempotencyKey, Object request, Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        return idempotencyStore.execute(idempotencyKey, request, action);
+    }
+
+    /**
+     * Row id and version: a product deleted and created again starts over at version 0 under a new row id.
+     */
+    private static String etag(RowVersion version) {
+        return "\"" + version.inventoryId() + "-" + version.version() + "\"";
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, RowVersion version) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        ETag current = ETag.create(etag(version));
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(current, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,9 @@
+package com.vimofama.inventoryservice.dto;
+
+public record AvailabilityDTO(
+        Long productId,
+        long quantity,
+        long reserved,
+        long available
+) {
+}
@@ -0,0 +1,21 @@
+package com.vimofama.inventoryservice.dto;
+
+import com.vimofama.inventoryservice.model.Inventory;
+
+import java.util.List;
+
+public record BulkInventoryResultDTO(
+        List<Inventory> created,
+        List<Rejected> rejected
+) {
+    public record Rejected(
+            Long productId,
+            Reason reason
+    ) {
+    }
+
+    public enum Reason {
+        PRODUCT_NOT_FOUND,
+        DUPLICATE
+    }
+}
@@ -0,0 +1,11 @@
+package com.vimofama.inventoryservice.dto;
+
+public record CacheStatsDTO(
+        long size,
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount,
+        long loadFailureCount
+) {
+}
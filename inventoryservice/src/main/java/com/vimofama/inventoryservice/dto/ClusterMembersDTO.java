@@ -0,0 +1,11 @@
+package com.vimofama.inventoryservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record ClusterMembersDTO(
+        @NotEmpty(message = "La lista de nodos no puede estar vacía")
+        List<String> nodes
+) {
+}
@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.util.List;
+
+/**
+ * @param rebalancing whether this node is still handing off products it no longer owns
+ * @param handedOff   products this node has handed off to other nodes since startup
+ */
+public record ClusterStatusDTO(
+        String self,
+        List<String> nodes,
+        boolean rebalancing,
+        long handedOff
+) {
+}
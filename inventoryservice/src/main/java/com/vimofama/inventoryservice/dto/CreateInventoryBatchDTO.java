@@ -0,0 +1,14 @@
+package com.vimofama.inventoryservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CreateInventoryBatchDTO(
+        @NotEmpty(message = "La lista de inventarios no puede estar vacía")
+        @Size(max = 1000, message = "No se pueden crear más de 1000 inventarios por lote")
+        List<@Valid CreateInventoryDTO> items
+) {
+}
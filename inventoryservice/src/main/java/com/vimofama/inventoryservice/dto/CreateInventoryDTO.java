@@ -8,6 +8,16 @@ public record CreateInventoryDTO(
         Long productId,
         @NotNull(message = "La cantidad inicial es obligatoria")
         @PositiveOrZero(message = "La cantidad inicial debe ser mayor o igual a 0")
-        int quantity
+        int quantity,
+        @PositiveOrZero(message = "El umbral de reposición debe ser mayor o igual a 0")
+        Integer reorderThreshold
 ) {
+
+    public CreateInventoryDTO(Long productId, int quantity) {
+        this(productId, quantity, null);
+    }
+
+    public int reorderThresholdOrDefault() {
+        return reorderThreshold == null ? 0 : reorderThreshold;
+    }
 }
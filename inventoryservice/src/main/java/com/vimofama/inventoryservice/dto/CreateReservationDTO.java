@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record CreateReservationDTO(
+        @NotNull(message = "El ID del producto es obligatorio")
+        Long productId,
+        @NotNull(message = "La cantidad es obligatoria")
+        @Positive(message = "La cantidad debe ser mayor a 0")
+        Integer quantity,
+        @Positive(message = "El tiempo de reserva debe ser mayor a 0 segundos")
+        Long ttlSeconds
+) {
+}
@@ -0,0 +1,27 @@
+package com.vimofama.inventoryservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * @param from     node handing the products off
+ * @param rows     rows to store, replacing any held for the same products
+ * @param deleted  products to drop, which the node deleted after copying them
+ * @param complete whether this is the last batch of the node's final handoff, after which it no longer holds them
+ */
+public record HandoffBatchDTO(
+        @NotBlank(message = "El nodo de origen es obligatorio")
+        String from,
+        @NotNull(message = "La lista de inventarios es obligatoria")
+        @Size(max = 1000, message = "No se pueden entregar más de 1000 inventarios por lote")
+        List<@Valid HandoffRowDTO> rows,
+        @NotNull(message = "La lista de productos borrados es obligatoria")
+        @Size(max = 1000, message = "No se pueden entregar más de 1000 productos borrados por lote")
+        List<Long> deleted,
+        boolean complete
+) {
+}
@@ -0,0 +1,11 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.util.List;
+
+/**
+ * @param missing products left out because the product service no longer knows them
+ */
+public record HandoffResultDTO(
+        List<Long> missing
+) {
+}
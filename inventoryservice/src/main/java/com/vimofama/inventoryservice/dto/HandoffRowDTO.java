@@ -0,0 +1,19 @@
+package com.vimofama.inventoryservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * A row as the node handing it off holds it, version included.
+ */
+public record HandoffRowDTO(
+        @NotNull(message = "El ID del producto es obligatorio")
+        Long productId,
+        @PositiveOrZero(message = "La cantidad debe ser mayor o igual a 0")
+        int quantity,
+        @PositiveOrZero(message = "El umbral de reposición debe ser mayor o igual a 0")
+        int reorderThreshold,
+        @PositiveOrZero(message = "La versión debe ser mayor o igual a 0")
+        long version
+) {
+}
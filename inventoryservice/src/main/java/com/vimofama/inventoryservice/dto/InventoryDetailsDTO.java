@@ -0,0 +1,20 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Inventory row joined with the product fields from the local replica. The product fields are {@code null} while
+ * the replica has not seen the product yet.
+ */
+public record InventoryDetailsDTO(
+        Long productId,
+        int quantity,
+        int reorderThreshold,
+        Long version,
+        LocalDateTime lastUpdate,
+        String name,
+        String sku,
+        BigDecimal price
+) {
+}
@@ -0,0 +1,12 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.math.BigDecimal;
+
+public record InventoryStatsDTO(
+        long items,
+        long totalUnits,
+        BigDecimal totalValue,
+        long zeroStockItems,
+        long unpricedItems
+) {
+}
@@ -0,0 +1,9 @@
+package com.vimofama.inventoryservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record JoinClusterDTO(
+        @NotBlank(message = "La URL del nodo es obligatoria")
+        String url
+) {
+}
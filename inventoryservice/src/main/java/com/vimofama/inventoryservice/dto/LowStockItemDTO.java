@@ -0,0 +1,9 @@
+package com.vimofama.inventoryservice.dto;
+
+public record LowStockItemDTO(
+        Long productId,
+        int quantity,
+        int reorderThreshold,
+        long version
+) {
+}
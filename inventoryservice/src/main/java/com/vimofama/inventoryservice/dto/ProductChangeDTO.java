@@ -0,0 +1,24 @@
+package com.vimofama.inventoryservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+
+/**
+ * Entry of the product service change feed. {@code type} is {@code CREATED}, {@code UPDATED} or {@code DELETED}.
+ */
+public record ProductChangeDTO(
+        long sequence,
+        String type,
+        Long productId,
+        String name,
+        String sku,
+        BigDecimal price,
+        Long version
+) {
+
+    @JsonIgnore
+    public boolean isDelete() {
+        return "DELETED".equals(type);
+    }
+}
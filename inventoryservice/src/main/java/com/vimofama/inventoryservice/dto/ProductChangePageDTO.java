@@ -0,0 +1,10 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.util.List;
+
+public record ProductChangePageDTO(
+        List<ProductChangeDTO> changes,
+        long lastSequence,
+        long headSequence
+) {
+}
@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.dto;
+
+public record ProductClientStatsDTO(
+        String circuitState,
+        long calls,
+        long failures,
+        long rejectedByCircuitBreaker,
+        long rejectedByBulkhead,
+        int inFlight,
+        int poolLeased,
+        int poolAvailable,
+        int poolPending,
+        int poolMax
+) {
+}
@@ -0,0 +1,9 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.util.List;
+
+public record ProductLookupResultDTO(
+        List<ProductSummaryDTO> found,
+        List<Long> missing
+) {
+}
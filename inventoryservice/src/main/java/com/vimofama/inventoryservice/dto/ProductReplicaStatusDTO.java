@@ -0,0 +1,16 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.time.Instant;
+
+/**
+ * @param lag        changes the product service had published at the last poll that are not applied yet
+ * @param lastSyncAt end of the last successful poll, {@code null} if none succeeded since startup
+ */
+public record ProductReplicaStatusDTO(
+        int products,
+        long lastSequence,
+        long headSequence,
+        long lag,
+        Instant lastSyncAt
+) {
+}
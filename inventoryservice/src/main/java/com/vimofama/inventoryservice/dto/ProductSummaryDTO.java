@@ -0,0 +1,11 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.math.BigDecimal;
+
+public record ProductSummaryDTO(
+        Long id,
+        String name,
+        String sku,
+        BigDecimal price
+) {
+}
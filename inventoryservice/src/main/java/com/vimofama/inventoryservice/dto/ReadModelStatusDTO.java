@@ -0,0 +1,18 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.time.Instant;
+
+/**
+ * @param generation       snapshots published so far
+ * @param pendingChanges   committed changes not visible to readers yet
+ * @param stalenessMillis  age of the oldest of those changes, zero when readers see everything committed
+ */
+public record ReadModelStatusDTO(
+        boolean servingReads,
+        int items,
+        long generation,
+        Instant publishedAt,
+        int pendingChanges,
+        double stalenessMillis
+) {
+}
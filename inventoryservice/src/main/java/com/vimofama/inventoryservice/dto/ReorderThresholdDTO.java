@@ -0,0 +1,11 @@
+package com.vimofama.inventoryservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+public record ReorderThresholdDTO(
+        @NotNull(message = "El umbral de reposición es obligatorio")
+        @PositiveOrZero(message = "El umbral de reposición debe ser mayor o igual a 0")
+        Integer reorderThreshold
+) {
+}
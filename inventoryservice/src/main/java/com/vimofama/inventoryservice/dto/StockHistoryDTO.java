@@ -0,0 +1,14 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public record StockHistoryDTO(
+        Long productId,
+        Instant from,
+        Instant to,
+        Duration step,
+        List<StockHistoryPointDTO> points
+) {
+}
@@ -0,0 +1,18 @@
+package com.vimofama.inventoryservice.dto;
+
+import java.time.Instant;
+
+/**
+ * Stock level at {@code timestamp}, or over the bucket starting there when the history is downsampled.
+ *
+ * @param quantity last quantity in the bucket
+ * @param min      lowest quantity in the bucket
+ * @param max      highest quantity in the bucket
+ */
+public record StockHistoryPointDTO(
+        Instant timestamp,
+        int quantity,
+        int min,
+        int max
+) {
+}
@@ -0,0 +1,14 @@
+package com.vimofama.inventoryservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record StockMovementBatchDTO(
+        @NotEmpty(message = "La lista de movimientos no puede estar vacía")
+        @Size(max = 10000, message = "No se pueden enviar más de 10000 movimientos por lote")
+        List<@Valid StockMovementDTO> movements
+) {
+}
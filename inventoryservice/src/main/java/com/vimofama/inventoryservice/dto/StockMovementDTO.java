@@ -0,0 +1,11 @@
+package com.vimofama.inventoryservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public record StockMovementDTO(
+        @NotNull(message = "El ID del producto es obligatorio")
+        Long productId,
+        @NotNull(message = "La cantidad del movimiento es obligatoria")
+        Integer delta
+) {
+}
@@ -0,0 +1,14 @@
+package com.vimofama.inventoryservice.dto;
+
+public record StockMovementResultDTO(
+        Long productId,
+        int delta,
+        Status status,
+        Integer quantity
+) {
+    public enum Status {
+        APPLIED,
+        NOT_FOUND,
+        INSUFFICIENT_STOCK
+    }
+}
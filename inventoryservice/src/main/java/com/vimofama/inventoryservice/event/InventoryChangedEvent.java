@@ -0,0 +1,23 @@
+package com.vimofama.inventoryservice.event;
+
+/**
+ * Published by every inventory write. Listeners bound to the transaction only see changes that were committed.
+ *
+ * @param version          row version after the change; deletes carry the last version plus one
+ * @param delta            change applied to the quantity (the full quantity for creates, minus it for deletes)
+ * @param quantity         quantity after the change
+ * @param reorderThreshold reorder threshold after the change
+ * @param lastUpdate       last update of the row after the change, in epoch millis; the time of the delete for
+ *                         deletes
+ */
+public record InventoryChangedEvent(
+        MovementType type,
+        Long productId,
+        Long inventoryId,
+        long version,
+        int delta,
+        int quantity,
+        int reorderThreshold,
+        long lastUpdate
+) {
+}
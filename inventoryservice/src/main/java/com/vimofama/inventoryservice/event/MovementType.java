@@ -0,0 +1,25 @@
+package com.vimofama.inventoryservice.event;
+
+public enum MovementType {
+    CREATE,
+    INCREASE,
+    DECREASE,
+    MOVEMENT,
+    RESERVATION_COMMIT,
+    DELETE,
+    THRESHOLD,
+    RESERVED,
+    RESERVATION_COMMITTED,
+    RESERVATION_RELEASED,
+    RESERVATION_EXPIRED;
+
+    /**
+     * Whether the type describes a reservation transition rather than a change of an inventory row.
+     */
+    public boolean isReservation() {
+        return switch (this) {
+            case RESERVED, RESERVATION_COMMITTED, RESERVATION_RELEASED, RESERVATION_EXPIRED -> true;
+            default -> false;
+        };
+    }
+}
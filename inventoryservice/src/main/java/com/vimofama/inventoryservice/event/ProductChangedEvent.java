@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Published by the product replica for every change it applies from the product service feed.
+ *
+ * @param price price after the change, {@code null} for deletes
+ */
+public record ProductChangedEvent(
+        Long productId,
+        BigDecimal price,
+        boolean deleted
+) {
+}
@@ -0,0 +1,17 @@
+package com.vimofama.inventoryservice.event;
+
+/**
+ * Published by every reservation transition, so reservations can be rebuilt after a restart. Listeners bound to
+ * the transaction only see transitions that were committed.
+ *
+ * @param type      {@link MovementType#RESERVED} or one of the transitions that end a reservation
+ * @param expiresAt expiry of the reservation, in epoch millis
+ */
+public record ReservationChangedEvent(
+        MovementType type,
+        Long reservationId,
+        Long productId,
+        int quantity,
+        long expiresAt
+) {
+}
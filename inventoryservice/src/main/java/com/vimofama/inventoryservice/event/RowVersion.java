@@ -0,0 +1,20 @@
+package com.vimofama.inventoryservice.event;
+
+/**
+ * One state of the inventory row of a product, ordered by row id and then version. Row ids come from a sequence
+ * that only grows, also across snapshot restores, so a row created after a delete is always newer than the
+ * deleted one even though its version starts over.
+ */
+public record RowVersion(long inventoryId, long version) {
+
+    public boolean isNewerThan(RowVersion other) {
+        return isNewer(inventoryId, version, other.inventoryId, other.version);
+    }
+
+    /**
+     * Same as {@link #isNewerThan}, for callers that keep the fields apart.
+     */
+    public static boolean isNewer(long inventoryId, long version, long otherInventoryId, long otherVersion) {
+        return inventoryId != otherInventoryId ? inventoryId > otherInventoryId : version > otherVersion;
+    }
+}
@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.exception;
+
+public class ActiveReservationsException extends RuntimeException {
+
+    private final Long productId;
+
+    public ActiveReservationsException(Long productId) {
+        super("El inventario del producto " + productId + " tiene reservas activas y no se puede eliminar");
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.exception;
+
+public class DuplicateInventoryException extends RuntimeException {
+
+    private final Long productId;
+
+    public DuplicateInventoryException(Long productId) {
+        super("Ya existe un inventario para el producto " + productId);
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
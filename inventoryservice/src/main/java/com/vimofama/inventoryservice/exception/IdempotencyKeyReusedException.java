@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private final String key;
+
+    public IdempotencyKeyReusedException(String key) {
+        super("La clave de idempotencia " + key + " ya se usó con otra petición");
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.exception;
+
+public class IdempotentRequestInProgressException extends RuntimeException {
+
+    private final String key;
+
+    public IdempotentRequestInProgressException(String key) {
+        super("Otra petición con la clave de idempotencia " + key + " sigue en curso");
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
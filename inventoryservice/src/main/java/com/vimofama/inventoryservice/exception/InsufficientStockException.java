@@ -0,0 +1,21 @@
+package com.vimofama.inventoryservice.exception;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+    private final int requested;
+
+    public InsufficientStockException(Long productId, int requested) {
+        super("Stock insuficiente para el producto " + productId);
+        this.productId = productId;
+        this.requested = requested;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+}
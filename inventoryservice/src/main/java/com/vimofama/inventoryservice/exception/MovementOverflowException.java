@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.exception;
+
+public class MovementOverflowException extends RuntimeException {
+
+    private final Long productId;
+
+    public MovementOverflowException(Long productId) {
+        super("El movimiento neto del producto " + productId + " excede el rango permitido");
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
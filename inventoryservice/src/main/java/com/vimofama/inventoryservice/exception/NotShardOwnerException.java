@@ -0,0 +1,21 @@
+package com.vimofama.inventoryservice.exception;
+
+public class NotShardOwnerException extends RuntimeException {
+
+    private final Long productId;
+    private final String owner;
+
+    public NotShardOwnerException(Long productId, String owner) {
+        super("El producto " + productId + " pertenece al nodo " + owner);
+        this.productId = productId;
+        this.owner = owner;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.exception;
+
+public class ProductServiceRejectedException extends RuntimeException {
+
+    private final int status;
+
+    public ProductServiceRejectedException(int status, Throwable cause) {
+        super("El servicio de productos rechazó la solicitud con el estado " + status, cause);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
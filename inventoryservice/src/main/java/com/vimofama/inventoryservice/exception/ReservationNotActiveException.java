@@ -0,0 +1,23 @@
+package com.vimofama.inventoryservice.exception;
+
+import com.vimofama.inventoryservice.model.ReservationStatus;
+
+public class ReservationNotActiveException extends RuntimeException {
+
+    private final Long reservationId;
+    private final ReservationStatus status;
+
+    public ReservationNotActiveException(Long reservationId, ReservationStatus status) {
+        super("La reserva " + reservationId + " ya no está activa (estado: " + status + ")");
+        this.reservationId = reservationId;
+        this.status = status;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,20 @@
+package com.vimofama.inventoryservice.exception;
+
+public class ShardRebalancingException extends RuntimeException {
+
+    private final Long productId;
+
+    public ShardRebalancingException(Long productId) {
+        super("El producto " + productId + " se está traspasando entre nodos; inténtelo de nuevo en unos instantes");
+        this.productId = productId;
+    }
+
+    public ShardRebalancingException() {
+        super("El clúster está rebalanceando; inténtelo de nuevo en unos instantes");
+        this.productId = null;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.exception;
+
+public class ShardUnavailableException extends RuntimeException {
+
+    private final String node;
+
+    public ShardUnavailableException(String node, Throwable cause) {
+        super("El nodo " + node + " no está disponible", cause);
+        this.node = node;
+    }
+
+    public String getNode() {
+        return node;
+    }
+}
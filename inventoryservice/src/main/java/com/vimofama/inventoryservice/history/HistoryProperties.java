@@ -0,0 +1,22 @@
+package com.vimofama.inventoryservice.history;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param blockSize      points per compressed block; bigger blocks compress the same but are decoded whole
+ * @param retention      how far back points are kept; whole blocks are dropped once all their points are older
+ * @param pruneInterval  how often blocks past the retention are dropped
+ * @param maxPoints      points a single history query returns at most; a finer step is rejected and a query
+ *                       without step that would return more is downsampled
+ */
+@ConfigurationProperties(prefix = "inventory.history")
+public record HistoryProperties(
+        @DefaultValue("128") int blockSize,
+        @DefaultValue("30d") Duration retention,
+        @DefaultValue("1h") Duration pruneInterval,
+        @DefaultValue("10000") int maxPoints
+) {
+}
@@ -0,0 +1,284 @@
+package com.vimofama.inventoryservice.history;
+
+import com.vimofama.inventoryservice.event.RowVersion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Stock levels of one product over time, as {@code (timestamp, quantity)} points in time order.
+ * <p>
+ * Points are written into an open block with two columns: timestamps as delta-of-deltas and quantities as
+ * deltas, both zigzag varints. Changes at a steady pace and small movements take one byte per column, so a point
+ * costs two or three bytes. Once the open block holds the block size it is sealed into one trimmed array and
+ * a new block starts; sealed blocks keep their time range so queries skip the ones outside it.
+ * <p>
+ * Sealed block layout: point count, timestamps column length, timestamps column, quantities column. The first
+ * timestamp and quantity are stored whole, the second timestamp as a delta.
+ * <p>
+ * Not thread-safe; {@link StockHistory} synchronizes on the series.
+ */
+final class HistorySeries {
+
+    private final int blockSize;
+    private final List<Block> sealed = new ArrayList<>();
+    private final Column timestamps = new Column();
+    private final Column quantities = new Column();
+    private long inventoryId;
+    private long version = -1;
+    private long sealedBytes;
+    private long sealedPoints;
+    private int count;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long lastDelta;
+    private int lastQuantity;
+    private boolean deleted;
+
+    HistorySeries(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    @FunctionalInterface
+    interface PointConsumer {
+
+        void accept(long timestamp, int quantity);
+    }
+
+    /**
+     * Appends a point unless the change is older than the last one recorded, by row id and then version. A
+     * timestamp earlier than the last point is moved up to it, so the series never goes back in time.
+     *
+     * @param deleted whether the change deleted the row, so its level stays at {@code quantity} for good
+     * @return whether the point was appended
+     */
+    boolean append(long inventoryId, long version, long timestamp, int quantity, boolean deleted) {
+        if (!RowVersion.isNewer(inventoryId, version, this.inventoryId, this.version)) {
+            return false;
+        }
+        this.inventoryId = inventoryId;
+        this.version = version;
+        timestamp = Math.max(timestamp, lastTimestamp);
+        if (count == 0) {
+            firstTimestamp = timestamp;
+            timestamps.writeVarLong(timestamp);
+            quantities.writeVarLong(zigzag(quantity));
+        } else {
+            long delta = timestamp - lastTimestamp;
+            timestamps.writeVarLong(zigzag(count == 1 ? delta : delta - lastDelta));
+            quantities.writeVarLong(zigzag((long) quantity - lastQuantity));
+            lastDelta = delta;
+        }
+        lastTimestamp = timestamp;
+        lastQuantity = quantity;
+        this.deleted = deleted;
+        count++;
+        if (count == blockSize) {
+            seal();
+        }
+        return true;
+    }
+
+    long points() {
+        return sealedPoints + count;
+    }
+
+    /**
+     * Points from {@code from} to {@code to} that {@link #read} would emit.
+     */
+    long points(long from, long to) {
+        long[] points = {0};
+        read(from, to, (timestamp, quantity) -> points[0]++);
+        return points[0];
+    }
+
+    /**
+     * Encoded size of the points held, in bytes.
+     */
+    long bytes() {
+        return sealedBytes + timestamps.size + quantities.size;
+    }
+
+    /**
+     * Calls {@code consumer} with every point from {@code from} to {@code to}, both inclusive, preceded by the
+     * last point before {@code from} if there is one.
+     */
+    void read(long from, long to, PointConsumer consumer) {
+        long[] carried = null;
+        for (Block block : sealed) {
+            if (block.lastTimestamp() < from) {
+                carried = new long[]{block.lastTimestamp(), block.lastQuantity()};
+                continue;
+            }
+            if (block.firstTimestamp() > to) {
+                break;
+            }
+            carried = decode(block.data(), from, to, carried, consumer);
+        }
+        if (count > 0 && firstTimestamp <= to) {
+            carried = decode(openBlock(), from, to, carried, consumer);
+        }
+        if (carried != null) {
+            consumer.accept(carried[0], (int) carried[1]);
+        }
+    }
+
+    /**
+     * Drops the sealed blocks whose points are all older than {@code before}, or every point if the row was
+     * deleted before it.
+     */
+    void prune(long before) {
+        if (deleted && lastTimestamp < before) {
+            sealed.clear();
+            sealedBytes = 0;
+            sealedPoints = 0;
+            timestamps.clear();
+            quantities.clear();
+            count = 0;
+            lastDelta = 0;
+            return;
+        }
+        Iterator<Block> blocks = sealed.iterator();
+        while (blocks.hasNext()) {
+            Block block = blocks.next();
+            if (block.lastTimestamp() >= before) {
+                break;
+            }
+            sealedBytes -= block.data().length;
+            sealedPoints -= block.count();
+            blocks.remove();
+        }
+    }
+
+    private void seal() {
+        byte[] data = openBlock();
+        sealed.add(new Block(firstTimestamp, lastTimestamp, lastQuantity, count, data));
+        sealedBytes += data.length;
+        sealedPoints += count;
+        // Start the next block small again, an idle product should not hold on to a full block of capacity
+        timestamps.clear();
+        quantities.clear();
+        count = 0;
+        lastDelta = 0;
+    }
+
+    private byte[] openBlock() {
+        Column block = new Column();
+        block.writeVarLong(count);
+        block.writeVarLong(timestamps.size);
+        block.write(timestamps);
+        block.write(quantities);
+        return Arrays.copyOf(block.bytes, block.size);
+    }
+
+    /**
+     * Emits the points of a block within the range. The point right before {@code from} is carried instead of
+     * emitted and handed back, unless a point within the range came after it; then it is emitted first.
+     */
+    private static long[] decode(byte[] data, long from, long to, long[] carried, PointConsumer consumer) {
+        Reader header = new Reader(data, 0);
+        int count = (int) header.readVarLong();
+        int timestampsLength = (int) header.readVarLong();
+        Reader times = new Reader(data, header.position);
+        Reader values = new Reader(data, header.position + timestampsLength);
+        long timestamp = 0;
+        long delta = 0;
+        long quantity = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                timestamp = times.readVarLong();
+                quantity = unzigzag(values.readVarLong());
+            } else {
+                long read = unzigzag(times.readVarLong());
+                delta = i == 1 ? read : delta + read;
+                timestamp += delta;
+                quantity += unzigzag(values.readVarLong());
+            }
+            if (timestamp > to) {
+                break;
+            }
+            if (timestamp < from) {
+                carried = new long[]{timestamp, quantity};
+                continue;
+            }
+            if (carried != null) {
+                consumer.accept(carried[0], (int) carried[1]);
+                carried = null;
+            }
+            consumer.accept(timestamp, (int) quantity);
+        }
+        return carried;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private record Block(long firstTimestamp, long lastTimestamp, int lastQuantity, int count, byte[] data) {
+    }
+
+    private static final class Column {
+
+        private byte[] bytes = new byte[8];
+        private int size;
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((byte) value);
+        }
+
+        void clear() {
+            bytes = new byte[8];
+            size = 0;
+        }
+
+        void write(Column other) {
+            ensureCapacity(size + other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        private void writeByte(byte value) {
+            ensureCapacity(size + 1);
+            bytes[size++] = value;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
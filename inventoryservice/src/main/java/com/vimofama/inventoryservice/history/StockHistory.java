@@ -0,0 +1,205 @@
+package com.vimofama.inventoryservice.history;
+
+import com.vimofama.inventoryservice.dto.StockHistoryDTO;
+import com.vimofama.inventoryservice.dto.StockHistoryPointDTO;
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stock level history of every product, recorded from the committed {@link InventoryChangedEvent}s into a
+ * compressed {@link HistorySeries} per product. Deletes record a quantity of zero, and older events are skipped
+ * by row id and version like in the low-stock index.
+ * <p>
+ * History lives in memory only. On startup every row contributes its current quantity at its last update, so
+ * charts start from the level each product had then. The series of a product deleted longer than the retention
+ * ago is dropped when pruning.
+ */
+@Component
+public class StockHistory implements MeterBinder {
+
+    private static final String SELECT_ROWS_SQL = "select id, product_id, quantity, version, last_update from inventory";
+
+    private final ConcurrentMap<Long, HistorySeries> series = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final HistoryProperties properties;
+
+    public StockHistory(JdbcTemplate jdbcTemplate, HistoryProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Seeds every series with the current row once the snapshot restore has filled the table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        jdbcTemplate.query(SELECT_ROWS_SQL, rs -> {
+            Timestamp lastUpdate = rs.getTimestamp("last_update");
+            record(rs.getLong("product_id"), rs.getLong("id"), rs.getLong("version"),
+                    lastUpdate == null ? System.currentTimeMillis() : lastUpdate.getTime(), rs.getInt("quantity"), false);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        boolean deleted = event.type() == MovementType.DELETE;
+        record(event.productId(), event.inventoryId(), event.version(), System.currentTimeMillis(),
+                deleted ? 0 : event.quantity(), deleted);
+    }
+
+    /**
+     * Points of one product from {@code from} to {@code to}, starting with the level in effect at {@code from}.
+     * With a {@code step}, points are grouped into buckets of that length aligned to {@code from}, each reporting
+     * its last, lowest and highest quantity; buckets without changes are left out. Without a {@code step}, every
+     * change is returned unless there are more than {@code inventory.history.max-points}; then the range is split
+     * into that many buckets and the returned history carries the step used.
+     *
+     * @return the history, or {@code null} if nothing was ever recorded for the product
+     */
+    public StockHistoryDTO query(Long productId, Instant from, Instant to, Duration step) {
+        HistorySeries productSeries = series.get(productId);
+        if (productSeries == null) {
+            return null;
+        }
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        synchronized (productSeries) {
+            Duration effectiveStep = step;
+            if (step == null && productSeries.points(fromMillis, toMillis) > properties.maxPoints()) {
+                // Smallest whole step whose buckets over the range stay within max-points, like acceptsStep checks
+                effectiveStep = Duration.ofMillis((toMillis - fromMillis) / properties.maxPoints() + 1);
+            }
+            Buckets buckets = new Buckets(fromMillis, effectiveStep == null ? 0 : effectiveStep.toMillis());
+            productSeries.read(fromMillis, toMillis, buckets::add);
+            return new StockHistoryDTO(productId, from, to, effectiveStep, buckets.finish());
+        }
+    }
+
+    /**
+     * Whether a query over the range with this step stays within {@code inventory.history.max-points}.
+     */
+    public boolean acceptsStep(Instant from, Instant to, Duration step) {
+        long stepMillis = step.toMillis();
+        return stepMillis > 0 && Duration.between(from, to).toMillis() / stepMillis < properties.maxPoints();
+    }
+
+    @Scheduled(initialDelayString = "${inventory.history.prune-interval:1h}",
+            fixedDelayString = "${inventory.history.prune-interval:1h}")
+    public void prune() {
+        long before = System.currentTimeMillis() - properties.retention().toMillis();
+        for (Long productId : series.keySet()) {
+            series.computeIfPresent(productId, (id, productSeries) -> {
+                synchronized (productSeries) {
+                    productSeries.prune(before);
+                    return productSeries.points() == 0 ? null : productSeries;
+                }
+            });
+        }
+    }
+
+    public long points() {
+        long points = 0;
+        for (HistorySeries productSeries : series.values()) {
+            synchronized (productSeries) {
+                points += productSeries.points();
+            }
+        }
+        return points;
+    }
+
+    public long bytes() {
+        long bytes = 0;
+        for (HistorySeries productSeries : series.values()) {
+            synchronized (productSeries) {
+                bytes += productSeries.bytes();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.history.points", this, StockHistory::points)
+                .description("Puntos guardados en el historial de stock")
+                .register(registry);
+        Gauge.builder("inventory.history.bytes", this, StockHistory::bytes)
+                .description("Tamaño comprimido del historial de stock")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    void record(long productId, long inventoryId, long version, long timestamp, int quantity, boolean deleted) {
+        // Appended within compute, so prune cannot drop the series between the lookup and the append
+        series.compute(productId, (id, productSeries) -> {
+            HistorySeries target = productSeries == null ? new HistorySeries(properties.blockSize()) : productSeries;
+            synchronized (target) {
+                target.append(inventoryId, version, timestamp, quantity, deleted);
+            }
+            return target;
+        });
+    }
+
+    /**
+     * Collects points into buckets of {@code stepMillis} aligned to {@code fromMillis}, or one point per change
+     * when the step is zero. The point carried from before the range is reported at {@code fromMillis}.
+     */
+    private static final class Buckets {
+
+        private final long fromMillis;
+        private final long stepMillis;
+        private final List<StockHistoryPointDTO> points = new ArrayList<>();
+        private long start = Long.MIN_VALUE;
+        private int last;
+        private int min;
+        private int max;
+
+        Buckets(long fromMillis, long stepMillis) {
+            this.fromMillis = fromMillis;
+            this.stepMillis = stepMillis;
+        }
+
+        void add(long timestamp, int quantity) {
+            long at = Math.max(timestamp, fromMillis);
+            long bucket = stepMillis == 0 ? at : fromMillis + (at - fromMillis) / stepMillis * stepMillis;
+            if (stepMillis == 0 || bucket != start) {
+                flush();
+                start = bucket;
+                min = quantity;
+                max = quantity;
+            } else {
+                min = Math.min(min, quantity);
+                max = Math.max(max, quantity);
+            }
+            last = quantity;
+        }
+
+        List<StockHistoryPointDTO> finish() {
+            flush();
+            return points;
+        }
+
+        private void flush() {
+            if (start != Long.MIN_VALUE) {
+                points.add(new StockHistoryPointDTO(Instant.ofEpochMilli(start), last, min, max));
+                start = Long.MIN_VALUE;
+            }
+        }
+    }
+}
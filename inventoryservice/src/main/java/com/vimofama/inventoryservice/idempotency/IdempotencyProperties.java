@@ -0,0 +1,19 @@
+package com.vimofama.inventoryservice.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maxSize     completed responses kept at most; the least valuable are evicted first once it is reached
+ * @param ttl         how long a completed response is replayed for its key
+ * @param waitTimeout how long a duplicate waits for the request that holds its key before giving up
+ */
+@ConfigurationProperties(prefix = "inventory.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("100000") long maxSize,
+        @DefaultValue("1h") Duration ttl,
+        @DefaultValue("10s") Duration waitTimeout
+) {
+}
@@ -0,0 +1,142 @@
+package com.vimofama.inventoryservice.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vimofama.inventoryservice.exception.IdempotencyKeyReusedException;
+import com.vimofama.inventoryservice.exception.IdempotentRequestInProgressException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the response of every request sent with an {@code Idempotency-Key}, so a retry with the same key gets
+ * the original response back instead of applying the change again.
+ * <p>
+ * Completed responses live in a Caffeine cache bounded by size and expiring after the configured TTL, so memory
+ * stays flat however many keys arrive. Requests still running are tracked apart, in a map that only ever holds as
+ * many keys as there are requests in progress, so they are never evicted: a duplicate that finds its key there
+ * waits for the first request and then returns its response.
+ * <p>
+ * Only responses are remembered. A request that ends in an exception rolled back its change, so its key is
+ * forgotten and the next request with it, including a duplicate that was waiting, runs again.
+ */
+@Component
+public class IdempotencyStore implements MeterBinder {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<String, Completed> completed;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final IdempotencyProperties properties;
+
+    public IdempotencyStore(IdempotencyProperties properties) {
+        this.properties = properties;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Runs {@code action} once per key and returns its response to every request with that key.
+     *
+     * @param request what the request asks for, compared with {@code equals}; a key sent again with a different
+     *                request is rejected
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String key, Object request, Supplier<ResponseEntity<T>> action) {
+        while (true) {
+            Completed done = completed.getIfPresent(key);
+            if (done != null) {
+                return (ResponseEntity<T>) replay(key, request, done);
+            }
+            InFlight mine = new InFlight(request);
+            InFlight running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                if (!running.request().equals(request)) {
+                    throw new IdempotencyKeyReusedException(key);
+                }
+                await(key, running);
+                continue;
+            }
+            try {
+                // The first request may have finished between the cache lookup and taking the key
+                done = completed.getIfPresent(key);
+                if (done != null) {
+                    return (ResponseEntity<T>) replay(key, request, done);
+                }
+                ResponseEntity<T> response = action.get();
+                completed.put(key, new Completed(request, response));
+                return response;
+            } finally {
+                inFlight.remove(key, mine);
+                mine.finished().complete(null);
+            }
+        }
+    }
+
+    /**
+     * Completed responses currently remembered.
+     */
+    public long size() {
+        completed.cleanUp();
+        return completed.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, completed, "idempotency");
+        Gauge.builder("inventory.idempotency.in.flight", inFlight, ConcurrentMap::size)
+                .description("Peticiones con Idempotency-Key en curso")
+                .register(registry);
+    }
+
+    private void await(String key, InFlight running) {
+        try {
+            running.finished().get(properties.waitTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotentRequestInProgressException(key);
+        } catch (TimeoutException e) {
+            throw new IdempotentRequestInProgressException(key);
+        } catch (ExecutionException e) {
+            // Never completed exceptionally
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResponseEntity<?> replay(String key, Object request, Completed done) {
+        if (!done.request().equals(request)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(done.response().getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(done.response().getBody(), headers, done.response().getStatusCode());
+    }
+
+    private record Completed(Object request, ResponseEntity<?> response) {
+    }
+
+    private record InFlight(Object request, CompletableFuture<Void> finished) {
+
+        InFlight(Object request) {
+            this(request, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.vimofama.inventoryservice.journal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "inventory.journal")
+public record JournalProperties(
+        @DefaultValue("data/journal") Path directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("10ms") Duration flushInterval,
+        @DefaultValue("true") boolean awaitDurable
+) {
+}
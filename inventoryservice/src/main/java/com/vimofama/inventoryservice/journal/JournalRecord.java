@@ -0,0 +1,25 @@
+package com.vimofama.inventoryservice.journal;
+
+import com.vimofama.inventoryservice.event.MovementType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One journaled change. Reservation transitions ({@link MovementType#isReservation()}) reuse the row fields:
+ * {@code inventoryId} holds the reservation id, {@code version} its expiry in epoch millis, {@code quantity} the
+ * reserved amount and {@code delta} the change it makes to the reserved stock.
+ */
+public record JournalRecord(
+        long sequence,
+        Instant timestamp,
+        Long productId,
+        Long inventoryId,
+        long version,
+        MovementType type,
+        int delta,
+        int quantity,
+        int reorderThreshold,
+        UUID requestId
+) {
+}
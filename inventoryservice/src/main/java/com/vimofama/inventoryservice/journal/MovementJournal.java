@@ -0,0 +1,466 @@
+package com.vimofama.inventoryservice.journal;
+
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import com.vimofama.inventoryservice.event.ReservationChangedEvent;
+import com.vimofama.inventoryservice.web.RequestIdFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of committed inventory movements and reservation transitions, stored as fixed-size records
+ * in memory-mapped segment files.
+ * <p>
+ * Appends write primitives straight into the mapped segment under a short lock and never allocate. A flusher
+ * thread forces the active segment to disk and marks everything appended up to that point as durable, so
+ * concurrent appends share one {@code msync} (group commit). After a crash, recovery keeps the records up to the
+ * first one whose sequence or checksum does not match.
+ * <p>
+ * Committed writes are appended on the committing thread right after the database commit, and with
+ * {@code inventory.journal.await-durable} (the default) that thread then waits for its record to be durable, so a
+ * request is only answered once its movement is on disk. Turned off, records become durable within a flush
+ * interval of the answer, and a crash in between loses acknowledged writes.
+ * <p>
+ * Record layout ({@value #RECORD_SIZE} bytes): sequence, timestamp (epoch millis), productId, delta, quantity,
+ * request id (two longs), inventory row id and version, movement type, checksum, reorder threshold and four
+ * reserved bytes.
+ */
+@Component
+public class MovementJournal implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MovementJournal.class);
+
+    static final int RECORD_SIZE = 80;
+    private static final int SEQUENCE = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int PRODUCT_ID = 16;
+    private static final int DELTA = 24;
+    private static final int QUANTITY = 28;
+    private static final int REQUEST_ID_HIGH = 32;
+    private static final int REQUEST_ID_LOW = 40;
+    private static final int INVENTORY_ID = 48;
+    private static final int VERSION = 56;
+    private static final int TYPE = 64;
+    private static final int CHECKSUM = 68;
+    private static final int REORDER_THRESHOLD = 72;
+
+    private static final MovementType[] TYPES = MovementType.values();
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{20})\\.journal");
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final long flushIntervalNanos;
+    private final boolean awaitDurable;
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private Segment active;
+    private volatile long lastSequence;
+    private long durableSequence;
+    private boolean closed;
+    private final Thread flusher;
+
+    public MovementJournal(JournalProperties properties) throws IOException {
+        this.directory = properties.directory();
+        this.recordsPerSegment = (int) Math.max(1, Math.min(Integer.MAX_VALUE / RECORD_SIZE,
+                properties.segmentSize().toBytes() / RECORD_SIZE));
+        this.flushIntervalNanos = properties.flushInterval().toNanos();
+        this.awaitDurable = properties.awaitDurable();
+        Files.createDirectories(directory);
+        recover();
+        this.flusher = Thread.ofPlatform().daemon().name("movement-journal-flusher").start(this::flushLoop);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        appendCommitted(event.type(), event.productId(), event.inventoryId(), event.version(), event.delta(),
+                event.quantity(), event.reorderThreshold());
+    }
+
+    /**
+     * Journals a reservation transition in the layout described by {@link JournalRecord}.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        int delta = event.type() == MovementType.RESERVED ? event.quantity() : -event.quantity();
+        appendCommitted(event.type(), event.productId(), event.reservationId(), event.expiresAt(), delta,
+                event.quantity(), 0);
+    }
+
+    private void appendCommitted(MovementType type, long productId, long inventoryId, long version, int delta,
+                                 int quantity, int reorderThreshold) {
+        UUID requestId = RequestIdFilter.currentRequestId();
+        long sequence = append(type, productId, inventoryId, version, delta, quantity, reorderThreshold,
+                requestId == null ? 0 : requestId.getMostSignificantBits(),
+                requestId == null ? 0 : requestId.getLeastSignificantBits());
+        if (awaitDurable) {
+            try {
+                awaitDurable(sequence);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Appends one record and returns its sequence. The record is visible to readers immediately and durable once
+     * {@link #awaitDurable(long)} returns for that sequence.
+     */
+    public long append(MovementType type, long productId, long inventoryId, long version, int delta, int quantity,
+                       int reorderThreshold, long requestIdHigh, long requestIdLow) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("El journal de movimientos está cerrado");
+            }
+            if (active.count == active.capacity) {
+                rotate();
+            }
+            Segment segment = active;
+            int slot = segment.count;
+            long sequence = segment.firstSequence + slot;
+            long timestamp = System.currentTimeMillis();
+            int offset = slot * RECORD_SIZE;
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.putLong(offset + TIMESTAMP, timestamp);
+            buffer.putLong(offset + PRODUCT_ID, productId);
+            buffer.putInt(offset + DELTA, delta);
+            buffer.putInt(offset + QUANTITY, quantity);
+            buffer.putLong(offset + REQUEST_ID_HIGH, requestIdHigh);
+            buffer.putLong(offset + REQUEST_ID_LOW, requestIdLow);
+            buffer.putLong(offset + INVENTORY_ID, inventoryId);
+            buffer.putLong(offset + VERSION, version);
+            buffer.putInt(offset + TYPE, type.ordinal());
+            buffer.putInt(offset + REORDER_THRESHOLD, reorderThreshold);
+            buffer.putInt(offset + CHECKSUM, checksum(sequence, timestamp, productId, delta, quantity,
+                    requestIdHigh, requestIdLow, inventoryId, version, type.ordinal(), reorderThreshold));
+            buffer.putLong(offset + SEQUENCE, sequence);
+
+            segment.recordTimestamp(timestamp);
+            segment.count = slot + 1;
+            lastSequence = sequence;
+            flushRequested.signal();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void awaitDurable(long sequence) throws InterruptedException {
+        lock.lock();
+        try {
+            while (durableSequence < sequence && !closed) {
+                flushed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public long durableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records after {@code afterSequence} in append order, optionally restricted to a product and a time range
+     * (both ends inclusive). Segments whose timestamps fall outside the range are skipped without being read.
+     */
+    public List<JournalRecord> read(long afterSequence, Long productId, Instant from, Instant to, int limit) {
+        List<JournalRecord> records = new ArrayList<>(Math.min(limit, 1024));
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        scan(afterSequence, fromMillis, toMillis, record -> {
+            if (productId == null || productId.equals(record.productId())) {
+                records.add(record);
+            }
+            return records.size() < limit;
+        });
+        return records;
+    }
+
+    /**
+     * Feeds every record after {@code afterSequence} to the consumer, in append order.
+     */
+    public void replay(long afterSequence, Consumer<JournalRecord> consumer) {
+        scan(afterSequence, Long.MIN_VALUE, Long.MAX_VALUE, record -> {
+            consumer.accept(record);
+            return true;
+        });
+    }
+
+    /**
+     * Deletes the full segments whose records all have a sequence up to {@code sequence}, typically once a
+     * snapshot covers them. The active segment is always kept.
+     */
+    public int deleteSegmentsUpTo(long sequence) {
+        int deleted = 0;
+        lock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment == active || segment.firstSequence + segment.capacity - 1 > sequence) {
+                    break;
+                }
+                segments.remove(segment.firstSequence);
+                // Readers still scanning the segment keep working on the mapping until they drop it
+                Files.deleteIfExists(segmentPath(segment.firstSequence));
+                deleted++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+        return deleted;
+    }
+
+    private void scan(long afterSequence, long fromMillis, long toMillis, RecordVisitor visitor) {
+        Long first = segments.floorKey(afterSequence + 1);
+        Map<Long, Segment> candidates = first == null ? segments : segments.tailMap(first, true);
+        for (Segment segment : candidates.values()) {
+            int count = segment.count;
+            if (count == 0 || segment.maxTimestamp < fromMillis || segment.minTimestamp > toMillis) {
+                continue;
+            }
+            int start = (int) Math.max(0, afterSequence + 1 - segment.firstSequence);
+            for (int slot = start; slot < count; slot++) {
+                JournalRecord record = decode(segment.buffer, slot * RECORD_SIZE);
+                long timestamp = record.timestamp().toEpochMilli();
+                if (timestamp >= fromMillis && timestamp <= toMillis && !visitor.visit(record)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            Segment segment;
+            long target;
+            lock.lock();
+            try {
+                while (!closed && durableSequence == lastSequence) {
+                    flushRequested.awaitUninterruptibly();
+                }
+                if (closed && durableSequence == lastSequence) {
+                    return;
+                }
+                segment = active;
+                target = lastSequence;
+            } finally {
+                lock.unlock();
+            }
+            // Appends keep going while the segment is forced; they are picked up by the next round
+            segment.buffer.force();
+            lock.lock();
+            try {
+                durableSequence = Math.max(durableSequence, target);
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            LockSupport.parkNanos(flushIntervalNanos);
+        }
+    }
+
+    private void rotate() {
+        // Everything written so far lives in the full segment, so forcing it makes all of it durable
+        active.buffer.force();
+        durableSequence = lastSequence;
+        flushed.signalAll();
+        Segment next = openSegment(active.firstSequence + active.capacity, recordsPerSegment);
+        segments.put(next.firstSequence, next);
+        active = next;
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    long firstSequence = Long.parseLong(matcher.group(1));
+                    Segment segment = openSegment(firstSequence, (int) (Files.size(file) / RECORD_SIZE));
+                    segments.put(firstSequence, segment);
+                }
+            }
+        }
+        long expected = segments.isEmpty() ? 1 : segments.firstKey();
+        for (Segment segment : segments.values()) {
+            if (segment.firstSequence != expected) {
+                log.warn("Hueco en el journal de movimientos: se esperaba la secuencia {} y el segmento empieza en {}",
+                        expected, segment.firstSequence);
+            }
+            recoverSegment(segment);
+            expected = segment.firstSequence + segment.capacity;
+        }
+        if (segments.isEmpty()) {
+            Segment first = openSegment(1, recordsPerSegment);
+            segments.put(1L, first);
+        }
+        active = segments.lastEntry().getValue();
+        lastSequence = active.firstSequence + active.count - 1;
+        durableSequence = lastSequence;
+        log.info("Journal de movimientos en {}: {} segmentos, última secuencia {}", directory, segments.size(), lastSequence);
+    }
+
+    private static void recoverSegment(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int slot = 0;
+        while (slot < segment.capacity) {
+            int offset = slot * RECORD_SIZE;
+            long sequence = buffer.getLong(offset + SEQUENCE);
+            if (sequence != segment.firstSequence + slot) {
+                break;
+            }
+            int expected = checksum(sequence, buffer.getLong(offset + TIMESTAMP), buffer.getLong(offset + PRODUCT_ID),
+                    buffer.getInt(offset + DELTA), buffer.getInt(offset + QUANTITY), buffer.getLong(offset + REQUEST_ID_HIGH),
+                    buffer.getLong(offset + REQUEST_ID_LOW), buffer.getLong(offset + INVENTORY_ID),
+                    buffer.getLong(offset + VERSION), buffer.getInt(offset + TYPE), buffer.getInt(offset + REORDER_THRESHOLD));
+            if (buffer.getInt(offset + CHECKSUM) != expected) {
+                break;
+            }
+            segment.recordTimestamp(buffer.getLong(offset + TIMESTAMP));
+            slot++;
+        }
+        // Clear a torn record so the slot can be reused cleanly
+        if (slot < segment.capacity) {
+            buffer.putLong(slot * RECORD_SIZE + SEQUENCE, 0);
+        }
+        segment.count = slot;
+    }
+
+    private Segment openSegment(long firstSequence, int capacity) {
+        Path path = segmentPath(firstSequence);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            return new Segment(firstSequence, capacity, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el segmento " + path, e);
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve("segment-%020d.journal".formatted(firstSequence));
+    }
+
+    private static JournalRecord decode(MappedByteBuffer buffer, int offset) {
+        long requestIdHigh = buffer.getLong(offset + REQUEST_ID_HIGH);
+        long requestIdLow = buffer.getLong(offset + REQUEST_ID_LOW);
+        return new JournalRecord(
+                buffer.getLong(offset + SEQUENCE),
+                Instant.ofEpochMilli(buffer.getLong(offset + TIMESTAMP)),
+                buffer.getLong(offset + PRODUCT_ID),
+                buffer.getLong(offset + INVENTORY_ID),
+                buffer.getLong(offset + VERSION),
+                TYPES[buffer.getInt(offset + TYPE)],
+                buffer.getInt(offset + DELTA),
+                buffer.getInt(offset + QUANTITY),
+                buffer.getInt(offset + REORDER_THRESHOLD),
+                requestIdHigh == 0 && requestIdLow == 0 ? null : new UUID(requestIdHigh, requestIdLow)
+        );
+    }
+
+    private static int checksum(long sequence, long timestamp, long productId, int delta, int quantity,
+                                long requestIdHigh, long requestIdLow, long inventoryId, long version, int type,
+                                int reorderThreshold) {
+        long hash = sequence;
+        hash = mix(hash, timestamp);
+        hash = mix(hash, productId);
+        hash = mix(hash, ((long) delta << 32) | (quantity & 0xFFFFFFFFL));
+        hash = mix(hash, requestIdHigh);
+        hash = mix(hash, requestIdLow);
+        hash = mix(hash, inventoryId);
+        hash = mix(hash, version);
+        hash = mix(hash, ((long) type << 32) | (reorderThreshold & 0xFFFFFFFFL));
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static long mix(long hash, long value) {
+        hash ^= value;
+        hash *= 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            flushRequested.signalAll();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        boolean visit(JournalRecord record);
+    }
+
+    private static final class Segment {
+
+        private final long firstSequence;
+        private final int capacity;
+        private final MappedByteBuffer buffer;
+        private volatile int count;
+        private volatile long minTimestamp = Long.MAX_VALUE;
+        private volatile long maxTimestamp = Long.MIN_VALUE;
+
+        Segment(long firstSequence, int capacity, MappedByteBuffer buffer) {
+            this.firstSequence = firstSequence;
+            this.capacity = capacity;
+            this.buffer = buffer;
+        }
+
+        void recordTimestamp(long timestamp) {
+            if (timestamp < minTimestamp) {
+                minTimestamp = timestamp;
+            }
+            if (timestamp > maxTimestamp) {
+                maxTimestamp = timestamp;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.vimofama.inventoryservice.lowstock;
+
+import com.vimofama.inventoryservice.dto.LowStockItemDTO;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server-sent event subscriptions for low-stock crossings. Events are written by a single sender thread, so a
+ * slow subscriber delays other subscribers but never the inventory write that caused the event.
+ */
+@Component
+public class LowStockAlerts implements DisposableBean {
+
+    public enum Alert {
+        LOW_STOCK("low-stock"),
+        RESTOCKED("restocked");
+
+        private final String eventName;
+
+        Alert(String eventName) {
+            this.eventName = eventName;
+        }
+
+        public String eventName() {
+            return eventName;
+        }
+    }
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("low-stock-alerts").factory());
+
+    public SseEmitter subscribe() {
+        // No timeout: the subscription lasts until the client disconnects
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    public int subscribers() {
+        return emitters.size();
+    }
+
+    void publish(Alert alert, LowStockItemDTO item) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        sender.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name(alert.eventName()).data(item));
+                } catch (IOException | IllegalStateException e) {
+                    // The container reports the broken connection through onError; just stop sending to it
+                    emitters.remove(emitter);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        sender.shutdownNow();
+        for (SseEmitter emitter : emitters) {
+            emitter.complete();
+        }
+    }
+}
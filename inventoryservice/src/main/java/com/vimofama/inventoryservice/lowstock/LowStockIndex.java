@@ -0,0 +1,100 @@
+package com.vimofama.inventoryservice.lowstock;
+
+import com.vimofama.inventoryservice.dto.LowStockItemDTO;
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import com.vimofama.inventoryservice.event.RowVersion;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Products whose quantity is below their reorder threshold, ordered by product id and kept up to date from the
+ * committed {@link InventoryChangedEvent}s instead of scanning the table. A threshold of zero never triggers.
+ * <p>
+ * Commits on different threads can deliver their events out of order, so the last applied row id and version
+ * are remembered for every product seen and an older event is ignored. Crossing the threshold in either
+ * direction is pushed to {@link LowStockAlerts}.
+ */
+@Component
+public class LowStockIndex {
+
+    private static final String SELECT_LOW_SQL =
+            "select id, product_id, quantity, reorder_threshold, version from inventory where quantity < reorder_threshold";
+
+    private final ConcurrentMap<Long, Level> levels = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, LowStockItemDTO> low = new ConcurrentSkipListMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final LowStockAlerts alerts;
+
+    public LowStockIndex(JdbcTemplate jdbcTemplate, LowStockAlerts alerts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.alerts = alerts;
+    }
+
+    /**
+     * Loads the rows that are already low, once the snapshot restore has filled the table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        jdbcTemplate.query(SELECT_LOW_SQL, rs -> {
+            apply(rs.getLong("product_id"), rs.getLong("id"), rs.getLong("version"), rs.getInt("quantity"),
+                    rs.getInt("reorder_threshold"), false);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        LowStockAlerts.Alert alert = apply(event.productId(), event.inventoryId(), event.version(), event.quantity(),
+                event.reorderThreshold(), event.type() == MovementType.DELETE);
+        if (alert != null) {
+            alerts.publish(alert, new LowStockItemDTO(event.productId(), event.quantity(), event.reorderThreshold(),
+                    event.version()));
+        }
+    }
+
+    public List<LowStockItemDTO> findAll() {
+        return new ArrayList<>(low.values());
+    }
+
+    public int size() {
+        return low.size();
+    }
+
+    /**
+     * @return the threshold crossing caused by this change, or {@code null} if the product stayed on the same side
+     */
+    private LowStockAlerts.Alert apply(long productId, long inventoryId, long version, int quantity,
+                                       int reorderThreshold, boolean deleted) {
+        LowStockAlerts.Alert[] alert = new LowStockAlerts.Alert[1];
+        levels.compute(productId, (id, current) -> {
+            if (current != null && !RowVersion.isNewer(inventoryId, version, current.inventoryId(), current.version())) {
+                return current;
+            }
+            boolean wasLow = current != null && current.low();
+            boolean isLow = !deleted && quantity < reorderThreshold;
+            if (isLow) {
+                low.put(productId, new LowStockItemDTO(productId, quantity, reorderThreshold, version));
+            } else if (wasLow) {
+                low.remove(productId);
+            }
+            if (isLow != wasLow) {
+                alert[0] = isLow ? LowStockAlerts.Alert.LOW_STOCK : LowStockAlerts.Alert.RESTOCKED;
+            }
+            // Deleted products keep their entry as a tombstone so late events for the old row stay ignored
+            return new Level(inventoryId, version, isLow);
+        });
+        return alert[0];
+    }
+
+    private record Level(long inventoryId, long version, boolean low) {
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "ux_inventory_product_id", columnList = "product_id", unique = true))
 public class Inventory {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -13,8 +14,12 @@ public class Inventory {
     @Column(name = "product_id")
     private Long productId;
     private int quantity;
+    @Column(name = "reorder_threshold")
+    private int reorderThreshold;
     @Column(name = "last_update")
     private LocalDateTime lastUpdate;
+    @Version
+    private Long version;
 
     public Inventory() {
     }
@@ -25,6 +30,11 @@ public class Inventory {
         this.lastUpdate = lastUpdate;
     }
 
+    public Inventory(Long productId, int quantity, int reorderThreshold, LocalDateTime lastUpdate) {
+        this(productId, quantity, lastUpdate);
+        this.reorderThreshold = reorderThreshold;
+    }
+
     public Long getId() {
         return id;
     }
@@ -49,6 +59,14 @@ public class Inventory {
         this.quantity = quantity;
     }
 
+    public int getReorderThreshold() {
+        return reorderThreshold;
+    }
+
+    public void setReorderThreshold(int reorderThreshold) {
+        this.reorderThreshold = reorderThreshold;
+    }
+
     public LocalDateTime getLastUpdate() {
         return lastUpdate;
     }
@@ -57,13 +75,23 @@ public class Inventory {
         this.lastUpdate = lastUpdate;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Inventory{" +
                 "id=" + id +
                 ", productId=" + productId +
                 ", quantity=" + quantity +
+                ", reorderThreshold=" + reorderThreshold +
                 ", lastUpdate=" + lastUpdate +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,8 @@
+package com.vimofama.inventoryservice.model;
+
+public enum ReservationStatus {
+    ACTIVE,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,256 @@
+package com.vimofama.inventoryservice.readmodel;
+
+import com.vimofama.inventoryservice.dto.ReadModelStatusDTO;
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import com.vimofama.inventoryservice.model.Inventory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory copy of the inventory table for reads, kept up to date from the committed
+ * {@link InventoryChangedEvent}s. Readers get the current {@link InventoryTable} from a volatile field and never
+ * lock or wait.
+ * <p>
+ * Writers queue their change and then try to become the publisher: whoever gets the lock drains the queue, builds
+ * the next table with every change drained and swaps it in, so a burst of commits turns into one new table. A
+ * writer that misses the lock leaves its change to the publisher, which checks the queue again after releasing
+ * the lock. Until then the change is pending, and the age of the oldest pending change is how stale readers are.
+ * <p>
+ * Deleted products leave a tombstone so late changes of the old row are ignored. Every change holds a ticket from
+ * the moment it is published inside its transaction until that transaction completes, and a tombstone is purged
+ * once every ticket taken before it was applied is returned: by then every change older than it has been queued,
+ * and the publisher drains the queue after checking the tickets.
+ * <p>
+ * The table is loaded once the application is ready, which is after the web server already takes requests, so
+ * reads only switch over to the model once that first load is published and go to the database until then.
+ */
+@Component
+public class InventoryReadModel implements MeterBinder {
+
+    private static final String SELECT_ROWS_SQL =
+            "select id, product_id, quantity, version, last_update, reorder_threshold from inventory";
+
+    private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final ReentrantLock ticketLock = new ReentrantLock();
+    private long lastTicket;
+    private final ConcurrentSkipListSet<Long> openTickets = new ConcurrentSkipListSet<>();
+    // Guarded by publishLock, in the order the tombstones were applied
+    private final ArrayDeque<Tombstone> tombstones = new ArrayDeque<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadModelProperties properties;
+    private volatile Snapshot snapshot = new Snapshot(InventoryTable.EMPTY, 0, Instant.now());
+    private volatile boolean loaded;
+
+    public InventoryReadModel(JdbcTemplate jdbcTemplate, ReadModelProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Loads every row once the snapshot restore has filled the table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // The rows read here may be older than a delete applied meanwhile
+        long ticket = takeTicket();
+        try {
+            jdbcTemplate.query(SELECT_ROWS_SQL, rs -> {
+                Timestamp lastUpdate = rs.getTimestamp("last_update");
+                enqueue(new InventoryTable.Change(rs.getLong("product_id"), rs.getLong("id"), rs.getLong("version"),
+                        rs.getInt("quantity"), rs.getInt("reorder_threshold"), false,
+                        lastUpdate == null ? 0 : lastUpdate.getTime()));
+            });
+        } finally {
+            openTickets.remove(ticket);
+        }
+        publish();
+        loaded = true;
+    }
+
+    /**
+     * Takes a ticket for a change published inside a transaction and returns it once the transaction completes,
+     * after the change has been queued on commit.
+     */
+    @EventListener
+    public void onInventoryChanging(InventoryChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        long ticket = takeTicket();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                openTickets.remove(ticket);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        enqueue(new InventoryTable.Change(event.productId(), event.inventoryId(), event.version(), event.quantity(),
+                event.reorderThreshold(), event.type() == MovementType.DELETE, event.lastUpdate()));
+        publish();
+    }
+
+    /**
+     * Whether reads should come from here: enabled by {@code inventory.read-model.serve-reads} and loaded.
+     */
+    public boolean servesReads() {
+        return properties.serveReads() && loaded;
+    }
+
+    public Inventory get(Long productId) {
+        return snapshot.table().get(productId);
+    }
+
+    /**
+     * Every row, ordered by row id like the repository returns them.
+     */
+    public List<Inventory> findAll() {
+        InventoryTable table = snapshot.table();
+        List<Inventory> items = new ArrayList<>(table.size());
+        table.forEach(items::add);
+        items.sort(Comparator.comparing(Inventory::getId));
+        return items;
+    }
+
+    public ReadModelStatusDTO status() {
+        Snapshot current = snapshot;
+        return new ReadModelStatusDTO(servesReads(), current.table().size(), current.generation(),
+                current.publishedAt(), pendingCount.get(), stalenessNanos() / 1e6);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.read.model.items", this, model -> model.snapshot.table().size())
+                .description("Productos en el modelo de lectura")
+                .register(registry);
+        TimeGauge.builder("inventory.read.model.staleness", this, TimeUnit.NANOSECONDS, InventoryReadModel::stalenessNanos)
+                .description("Antigüedad del cambio más viejo aún no visible para las lecturas")
+                .register(registry);
+    }
+
+    private long stalenessNanos() {
+        Pending oldest = pending.peek();
+        return oldest == null ? 0 : Math.max(0, System.nanoTime() - oldest.queuedAt());
+    }
+
+    private void enqueue(InventoryTable.Change change) {
+        pending.add(new Pending(change, System.nanoTime()));
+        pendingCount.incrementAndGet();
+    }
+
+    private void publish() {
+        while (!pending.isEmpty() && publishLock.tryLock()) {
+            try {
+                // Checked before draining: a change whose ticket is already returned is in the queue by now
+                long oldestOpen = oldestOpenTicket();
+                List<InventoryTable.Change> changes = new ArrayList<>();
+                Pending next;
+                while ((next = pending.poll()) != null) {
+                    changes.add(next.change());
+                }
+                if (!changes.isEmpty()) {
+                    Snapshot current = snapshot;
+                    InventoryTable table = current.table().apply(changes);
+                    for (InventoryTable.Change change : changes) {
+                        if (change.deleted()) {
+                            tombstones.add(new Tombstone(change, lastTicket()));
+                        }
+                    }
+                    List<InventoryTable.Change> purged = new ArrayList<>();
+                    while (!tombstones.isEmpty() && tombstones.peek().lastTicketBefore() < oldestOpen) {
+                        purged.add(tombstones.poll().change());
+                    }
+                    if (!purged.isEmpty()) {
+                        table = table.purge(purged);
+                    }
+                    snapshot = new Snapshot(table, current.generation() + 1, Instant.now());
+                    pendingCount.addAndGet(-changes.size());
+                }
+            } finally {
+                publishLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Tombstones applied and not purged yet.
+     */
+    int tombstones() {
+        publishLock.lock();
+        try {
+            return tombstones.size();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private long takeTicket() {
+        ticketLock.lock();
+        try {
+            openTickets.add(++lastTicket);
+            return lastTicket;
+        } finally {
+            ticketLock.unlock();
+        }
+    }
+
+    private long lastTicket() {
+        ticketLock.lock();
+        try {
+            return lastTicket;
+        } finally {
+            ticketLock.unlock();
+        }
+    }
+
+    /**
+     * The oldest ticket not returned yet, or the next one to be taken if all are.
+     */
+    private long oldestOpenTicket() {
+        ticketLock.lock();
+        try {
+            Long oldest = openTickets.ceiling(Long.MIN_VALUE);
+            return oldest == null ? lastTicket + 1 : oldest;
+        } finally {
+            ticketLock.unlock();
+        }
+    }
+
+    private record Pending(InventoryTable.Change change, long queuedAt) {
+    }
+
+    /**
+     * @param lastTicketBefore last ticket taken when the tombstone was applied
+     */
+    private record Tombstone(InventoryTable.Change change, long lastTicketBefore) {
+    }
+
+    private record Snapshot(InventoryTable table, long generation, Instant publishedAt) {
+    }
+}
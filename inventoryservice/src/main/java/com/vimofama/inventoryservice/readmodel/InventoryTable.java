@@ -0,0 +1,230 @@
+package com.vimofama.inventoryservice.readmodel;
+
+import com.vimofama.inventoryservice.event.RowVersion;
+import com.vimofama.inventoryservice.model.Inventory;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Immutable map from product id to the inventory row, kept in primitive arrays instead of boxed keys and
+ * entities.
+ * <p>
+ * Products are spread over {@value #SEGMENTS} segments, each an open-addressing table with linear probing where
+ * every entry takes {@value #STRIDE} consecutive longs: product id, row id, version, last update (epoch millis)
+ * and quantity and reorder threshold packed into one. {@link #apply} copies only the segments a batch touches,
+ * so a new version of the table costs the size of those segments instead of the whole map, and the old version
+ * stays valid for whoever is still reading it.
+ * <p>
+ * Deleted products stay as tombstones with a negated row id, so late changes for the old row are still
+ * recognised as older and ignored, until {@link #purge} drops them once no such change can arrive any more.
+ */
+final class InventoryTable {
+
+    private static final int SEGMENTS = 256;
+    private static final int STRIDE = 5;
+    private static final int PRODUCT_ID = 0;
+    private static final int INVENTORY_ID = 1;
+    private static final int VERSION = 2;
+    private static final int LAST_UPDATE = 3;
+    private static final int QUANTITY_AND_THRESHOLD = 4;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long FREE = Long.MIN_VALUE;
+    /**
+     * Row id of a purged tombstone until its segment is rehashed; real row ids start at one.
+     */
+    private static final long PURGED = 0;
+
+    static final InventoryTable EMPTY = new InventoryTable(new long[SEGMENTS][], new int[SEGMENTS], 0);
+
+    private final long[][] segments;
+    private final int[] used;
+    private final int size;
+
+    private InventoryTable(long[][] segments, int[] used, int size) {
+        this.segments = segments;
+        this.used = used;
+        this.size = size;
+    }
+
+    /**
+     * A change to apply; {@code timestamp} is the last update in epoch millis.
+     */
+    record Change(long productId, long inventoryId, long version, int quantity, int reorderThreshold,
+                  boolean deleted, long timestamp) {
+    }
+
+    /**
+     * Products with a live row.
+     */
+    int size() {
+        return size;
+    }
+
+    Inventory get(long productId) {
+        long[] slots = segments[segmentOf(productId)];
+        if (slots == null) {
+            return null;
+        }
+        int slot = find(slots, productId);
+        return slots[slot + PRODUCT_ID] == FREE || slots[slot + INVENTORY_ID] < 0 ? null : toInventory(slots, slot);
+    }
+
+    void forEach(Consumer<Inventory> consumer) {
+        for (long[] slots : segments) {
+            if (slots == null) {
+                continue;
+            }
+            for (int slot = 0; slot < slots.length; slot += STRIDE) {
+                if (slots[slot + PRODUCT_ID] != FREE && slots[slot + INVENTORY_ID] > 0) {
+                    consumer.accept(toInventory(slots, slot));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a new table with the changes applied. A change older than the row already held for its product,
+     * by row id and then version, is skipped.
+     */
+    InventoryTable apply(List<Change> changes) {
+        long[][] newSegments = segments.clone();
+        int[] newUsed = used.clone();
+        boolean[] copied = new boolean[SEGMENTS];
+        int newSize = size;
+        for (Change change : changes) {
+            int segment = segmentOf(change.productId());
+            if (!copied[segment]) {
+                long[] current = newSegments[segment];
+                newSegments[segment] = current == null ? emptySlots(INITIAL_CAPACITY) : current.clone();
+                copied[segment] = true;
+            }
+            long[] slots = newSegments[segment];
+            if ((newUsed[segment] + 1) * 4 > capacity(slots) * 3) {
+                slots = grow(slots);
+                newSegments[segment] = slots;
+            }
+            int slot = find(slots, change.productId());
+            boolean present = slots[slot + PRODUCT_ID] != FREE;
+            boolean wasLive = present && slots[slot + INVENTORY_ID] > 0;
+            if (present && !isOlder(slots, slot, change.inventoryId(), change.version())) {
+                continue;
+            }
+            if (!present) {
+                newUsed[segment]++;
+            }
+            slots[slot + PRODUCT_ID] = change.productId();
+            slots[slot + INVENTORY_ID] = change.deleted() ? -change.inventoryId() : change.inventoryId();
+            slots[slot + VERSION] = change.version();
+            slots[slot + LAST_UPDATE] = change.timestamp();
+            slots[slot + QUANTITY_AND_THRESHOLD] = ((long) change.quantity() << 32) | (change.reorderThreshold() & 0xFFFFFFFFL);
+            newSize += (change.deleted() ? 0 : 1) - (wasLive ? 1 : 0);
+        }
+        return new InventoryTable(newSegments, newUsed, newSize);
+    }
+
+    /**
+     * Returns a new table without the given tombstones. A tombstone already replaced by a newer row, or by a newer
+     * tombstone, is kept as it is.
+     */
+    InventoryTable purge(List<Change> tombstones) {
+        long[][] newSegments = segments.clone();
+        int[] newUsed = used.clone();
+        boolean[] touched = new boolean[SEGMENTS];
+        for (Change tombstone : tombstones) {
+            int segment = segmentOf(tombstone.productId());
+            long[] slots = newSegments[segment];
+            if (slots == null) {
+                continue;
+            }
+            int slot = find(slots, tombstone.productId());
+            if (slots[slot + PRODUCT_ID] == FREE || slots[slot + INVENTORY_ID] != -tombstone.inventoryId()
+                    || slots[slot + VERSION] != tombstone.version()) {
+                continue;
+            }
+            if (!touched[segment]) {
+                slots = slots.clone();
+                newSegments[segment] = slots;
+                touched[segment] = true;
+            }
+            // Only marked here, since freeing the slot would cut the probe chains of later lookups through it
+            slots[slot + INVENTORY_ID] = PURGED;
+            newUsed[segment]--;
+        }
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            if (touched[segment]) {
+                newSegments[segment] = copyInto(newSegments[segment], emptySlots(capacity(newSegments[segment])));
+            }
+        }
+        return new InventoryTable(newSegments, newUsed, size);
+    }
+
+    private static boolean isOlder(long[] slots, int slot, long inventoryId, long version) {
+        return RowVersion.isNewer(inventoryId, version, Math.abs(slots[slot + INVENTORY_ID]), slots[slot + VERSION]);
+    }
+
+    private static Inventory toInventory(long[] slots, int slot) {
+        long quantityAndThreshold = slots[slot + QUANTITY_AND_THRESHOLD];
+        LocalDateTime lastUpdate = LocalDateTime.ofInstant(Instant.ofEpochMilli(slots[slot + LAST_UPDATE]),
+                ZoneId.systemDefault());
+        Inventory inventory = new Inventory(slots[slot + PRODUCT_ID], (int) (quantityAndThreshold >> 32),
+                (int) quantityAndThreshold, lastUpdate);
+        inventory.setId(slots[slot + INVENTORY_ID]);
+        inventory.setVersion(slots[slot + VERSION]);
+        return inventory;
+    }
+
+    /**
+     * Slot of {@code productId}, or of the free slot where it would go.
+     */
+    private static int find(long[] slots, long productId) {
+        int mask = capacity(slots) - 1;
+        int index = (int) mix(productId) & mask;
+        while (true) {
+            int slot = index * STRIDE;
+            long key = slots[slot + PRODUCT_ID];
+            if (key == productId || key == FREE) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private static long[] grow(long[] slots) {
+        return copyInto(slots, emptySlots(capacity(slots) * 2));
+    }
+
+    private static long[] copyInto(long[] slots, long[] target) {
+        for (int slot = 0; slot < slots.length; slot += STRIDE) {
+            if (slots[slot + PRODUCT_ID] != FREE && slots[slot + INVENTORY_ID] != PURGED) {
+                System.arraycopy(slots, slot, target, find(target, slots[slot + PRODUCT_ID]), STRIDE);
+            }
+        }
+        return target;
+    }
+
+    private static long[] emptySlots(int capacity) {
+        long[] slots = new long[capacity * STRIDE];
+        for (int slot = 0; slot < slots.length; slot += STRIDE) {
+            slots[slot + PRODUCT_ID] = FREE;
+        }
+        return slots;
+    }
+
+    private static int capacity(long[] slots) {
+        return slots.length / STRIDE;
+    }
+
+    private static int segmentOf(long productId) {
+        return (int) (mix(productId) >>> 56) & (SEGMENTS - 1);
+    }
+
+    private static long mix(long key) {
+        // Product ids are sequential, so they are scrambled before picking a segment and a slot
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
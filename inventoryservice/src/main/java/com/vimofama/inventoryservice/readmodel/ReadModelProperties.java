@@ -0,0 +1,14 @@
+package com.vimofama.inventoryservice.readmodel;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param serveReads answer {@code GET /api/inventory} and {@code GET /api/inventory/{id}} from the
+ *                   {@link InventoryReadModel} instead of the repository; the model is kept up to date either way
+ */
+@ConfigurationProperties(prefix = "inventory.read-model")
+public record ReadModelProperties(
+        @DefaultValue("true") boolean serveReads
+) {
+}
@@ -0,0 +1,245 @@
+package com.vimofama.inventoryservice.replica;
+
+import com.vimofama.inventoryservice.client.ProductServiceClient;
+import com.vimofama.inventoryservice.dto.ProductChangeDTO;
+import com.vimofama.inventoryservice.dto.ProductChangePageDTO;
+import com.vimofama.inventoryservice.dto.ProductReplicaStatusDTO;
+import com.vimofama.inventoryservice.dto.ProductSummaryDTO;
+import com.vimofama.inventoryservice.event.ProductChangedEvent;
+import com.vimofama.inventoryservice.exception.ProductServiceRejectedException;
+import com.vimofama.inventoryservice.exception.ProductServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Local read-only copy of the product name, SKU and price, kept up to date from the product service change feed
+ * so inventory reads can show them without calling product service.
+ * <p>
+ * A background poll asks for every change after the last applied sequence, page by page, until it reaches the
+ * head of the feed. The replica is written to disk periodically and on shutdown together with the sequence it
+ * reflects; after a restart it loads that file and catches up from there instead of reading the whole feed. If
+ * the feed head is ever behind the applied sequence, product service lost its history and the replica is
+ * rebuilt from the start.
+ * <p>
+ * File layout: magic, format, last sequence, product count, then per product its id, name, SKU and price, each
+ * of the last three preceded by a presence flag.
+ */
+@Component
+public class ProductReplica implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReplica.class);
+
+    private static final int MAGIC = 0x50524550;
+    private static final int FORMAT = 1;
+    private static final String FILE_NAME = "products.bin";
+
+    private final ConcurrentMap<Long, ProductSummaryDTO> products = new ConcurrentHashMap<>();
+    private final ProductServiceClient productServiceClient;
+    private final ProductReplicaProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private volatile long lastSequence;
+    private volatile long headSequence;
+    private volatile Instant lastSyncAt;
+    private long persistedSequence = -1;
+
+    public ProductReplica(ProductServiceClient productServiceClient, ProductReplicaProperties properties,
+                          ApplicationEventPublisher eventPublisher) throws IOException {
+        this.productServiceClient = productServiceClient;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        Files.createDirectories(properties.directory());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    public ProductSummaryDTO get(Long productId) {
+        return products.get(productId);
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public ProductReplicaStatusDTO status() {
+        long last = lastSequence;
+        long head = headSequence;
+        return new ProductReplicaStatusDTO(products.size(), last, head, Math.max(0, head - last), lastSyncAt);
+    }
+
+    @Scheduled(initialDelayString = "${inventory.product-replica.poll-interval:1s}",
+            fixedDelayString = "${inventory.product-replica.poll-interval:1s}")
+    public void scheduledPoll() {
+        try {
+            poll();
+        } catch (ProductServiceUnavailableException | ProductServiceRejectedException e) {
+            log.warn("No se pudo sincronizar la réplica de productos desde la secuencia {}: {}", lastSequence, e.getMessage());
+        }
+    }
+
+    /**
+     * Applies every change published after the last applied sequence.
+     *
+     * @return number of changes applied
+     */
+    public synchronized int poll() {
+        int applied = 0;
+        while (true) {
+            ProductChangePageDTO page = productServiceClient.productChanges(lastSequence, properties.pageSize());
+            if (page == null) {
+                break;
+            }
+            if (page.headSequence() < lastSequence) {
+                log.warn("El feed de productos está en la secuencia {} y la réplica en la {}, se reconstruye desde cero",
+                        page.headSequence(), lastSequence);
+                clear();
+                continue;
+            }
+            for (ProductChangeDTO change : page.changes()) {
+                apply(change);
+            }
+            applied += page.changes().size();
+            lastSequence = page.lastSequence();
+            headSequence = page.headSequence();
+            if (page.changes().isEmpty() || lastSequence >= headSequence) {
+                break;
+            }
+        }
+        lastSyncAt = Instant.now();
+        return applied;
+    }
+
+    /**
+     * Applies one change of the feed. Changes must come in sequence order.
+     */
+    public void apply(ProductChangeDTO change) {
+        if (change.isDelete()) {
+            products.remove(change.productId());
+        } else {
+            products.put(change.productId(),
+                    new ProductSummaryDTO(change.productId(), change.name(), change.sku(), change.price()));
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(change.productId(),
+                change.isDelete() ? null : change.price(), change.isDelete()));
+    }
+
+    @Scheduled(initialDelayString = "${inventory.product-replica.persist-interval:1m}",
+            fixedDelayString = "${inventory.product-replica.persist-interval:1m}")
+    public void scheduledPersist() {
+        try {
+            persist();
+        } catch (UncheckedIOException e) {
+            log.error("No se pudo guardar la réplica de productos", e);
+        }
+    }
+
+    /**
+     * Writes the replica to disk unless nothing changed since the last write. Holds the poll lock, so the file
+     * always matches the sequence stored with it.
+     */
+    public synchronized void persist() {
+        if (lastSequence == persistedSequence) {
+            return;
+        }
+        Path target = properties.directory().resolve(FILE_NAME);
+        Path temp = properties.directory().resolve(FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(lastSequence);
+            out.writeInt(products.size());
+            for (ProductSummaryDTO product : products.values()) {
+                out.writeLong(product.id());
+                writeNullable(out, product.name());
+                writeNullable(out, product.sku());
+                writeNullable(out, product.price() == null ? null : product.price().toPlainString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la réplica de productos " + temp, e);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo publicar la réplica de productos " + target, e);
+        }
+        persistedSequence = lastSequence;
+    }
+
+    @Override
+    public void destroy() {
+        persist();
+    }
+
+    private synchronized void load() {
+        Path file = properties.directory().resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int magic = in.readInt();
+            int format = in.readInt();
+            if (magic != MAGIC || format != FORMAT) {
+                log.warn("Formato de réplica de productos desconocido en {}, se descarta", file);
+                return;
+            }
+            long sequence = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                String name = readNullable(in);
+                String sku = readNullable(in);
+                String price = readNullable(in);
+                products.put(id, new ProductSummaryDTO(id, name, sku, price == null ? null : new BigDecimal(price)));
+            }
+            lastSequence = sequence;
+            persistedSequence = sequence;
+            log.info("Réplica de productos cargada: {} productos hasta la secuencia {}", count, sequence);
+        } catch (IOException e) {
+            products.clear();
+            log.warn("No se pudo leer la réplica de productos {}, se reconstruye desde el feed", file, e);
+        }
+    }
+
+    private void clear() {
+        Set<Long> ids = Set.copyOf(products.keySet());
+        products.clear();
+        lastSequence = 0;
+        headSequence = 0;
+        for (Long id : ids) {
+            eventPublisher.publishEvent(new ProductChangedEvent(id, null, true));
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.vimofama.inventoryservice.replica;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "inventory.product-replica")
+public record ProductReplicaProperties(
+        @DefaultValue("data/replica") Path directory,
+        @DefaultValue("1s") Duration pollInterval,
+        @DefaultValue("500") int pageSize,
+        @DefaultValue("1m") Duration persistInterval
+) {
+}
@@ -1,12 +1,52 @@
 package com.vimofama.inventoryservice.repository;
 
 import com.vimofama.inventoryservice.model.Inventory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory,Long> {
     Optional<Inventory> findByProductId(Long productId);
+
+    List<Inventory> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select i from Inventory i order by i.id")
+    Stream<Inventory> streamAllOrderById();
+
+    boolean existsByProductId(Long productId);
+
+    @Query("select i.productId from Inventory i where i.productId in :productIds")
+    Set<Long> findExistingProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Inventory i set i.quantity = i.quantity + :delta, i.lastUpdate = :now, i.version = i.version + 1 " +
+            "where i.productId = :productId and i.quantity <= :limit")
+    int addQuantityUpTo(@Param("productId") Long productId, @Param("delta") int delta, @Param("limit") int limit,
+                        @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Inventory i set i.quantity = i.quantity - :quantity, i.lastUpdate = :now, i.version = i.version + 1 " +
+            "where i.productId = :productId and i.quantity >= :quantity")
+    int subtractQuantityIfAvailable(@Param("productId") Long productId, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Inventory i set i.reorderThreshold = :reorderThreshold, i.lastUpdate = :now, i.version = i.version + 1 " +
+            "where i.productId = :productId")
+    int updateReorderThreshold(@Param("productId") Long productId, @Param("reorderThreshold") int reorderThreshold,
+                               @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,23 @@
+package com.vimofama.inventoryservice.repository;
+
+import com.vimofama.inventoryservice.model.Reservation;
+import com.vimofama.inventoryservice.model.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    List<Reservation> findByStatus(ReservationStatus status);
+
+    boolean existsByProductIdAndStatus(Long productId, ReservationStatus status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Reservation r set r.status = :to where r.id = :id and r.status = :from")
+    int transition(@Param("id") Long id, @Param("from") ReservationStatus from, @Param("to") ReservationStatus to);
+}
@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.reservation;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "inventory.reservation")
+public record ReservationProperties(
+        @DefaultValue("15m") Duration defaultTtl,
+        @DefaultValue("2h") Duration maxTtl,
+        @DefaultValue("100ms") Duration tick,
+        @DefaultValue("1024") int wheelSize
+) {
+}
@@ -0,0 +1,161 @@
+package com.vimofama.inventoryservice.reservation;
+
+import com.vimofama.inventoryservice.dto.AvailabilityDTO;
+import com.vimofama.inventoryservice.event.RowVersion;
+import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.repository.InventoryRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-product on-hand and reserved counters, so availability checks never query the database.
+ * <p>
+ * On-hand quantities are loaded lazily and then pushed by every committed inventory write together with the
+ * row version; an update that is not newer than the one already applied, by {@link RowVersion}, is ignored, so a
+ * slow reader can never roll a counter back. Reserved amounts live only here and in the reservation table, so
+ * when a product's row goes away its counter is unloaded but keeps what is still reserved until it is released.
+ */
+@Component
+public class StockCounters {
+
+    public enum Outcome {
+        RESERVED,
+        INSUFFICIENT,
+        NOT_FOUND
+    }
+
+    private final ConcurrentMap<Long, ProductStock> stocks = new ConcurrentHashMap<>();
+    private final InventoryRepository inventoryRepository;
+
+    public StockCounters(InventoryRepository inventoryRepository) {
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    public Outcome tryReserve(Long productId, int quantity) {
+        return tryReserve(productId, quantity, 0);
+    }
+
+    /**
+     * @param credit stock added by uncommitted writes of the caller's own transaction, usable on top of the
+     *               on-hand quantity
+     */
+    public Outcome tryReserve(Long productId, int quantity, long credit) {
+        ProductStock stock = loaded(productId);
+        if (stock != null && stock.tryReserve(quantity, credit)) {
+            return Outcome.RESERVED;
+        }
+        // Counters can lag behind writes that bypassed this service, so a rejection is confirmed against the database
+        stock = reload(productId);
+        if (stock == null) {
+            return Outcome.NOT_FOUND;
+        }
+        return stock.tryReserve(quantity, credit) ? Outcome.RESERVED : Outcome.INSUFFICIENT;
+    }
+
+    public void release(Long productId, int quantity) {
+        stocks.computeIfPresent(productId, (id, stock) -> stock.release(quantity) ? stock : null);
+    }
+
+    public void addReserved(Long productId, int quantity) {
+        stocks.computeIfAbsent(productId, id -> new ProductStock()).addReserved(quantity);
+    }
+
+    public void update(Inventory inventory) {
+        update(inventory.getProductId(), inventory.getId(), inventory.getQuantity(), inventory.getVersion());
+    }
+
+    public void update(Long productId, Long inventoryId, int quantity, Long version) {
+        stocks.computeIfAbsent(productId, id -> new ProductStock())
+                .update(inventoryId, quantity, version == null ? 0 : version);
+    }
+
+    public void remove(Long productId) {
+        stocks.computeIfPresent(productId, (id, stock) -> stock.unload() ? stock : null);
+    }
+
+    public void refresh(Long productId) {
+        reload(productId);
+    }
+
+    public AvailabilityDTO availability(Long productId) {
+        ProductStock stock = loaded(productId);
+        return stock == null ? null : stock.snapshot(productId);
+    }
+
+    private ProductStock reload(Long productId) {
+        Optional<Inventory> inventory = inventoryRepository.findByProductId(productId);
+        if (inventory.isEmpty()) {
+            remove(productId);
+            return null;
+        }
+        update(inventory.get());
+        return stocks.get(productId);
+    }
+
+    private ProductStock loaded(Long productId) {
+        ProductStock stock = stocks.get(productId);
+        if (stock != null && stock.isLoaded()) {
+            return stock;
+        }
+        return reload(productId);
+    }
+
+    private static final class ProductStock {
+
+        private Long inventoryId;
+        private long quantity;
+        private long reserved;
+        private long version = -1;
+
+        synchronized boolean isLoaded() {
+            return inventoryId != null;
+        }
+
+        synchronized boolean tryReserve(int amount, long credit) {
+            if (quantity + credit - reserved < amount) {
+                return false;
+            }
+            reserved += amount;
+            return true;
+        }
+
+        /**
+         * @return whether the counter is still needed
+         */
+        synchronized boolean release(int amount) {
+            reserved = Math.max(0, reserved - amount);
+            return inventoryId != null || reserved > 0;
+        }
+
+        /**
+         * Forgets the on-hand quantity of a row that no longer exists.
+         *
+         * @return whether the counter is still needed
+         */
+        synchronized boolean unload() {
+            inventoryId = null;
+            quantity = 0;
+            version = -1;
+            return reserved > 0;
+        }
+
+        synchronized void addReserved(int amount) {
+            reserved += amount;
+        }
+
+        synchronized void update(Long newInventoryId, int newQuantity, long newVersion) {
+            if (inventoryId == null || RowVersion.isNewer(newInventoryId, newVersion, inventoryId, version)) {
+                inventoryId = newInventoryId;
+                quantity = newQuantity;
+                version = newVersion;
+            }
+        }
+
+        synchronized AvailabilityDTO snapshot(Long productId) {
+            return new AvailabilityDTO(productId, quantity, reserved, quantity - reserved);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.vimofama.inventoryservice.reservation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel: keys are dropped into the bucket of their deadline tick and a single thread visits one
+ * bucket per tick, firing the keys that are due and leaving the ones that belong to a later revolution.
+ * Scheduling and cancelling are O(1) no matter how many keys are pending.
+ */
+public class TimerWheel<K> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimerWheel.class);
+
+    private final long tickMillis;
+    private final List<Set<K>> buckets;
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private final Consumer<K> onExpire;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService ticker;
+    private long processedTick;
+
+    public TimerWheel(Duration tick, int wheelSize, Consumer<K> onExpire) {
+        this(tick, wheelSize, onExpire, System::currentTimeMillis, true);
+    }
+
+    TimerWheel(Duration tick, int wheelSize, Consumer<K> onExpire, LongSupplier clock, boolean startTicker) {
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashSet<>());
+        }
+        this.onExpire = onExpire;
+        this.clock = clock;
+        this.processedTick = clock.getAsLong() / tickMillis;
+        if (startTicker) {
+            this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reservation-timer-wheel");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.ticker = null;
+        }
+    }
+
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Deadlines already in the past go into the next bucket to be visited
+        long tick = Math.max(tickOf(deadlineMillis), processedTick + 1);
+        deadlines.put(key, deadlineMillis);
+        bucket(tick).add(key);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Long deadline = deadlines.remove(key);
+        if (deadline == null) {
+            return false;
+        }
+        // The key sits either in its deadline bucket or, if that was already visited, in the next one
+        if (!bucket(tickOf(deadline)).remove(key)) {
+            for (Set<K> bucket : buckets) {
+                if (bucket.remove(key)) {
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    void advance() {
+        List<K> expired = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            long currentTick = now / tickMillis;
+            long from = Math.max(processedTick + 1, currentTick - buckets.size() + 1);
+            for (long tick = from; tick <= currentTick; tick++) {
+                Iterator<K> keys = bucket(tick).iterator();
+                while (keys.hasNext()) {
+                    K key = keys.next();
+                    if (deadlines.get(key) <= now) {
+                        keys.remove();
+                        deadlines.remove(key);
+                        expired.add(key);
+                    }
+                }
+            }
+            processedTick = currentTick;
+        }
+        for (K key : expired) {
+            try {
+                onExpire.accept(key);
+            } catch (RuntimeException e) {
+                // One failing expiry must not stop the wheel
+                log.warn("Error al expirar {}", key, e);
+            }
+        }
+    }
+
+    private long tickOf(long deadlineMillis) {
+        // Round up so the bucket is only visited once the deadline has passed
+        return Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+    }
+
+    private Set<K> bucket(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+}
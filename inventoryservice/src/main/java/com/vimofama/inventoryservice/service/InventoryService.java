@@ -1,23 +1,115 @@
 package com.vimofama.inventoryservice.service;
 
+import com.vimofama.inventoryservice.cache.InventoryVersionCache;
+import com.vimofama.inventoryservice.cache.ProductExistenceCache;
+import com.vimofama.inventoryservice.client.ProductServiceClient;
+import com.vimofama.inventoryservice.combiner.AdjustmentCombiner;
+import com.vimofama.inventoryservice.combiner.CombinerProperties;
+import com.vimofama.inventoryservice.dto.BulkInventoryResultDTO;
 import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import com.vimofama.inventoryservice.dto.CursorPageDTO;
+import com.vimofama.inventoryservice.dto.HandoffRowDTO;
+import com.vimofama.inventoryservice.dto.InventoryDetailsDTO;
+import com.vimofama.inventoryservice.dto.ProductLookupResultDTO;
+import com.vimofama.inventoryservice.dto.ProductSummaryDTO;
+import com.vimofama.inventoryservice.dto.StockMovementDTO;
+import com.vimofama.inventoryservice.dto.StockMovementResultDTO;
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import com.vimofama.inventoryservice.event.RowVersion;
+import com.vimofama.inventoryservice.exception.ActiveReservationsException;
+import com.vimofama.inventoryservice.exception.DuplicateInventoryException;
+import com.vimofama.inventoryservice.exception.InsufficientStockException;
+import com.vimofama.inventoryservice.exception.MovementOverflowException;
 import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.model.ReservationStatus;
+import com.vimofama.inventoryservice.readmodel.InventoryReadModel;
+import com.vimofama.inventoryservice.replica.ProductReplica;
 import com.vimofama.inventoryservice.repository.InventoryRepository;
-import org.springframework.http.ResponseEntity;
+import com.vimofama.inventoryservice.repository.ReservationRepository;
+import com.vimofama.inventoryservice.reservation.StockCounters;
+import com.vimofama.inventoryservice.web.RequestIdFilter;
+import jakarta.persistence.EntityManager;
+import org.slf4j.MDC;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class InventoryService {
 
-    private RestTemplate restTemplate = new RestTemplate();
+    private static final String APPLY_MOVEMENT_SQL =
+            "update inventory set quantity = quantity + ?, last_update = ?, version = version + 1 " +
+            "where product_id = ? and quantity + ? >= 0";
+    private static final String SELECT_QUANTITIES_SQL =
+            "select id, product_id, quantity, version, reorder_threshold " +
+            "from inventory where product_id in (:ids)";
+    private static final String SELECT_FOR_UPDATE_SQL =
+            "select id, product_id, quantity, version, reorder_threshold " +
+            "from inventory where product_id = ? for update";
+    private static final String SET_QUANTITY_SQL =
+            "update inventory set quantity = ?, last_update = ?, version = ? where id = ?";
+    private static final String INSERT_ROW_SQL =
+            "insert into inventory (product_id, quantity, version, last_update, reorder_threshold) " +
+            "values (?, ?, ?, ?, ?)";
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    public static final int MAX_PAGE_SIZE = 500;
+
     private InventoryRepository inventoryRepository;
+    private ReservationRepository reservationRepository;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private EntityManager entityManager;
+    private ProductExistenceCache productExistenceCache;
+    private ProductServiceClient productServiceClient;
+    private InventoryVersionCache inventoryVersionCache;
+    private StockCounters stockCounters;
+    private ApplicationEventPublisher eventPublisher;
+    private ProductReplica productReplica;
+    private TransactionTemplate transactionTemplate;
+    private AdjustmentCombiner<Adjusted> adjustmentCombiner;
+    private InventoryReadModel readModel;
 
-    public InventoryService(InventoryRepository inventoryRepository) {
+    public InventoryService(InventoryRepository inventoryRepository, ReservationRepository reservationRepository,
+                            NamedParameterJdbcTemplate jdbcTemplate,
+                            EntityManager entityManager, ProductExistenceCache productExistenceCache,
+                            ProductServiceClient productServiceClient, InventoryVersionCache inventoryVersionCache,
+                            StockCounters stockCounters, ApplicationEventPublisher eventPublisher,
+                            ProductReplica productReplica, PlatformTransactionManager transactionManager,
+                            CombinerProperties combinerProperties, InventoryReadModel readModel) {
         this.inventoryRepository = inventoryRepository;
+        this.reservationRepository = reservationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.productExistenceCache = productExistenceCache;
+        this.productServiceClient = productServiceClient;
+        this.inventoryVersionCache = inventoryVersionCache;
+        this.stockCounters = stockCounters;
+        this.eventPublisher = eventPublisher;
+        this.productReplica = productReplica;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.adjustmentCombiner = combinerProperties.enabled()
+                ? new AdjustmentCombiner<>(combinerProperties.window(), combinerProperties.maxBatchSize(), this::writeCombined)
+                : null;
+        this.readModel = readModel;
     }
 
     public InventoryRepository getInventoryRepository() {
@@ -28,50 +120,579 @@ public class InventoryService {
         return inventoryRepository.findAll();
     }
 
+    /**
+     * Every row for API reads, from the read model or the repository depending on
+     * {@code inventory.read-model.serve-reads}.
+     */
+    public List<Inventory> readAll() {
+        return readModel.servesReads() ? readModel.findAll() : findAll();
+    }
+
+    /**
+     * @see #readAll()
+     */
+    public Inventory readByProductId(Long id) {
+        if (!readModel.servesReads()) {
+            return findByProductId(id);
+        }
+        Inventory inventory = readModel.get(id);
+        if (inventory != null) {
+            inventoryVersionCache.record(id, inventory.getId(), inventory.getVersion());
+        }
+        return inventory;
+    }
+
+    public CursorPageDTO<Inventory> findPage(Long after, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<Inventory> items = inventoryRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(pageSize));
+        Long nextCursor = items.size() == pageSize ? items.get(items.size() - 1).getId() : null;
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    /**
+     * Same page as {@link #findPage}, with the product fields taken from the local replica.
+     */
+    public CursorPageDTO<InventoryDetailsDTO> findDetailsPage(Long after, int size) {
+        CursorPageDTO<Inventory> page = findPage(after, size);
+        return new CursorPageDTO<>(page.items().stream().map(this::withProduct).toList(), page.nextCursor());
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Inventory> consumer) {
+        try (Stream<Inventory> items = inventoryRepository.streamAllOrderById()) {
+            items.forEach(inventory -> {
+                consumer.accept(inventory);
+                entityManager.detach(inventory);
+            });
+        }
+    }
+
     public Inventory findByProductId(Long id) {
-        return inventoryRepository.findByProductId(id).orElse(null);
+        Inventory inventory = inventoryRepository.findByProductId(id).orElse(null);
+        if (inventory != null) {
+            inventoryVersionCache.record(id, inventory.getId(), inventory.getVersion());
+        }
+        return inventory;
+    }
+
+    public InventoryDetailsDTO findDetailsByProductId(Long id) {
+        Inventory inventory = findByProductId(id);
+        return inventory == null ? null : withProduct(inventory);
+    }
+
+    public RowVersion getCachedVersion(Long productId) {
+        return inventoryVersionCache.get(productId);
     }
 
     public Inventory save(CreateInventoryDTO createInventoryDTO) {
         var id = createInventoryDTO.productId();
-        ResponseEntity<String> response = restTemplate.getForEntity("http://localhost:8080/api/products/" + id, String.class);
-        if (!response.getStatusCode().is2xxSuccessful()) {
+        if (inventoryRepository.existsByProductId(id)) {
+            throw new DuplicateInventoryException(id);
+        }
+        if (!productExistenceCache.exists(id, productServiceClient::productExists)) {
             return null;
         }
         Inventory inventory = new Inventory(
                 id,
                 createInventoryDTO.quantity(),
+                createInventoryDTO.reorderThresholdOrDefault(),
                 LocalDateTime.now()
         );
-        return inventoryRepository.save(inventory);
+        // Published inside the insert's transaction, like every other write, so listeners see it as committed
+        return transactionTemplate.execute(status -> {
+            Inventory saved = inventoryRepository.save(inventory);
+            afterCommit(() -> {
+                inventoryVersionCache.record(id, saved.getId(), saved.getVersion());
+                stockCounters.update(saved);
+            });
+            publish(MovementType.CREATE, saved, saved.getQuantity());
+            return saved;
+        });
+    }
+
+    public BulkInventoryResultDTO saveAll(List<CreateInventoryDTO> items) {
+        Map<Long, CreateInventoryDTO> byProduct = new LinkedHashMap<>();
+        List<BulkInventoryResultDTO.Rejected> rejected = new ArrayList<>();
+        for (CreateInventoryDTO item : items) {
+            if (byProduct.putIfAbsent(item.productId(), item) != null) {
+                rejected.add(new BulkInventoryResultDTO.Rejected(item.productId(), BulkInventoryResultDTO.Reason.DUPLICATE));
+            }
+        }
+
+        Set<Long> existing = inventoryRepository.findExistingProductIds(byProduct.keySet());
+        Map<Long, Boolean> productExists = productsExist(byProduct.keySet().stream()
+                .filter(productId -> !existing.contains(productId))
+                .toList());
+
+        List<Inventory> toCreate = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (CreateInventoryDTO item : byProduct.values()) {
+            if (existing.contains(item.productId())) {
+                rejected.add(new BulkInventoryResultDTO.Rejected(item.productId(), BulkInventoryResultDTO.Reason.DUPLICATE));
+            } else if (!productExists.getOrDefault(item.productId(), false)) {
+                rejected.add(new BulkInventoryResultDTO.Rejected(item.productId(), BulkInventoryResultDTO.Reason.PRODUCT_NOT_FOUND));
+            } else {
+                toCreate.add(new Inventory(item.productId(), item.quantity(), item.reorderThresholdOrDefault(), now));
+            }
+        }
+        List<Inventory> created = transactionTemplate.execute(status -> {
+            List<Inventory> saved = inventoryRepository.saveAll(toCreate);
+            afterCommit(() -> saved.forEach(stockCounters::update));
+            for (Inventory inventory : saved) {
+                publish(MovementType.CREATE, inventory, inventory.getQuantity());
+            }
+            return saved;
+        });
+        return new BulkInventoryResultDTO(created, rejected);
     }
 
+    /**
+     * Stores rows handed over by another node of the cluster, each with the version it had there. A row already held
+     * for the product is replaced, so a handoff can be repeated. Products the product service reports as gone are
+     * left out, and a row held for them is dropped.
+     *
+     * @return the products left out
+     */
+    @Transactional
+    public List<Long> importRows(List<HandoffRowDTO> rows) {
+        List<Long> productIds = rows.stream().map(HandoffRowDTO::productId).toList();
+        Map<Long, Boolean> productExists = productsExist(productIds);
+        // Replaced rows keep their reservations, which are settled against the imported row
+        for (Long productId : inventoryRepository.findExistingProductIds(productIds)) {
+            delete(findByProductId(productId));
+        }
+        entityManager.flush();
+
+        List<HandoffRowDTO> accepted = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (HandoffRowDTO row : rows) {
+            if (Boolean.FALSE.equals(productExists.get(row.productId()))) {
+                missing.add(row.productId());
+            } else {
+                accepted.add(row);
+            }
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_ROW_SQL, accepted, IN_CLAUSE_CHUNK, (ps, row) -> {
+            ps.setLong(1, row.productId());
+            ps.setInt(2, row.quantity());
+            ps.setLong(3, row.version());
+            ps.setTimestamp(4, now);
+            ps.setInt(5, row.reorderThreshold());
+        });
+        findQuantities(accepted.stream().map(HandoffRowDTO::productId).toList()).values().forEach(row ->
+                publish(MovementType.CREATE, row.productId(), row.inventoryId(), row.version(), row.quantity(),
+                        row.quantity(), row.reorderThreshold(), now.getTime()));
+        return missing;
+    }
+
+    /**
+     * Adds to the quantity. Outside a transaction concurrent adjustments of the same product are merged into one
+     * write by the {@link AdjustmentCombiner}, each still getting back the quantity right after its own change.
+     *
+     * @throws MovementOverflowException if the quantity would no longer fit in an int
+     */
     public Inventory increaseQuantity(Long productId, int quantity) {
-        var inventory = findByProductId(productId);
-        if (inventory == null) {
-            return null;
+        if (combinesAdjustments()) {
+            return combined(productId, quantity);
         }
-        inventory.setQuantity(inventory.getQuantity() + quantity);
-        inventory.setLastUpdate(LocalDateTime.now());
-        return inventoryRepository.save(inventory);
+        return transactionTemplate.execute(status -> increaseInTransaction(productId, quantity));
     }
 
+    /**
+     * Takes from the quantity, never below the stock held by reservations.
+     *
+     * @throws InsufficientStockException if there is not enough unreserved stock
+     * @see #increaseQuantity
+     */
     public Inventory decreaseQuantity(Long productId, int quantity) {
-        var inventory = findByProductId(productId);
-        if (inventory == null) {
+        if (combinesAdjustments()) {
+            return combined(productId, -quantity);
+        }
+        return transactionTemplate.execute(status -> decreaseInTransaction(productId, quantity));
+    }
+
+    public AdjustmentCombiner<?> getAdjustmentCombiner() {
+        return adjustmentCombiner;
+    }
+
+    private Inventory increaseInTransaction(Long productId, int quantity) {
+        int updated = inventoryRepository.addQuantityUpTo(productId, quantity, Integer.MAX_VALUE - quantity,
+                LocalDateTime.now());
+        if (updated == 0) {
+            if (!inventoryRepository.existsByProductId(productId)) {
+                return null;
+            }
+            throw new MovementOverflowException(productId);
+        }
+        Inventory inventory = findByProductId(productId);
+        afterCommit(() -> stockCounters.update(inventory));
+        publish(MovementType.INCREASE, inventory, quantity);
+        return inventory;
+    }
+
+    private Inventory decreaseInTransaction(Long productId, int quantity) {
+        // Hold the amount in the stock counters first so a plain decrease can never take reserved stock
+        switch (stockCounters.tryReserve(productId, quantity)) {
+            case NOT_FOUND -> {
+                return null;
+            }
+            case INSUFFICIENT -> throw new InsufficientStockException(productId, quantity);
+            case RESERVED -> afterCompletion(() -> stockCounters.release(productId, quantity));
+        }
+        int updated = inventoryRepository.subtractQuantityIfAvailable(productId, quantity, LocalDateTime.now());
+        if (updated == 0) {
+            stockCounters.refresh(productId);
+            if (!inventoryRepository.existsByProductId(productId)) {
+                return null;
+            }
+            throw new InsufficientStockException(productId, quantity);
+        }
+        Inventory inventory = findByProductId(productId);
+        afterCommit(() -> stockCounters.update(inventory));
+        publish(MovementType.DECREASE, inventory, -quantity);
+        return inventory;
+    }
+
+    @Transactional
+    public Inventory updateReorderThreshold(Long productId, int reorderThreshold) {
+        int updated = inventoryRepository.updateReorderThreshold(productId, reorderThreshold, LocalDateTime.now());
+        if (updated == 0) {
             return null;
         }
-        inventory.setQuantity(inventory.getQuantity() - quantity);
-        inventory.setLastUpdate(LocalDateTime.now());
-        return inventoryRepository.save(inventory);
+        Inventory inventory = findByProductId(productId);
+        afterCommit(() -> stockCounters.update(inventory));
+        publish(MovementType.THRESHOLD, inventory, 0);
+        return inventory;
+    }
+
+    /**
+     * Applies the net delta of every product in one JDBC batch. A net decrease holds its amount in the stock
+     * counters first, like {@link #decreaseQuantity}, so movements can never take reserved stock either.
+     */
+    @Transactional
+    /**
+     * Adds up the movements of each product, in order of first appearance.
+     *
+     * @throws MovementOverflowException if the net movement of a product does not fit in an int
+     */
+    public static Map<Long, Integer> netMovements(List<StockMovementDTO> movements) {
+        Map<Long, Integer> merged = new LinkedHashMap<>();
+        for (StockMovementDTO movement : movements) {
+            try {
+                merged.merge(movement.productId(), movement.delta(), Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new MovementOverflowException(movement.productId());
+            }
+        }
+        return merged;
     }
 
+    public List<StockMovementResultDTO> applyMovements(List<StockMovementDTO> movements) {
+        Map<Long, Integer> merged = netMovements(movements);
+
+        Map<Long, StockMovementResultDTO.Status> statuses = new HashMap<>();
+        List<Long> productIds = new ArrayList<>(merged.size());
+        for (Map.Entry<Long, Integer> entry : merged.entrySet()) {
+            Long productId = entry.getKey();
+            int delta = entry.getValue();
+            if (delta < 0) {
+                switch (stockCounters.tryReserve(productId, -delta)) {
+                    case NOT_FOUND -> {
+                        statuses.put(productId, StockMovementResultDTO.Status.NOT_FOUND);
+                        continue;
+                    }
+                    case INSUFFICIENT -> {
+                        statuses.put(productId, StockMovementResultDTO.Status.INSUFFICIENT_STOCK);
+                        continue;
+                    }
+                    case RESERVED -> afterCompletion(() -> stockCounters.release(productId, -delta));
+                }
+            }
+            productIds.add(productId);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batchArgs = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            int delta = merged.get(productId);
+            batchArgs.add(new Object[]{delta, now, productId, delta});
+        }
+        int[] updateCounts = batchArgs.isEmpty()
+                ? new int[0]
+                : jdbcTemplate.getJdbcTemplate().batchUpdate(APPLY_MOVEMENT_SQL, batchArgs);
+
+        Map<Long, QuantityRow> rows = findQuantities(new ArrayList<>(merged.keySet()));
+        for (int i = 0; i < productIds.size(); i++) {
+            Long productId = productIds.get(i);
+            if (updateCounts[i] > 0) {
+                statuses.put(productId, StockMovementResultDTO.Status.APPLIED);
+                QuantityRow row = rows.get(productId);
+                publish(MovementType.MOVEMENT, productId, row.inventoryId(), row.version(), merged.get(productId),
+                        row.quantity(), row.reorderThreshold(), now.getTime());
+            } else if (rows.containsKey(productId)) {
+                statuses.put(productId, StockMovementResultDTO.Status.INSUFFICIENT_STOCK);
+            } else {
+                statuses.put(productId, StockMovementResultDTO.Status.NOT_FOUND);
+            }
+        }
+
+        List<StockMovementResultDTO> results = new ArrayList<>(movements.size());
+        for (StockMovementDTO movement : movements) {
+            QuantityRow row = rows.get(movement.productId());
+            results.add(new StockMovementResultDTO(
+                    movement.productId(),
+                    movement.delta(),
+                    statuses.get(movement.productId()),
+                    row == null ? null : row.quantity()
+            ));
+        }
+        return results;
+    }
+
+    private boolean combinesAdjustments() {
+        // Inside a caller's transaction the change has to be part of it, so it cannot be handed to another thread
+        return adjustmentCombiner != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private Inventory combined(Long productId, int delta) {
+        Adjusted adjusted = adjustmentCombiner.adjust(productId, delta);
+        return switch (adjusted.status()) {
+            case APPLIED -> adjusted.inventory();
+            case NOT_FOUND -> null;
+            case INSUFFICIENT_STOCK -> throw new InsufficientStockException(productId, -delta);
+            case OVERFLOW -> throw new MovementOverflowException(productId);
+        };
+    }
+
+    /**
+     * Applies a batch of adjustments of one product with a single locked read and a single update. Decreases
+     * hold their amount in the stock counters like {@link #decreaseQuantity} does, counting the increases earlier
+     * in the batch as available. Each applied adjustment takes the next version, so every caller gets back its own
+     * state with its own version and the row ends at the last one. A single adjustment is published as the
+     * increase or decrease it is; a merged batch as one {@code MOVEMENT} with its net delta and, since it serves
+     * several requests, no request id.
+     */
+    private List<Adjusted> writeCombined(Long productId, int[] deltas) {
+        if (deltas.length == 1) {
+            return writeCombinedInTransaction(productId, deltas);
+        }
+        String requestId = MDC.get(RequestIdFilter.MDC_KEY);
+        MDC.remove(RequestIdFilter.MDC_KEY);
+        try {
+            return writeCombinedInTransaction(productId, deltas);
+        } finally {
+            if (requestId != null) {
+                MDC.put(RequestIdFilter.MDC_KEY, requestId);
+            }
+        }
+    }
+
+    private List<Adjusted> writeCombinedInTransaction(Long productId, int[] deltas) {
+        List<Adjusted> results = new ArrayList<>(deltas.length);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<QuantityRow> locked = jdbcTemplate.getJdbcTemplate().query(SELECT_FOR_UPDATE_SQL,
+                    (rs, rowNum) -> new QuantityRow(rs.getLong("product_id"), rs.getLong("id"), rs.getInt("quantity"),
+                            rs.getLong("version"), rs.getInt("reorder_threshold")),
+                    productId);
+            if (locked.isEmpty()) {
+                for (int i = 0; i < deltas.length; i++) {
+                    results.add(new Adjusted(AdjustmentStatus.NOT_FOUND, null));
+                }
+                return;
+            }
+            QuantityRow row = locked.getFirst();
+            LocalDateTime now = LocalDateTime.now();
+            long version = row.version();
+            int quantity = row.quantity();
+            long increased = 0;
+            long held = 0;
+            boolean applied = false;
+            for (int delta : deltas) {
+                if (delta < 0 && (quantity < -delta
+                        || stockCounters.tryReserve(productId, -delta, increased) != StockCounters.Outcome.RESERVED)) {
+                    results.add(new Adjusted(AdjustmentStatus.INSUFFICIENT_STOCK, null));
+                    continue;
+                }
+                if (delta > 0 && quantity > Integer.MAX_VALUE - delta) {
+                    results.add(new Adjusted(AdjustmentStatus.OVERFLOW, null));
+                    continue;
+                }
+                if (delta < 0) {
+                    held -= delta;
+                } else {
+                    increased += delta;
+                }
+                quantity += delta;
+                version++;
+                applied = true;
+                Inventory inventory = new Inventory(productId, quantity, row.reorderThreshold(), now);
+                inventory.setId(row.inventoryId());
+                inventory.setVersion(version);
+                results.add(new Adjusted(AdjustmentStatus.APPLIED, inventory));
+            }
+            if (held > 0) {
+                long release = held;
+                afterCompletion(() -> stockCounters.release(productId, (int) release));
+            }
+            if (!applied) {
+                return;
+            }
+            jdbcTemplate.getJdbcTemplate().update(SET_QUANTITY_SQL, quantity, Timestamp.valueOf(now), version,
+                    row.inventoryId());
+            int finalQuantity = quantity;
+            long finalVersion = version;
+            afterCommit(() -> {
+                stockCounters.update(productId, row.inventoryId(), finalQuantity, finalVersion);
+                inventoryVersionCache.record(productId, row.inventoryId(), finalVersion);
+            });
+            int delta = finalQuantity - row.quantity();
+            MovementType type = deltas.length > 1 ? MovementType.MOVEMENT
+                    : delta < 0 ? MovementType.DECREASE : MovementType.INCREASE;
+            publish(type, productId, row.inventoryId(), finalVersion, delta, finalQuantity, row.reorderThreshold(),
+                    epochMillis(now));
+        });
+        return results;
+    }
+
+    /**
+     * Whether each product exists, from the cache where it knows and otherwise in one call to the product service.
+     */
+    private Map<Long, Boolean> productsExist(List<Long> productIds) {
+        Map<Long, Boolean> productExists = new HashMap<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long productId : productIds) {
+            Boolean cached = productExistenceCache.getIfPresent(productId);
+            if (cached == null) {
+                unknown.add(productId);
+            } else {
+                productExists.put(productId, cached);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            ProductLookupResultDTO lookup = productServiceClient.lookupProducts(unknown);
+            for (ProductSummaryDTO product : lookup.found()) {
+                productExistenceCache.put(product.id(), true);
+                productExists.put(product.id(), true);
+            }
+            for (Long productId : lookup.missing()) {
+                productExistenceCache.put(productId, false);
+                productExists.put(productId, false);
+            }
+        }
+        return productExists;
+    }
+
+    private Map<Long, QuantityRow> findQuantities(List<Long> productIds) {
+        Map<Long, QuantityRow> rows = new HashMap<>();
+        for (int from = 0; from < productIds.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + IN_CLAUSE_CHUNK, productIds.size()));
+            jdbcTemplate.query(SELECT_QUANTITIES_SQL, Map.of("ids", chunk),
+                    rs -> {
+                        long productId = rs.getLong("product_id");
+                        inventoryVersionCache.record(productId, rs.getLong("id"), rs.getLong("version"));
+                        rows.put(productId, new QuantityRow(productId, rs.getLong("id"), rs.getInt("quantity"),
+                                rs.getLong("version"), rs.getInt("reorder_threshold")));
+                    });
+        }
+        afterCommit(() -> rows.values().forEach(row ->
+                stockCounters.update(row.productId(), row.inventoryId(), row.quantity(), row.version())));
+        return rows;
+    }
+
+    /**
+     * @throws ActiveReservationsException if the product still has active reservations, which could no longer be
+     *                                     committed
+     */
+    @Transactional
     public boolean deleteById(Long id) {
         var inventory = findByProductId(id);
         if (inventory == null) {
             return false;
         }
-        inventoryRepository.delete(inventory);
+        if (reservationRepository.existsByProductIdAndStatus(id, ReservationStatus.ACTIVE)) {
+            throw new ActiveReservationsException(id);
+        }
+        delete(inventory);
         return true;
     }
+
+    private void delete(Inventory inventory) {
+        Long productId = inventory.getProductId();
+        inventoryRepository.delete(inventory);
+        afterCommit(() -> {
+            inventoryVersionCache.invalidate(productId);
+            stockCounters.remove(productId);
+        });
+        publish(MovementType.DELETE, productId, inventory.getId(), inventory.getVersion() + 1, -inventory.getQuantity(), 0,
+                inventory.getReorderThreshold(), System.currentTimeMillis());
+    }
+
+    private void publish(MovementType type, Inventory inventory, int delta) {
+        publish(type, inventory.getProductId(), inventory.getId(), inventory.getVersion(), delta, inventory.getQuantity(),
+                inventory.getReorderThreshold(), epochMillis(inventory.getLastUpdate()));
+    }
+
+    private void publish(MovementType type, Long productId, Long inventoryId, long version, int delta, int quantity,
+                         int reorderThreshold, long lastUpdate) {
+        eventPublisher.publishEvent(new InventoryChangedEvent(type, productId, inventoryId, version, delta, quantity,
+                reorderThreshold, lastUpdate));
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime == null ? 0 : Timestamp.valueOf(dateTime).getTime();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    private record QuantityRow(Long productId, Long inventoryId, int quantity, long version, int reorderThreshold) {
+    }
+
+    private enum AdjustmentStatus {
+        APPLIED,
+        NOT_FOUND,
+        INSUFFICIENT_STOCK,
+        OVERFLOW
+    }
+
+    private record Adjusted(AdjustmentStatus status, Inventory inventory) {
+    }
+
+    private InventoryDetailsDTO withProduct(Inventory inventory) {
+        ProductSummaryDTO product = productReplica.get(inventory.getProductId());
+        return new InventoryDetailsDTO(
+                inventory.getProductId(),
+                inventory.getQuantity(),
+                inventory.getReorderThreshold(),
+                inventory.getVersion(),
+                inventory.getLastUpdate(),
+                product == null ? null : product.name(),
+                product == null ? null : product.sku(),
+                product == null ? null : product.price()
+        );
+    }
 }
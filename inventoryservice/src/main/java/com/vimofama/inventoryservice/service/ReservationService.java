@@ -0,0 +1,207 @@
+package com.vimofama.inventoryservice.service;
+
+import com.vimofama.inventoryservice.cache.InventoryVersionCache;
+import com.vimofama.inventoryservice.dto.AvailabilityDTO;
+import com.vimofama.inventoryservice.dto.CreateReservationDTO;
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import com.vimofama.inventoryservice.event.ReservationChangedEvent;
+import com.vimofama.inventoryservice.exception.InsufficientStockException;
+import com.vimofama.inventoryservice.exception.ReservationNotActiveException;
+import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.model.Reservation;
+import com.vimofama.inventoryservice.model.ReservationStatus;
+import com.vimofama.inventoryservice.repository.InventoryRepository;
+import com.vimofama.inventoryservice.repository.ReservationRepository;
+import com.vimofama.inventoryservice.reservation.ReservationProperties;
+import com.vimofama.inventoryservice.reservation.StockCounters;
+import com.vimofama.inventoryservice.reservation.TimerWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+@Service
+public class ReservationService implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+
+    private final ReservationRepository reservationRepository;
+    private final InventoryRepository inventoryRepository;
+    private final StockCounters stockCounters;
+    private final InventoryVersionCache inventoryVersionCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TimerWheel<Long> expiryWheel;
+
+    public ReservationService(ReservationRepository reservationRepository, InventoryRepository inventoryRepository,
+                              StockCounters stockCounters, InventoryVersionCache inventoryVersionCache,
+                              TransactionTemplate transactionTemplate, ReservationProperties properties,
+                              ApplicationEventPublisher eventPublisher) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.stockCounters = stockCounters;
+        this.inventoryVersionCache = inventoryVersionCache;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.expiryWheel = new TimerWheel<>(properties.tick(), properties.wheelSize(), this::expire);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<Reservation> active = reservationRepository.findByStatus(ReservationStatus.ACTIVE);
+        for (Reservation reservation : active) {
+            stockCounters.addReserved(reservation.getProductId(), reservation.getQuantity());
+            expiryWheel.schedule(reservation.getId(), toEpochMillis(reservation.getExpiresAt()));
+        }
+        if (!active.isEmpty()) {
+            log.info("Se restauraron {} reservas activas", active.size());
+        }
+    }
+
+    public Reservation reserve(CreateReservationDTO createReservationDTO) {
+        Long productId = createReservationDTO.productId();
+        int quantity = createReservationDTO.quantity();
+        switch (stockCounters.tryReserve(productId, quantity)) {
+            case NOT_FOUND -> {
+                return null;
+            }
+            case INSUFFICIENT -> throw new InsufficientStockException(productId, quantity);
+            case RESERVED -> {
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Reservation reservation;
+        try {
+            reservation = reservationRepository.save(new Reservation(productId, quantity, now, now.plus(ttl(createReservationDTO))));
+        } catch (RuntimeException e) {
+            stockCounters.release(productId, quantity);
+            throw e;
+        }
+        publish(MovementType.RESERVED, reservation);
+        expiryWheel.schedule(reservation.getId(), toEpochMillis(reservation.getExpiresAt()));
+        return reservation;
+    }
+
+    /**
+     * @return the reservation, or {@code null} if there is none with this id for the product
+     */
+    public Reservation findById(Long id, Long productId) {
+        Reservation reservation = findById(id);
+        return reservation == null || !reservation.getProductId().equals(productId) ? null : reservation;
+    }
+
+    public Reservation commit(Long id, Long productId) {
+        Reservation reservation = findById(id, productId);
+        if (reservation == null) {
+            return null;
+        }
+        Inventory inventory = transactionTemplate.execute(status -> {
+            requireTransition(reservation, ReservationStatus.COMMITTED);
+            int updated = inventoryRepository.subtractQuantityIfAvailable(
+                    reservation.getProductId(), reservation.getQuantity(), LocalDateTime.now());
+            if (updated == 0) {
+                throw new InsufficientStockException(reservation.getProductId(), reservation.getQuantity());
+            }
+            Inventory committed = inventoryRepository.findByProductId(reservation.getProductId()).orElseThrow();
+            eventPublisher.publishEvent(new InventoryChangedEvent(MovementType.RESERVATION_COMMIT,
+                    committed.getProductId(), committed.getId(), committed.getVersion(),
+                    -reservation.getQuantity(), committed.getQuantity(), committed.getReorderThreshold(),
+                    toEpochMillis(committed.getLastUpdate())));
+            publish(MovementType.RESERVATION_COMMITTED, reservation);
+            return committed;
+        });
+        expiryWheel.cancel(id);
+        stockCounters.update(inventory);
+        inventoryVersionCache.record(inventory.getProductId(), inventory.getId(), inventory.getVersion());
+        stockCounters.release(reservation.getProductId(), reservation.getQuantity());
+        reservation.setStatus(ReservationStatus.COMMITTED);
+        return reservation;
+    }
+
+    public Reservation release(Long id, Long productId) {
+        Reservation reservation = findById(id, productId);
+        if (reservation == null) {
+            return null;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            requireTransition(reservation, ReservationStatus.RELEASED);
+            publish(MovementType.RESERVATION_RELEASED, reservation);
+        });
+        expiryWheel.cancel(id);
+        stockCounters.release(reservation.getProductId(), reservation.getQuantity());
+        reservation.setStatus(ReservationStatus.RELEASED);
+        return reservation;
+    }
+
+    public AvailabilityDTO availability(Long productId) {
+        return stockCounters.availability(productId);
+    }
+
+    public int pendingExpirations() {
+        return expiryWheel.size();
+    }
+
+    private Reservation findById(Long id) {
+        return reservationRepository.findById(id).orElse(null);
+    }
+
+    private void expire(Long id) {
+        Reservation reservation = findById(id);
+        if (reservation == null) {
+            return;
+        }
+        Integer updated = transactionTemplate.execute(status -> {
+            int transitioned = reservationRepository.transition(id, ReservationStatus.ACTIVE, ReservationStatus.EXPIRED);
+            if (transitioned > 0) {
+                publish(MovementType.RESERVATION_EXPIRED, reservation);
+            }
+            return transitioned;
+        });
+        if (updated != null && updated > 0) {
+            stockCounters.release(reservation.getProductId(), reservation.getQuantity());
+        }
+    }
+
+    private void requireTransition(Reservation reservation, ReservationStatus target) {
+        if (reservationRepository.transition(reservation.getId(), ReservationStatus.ACTIVE, target) == 0) {
+            ReservationStatus current = reservationRepository.findById(reservation.getId())
+                    .map(Reservation::getStatus)
+                    .orElse(reservation.getStatus());
+            throw new ReservationNotActiveException(reservation.getId(), current);
+        }
+    }
+
+    private void publish(MovementType type, Reservation reservation) {
+        eventPublisher.publishEvent(new ReservationChangedEvent(type, reservation.getId(), reservation.getProductId(),
+                reservation.getQuantity(), toEpochMillis(reservation.getExpiresAt())));
+    }
+
+    private Duration ttl(CreateReservationDTO createReservationDTO) {
+        if (createReservationDTO.ttlSeconds() == null) {
+            return properties.defaultTtl();
+        }
+        Duration requested = Duration.ofSeconds(createReservationDTO.ttlSeconds());
+        return requested.compareTo(properties.maxTtl()) > 0 ? properties.maxTtl() : requested;
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public void destroy() {
+        expiryWheel.close();
+    }
+}
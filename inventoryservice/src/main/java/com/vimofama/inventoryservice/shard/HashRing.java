@@ -0,0 +1,71 @@
+package com.vimofama.inventoryservice.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent hash ring of node URLs. Every node is placed at a number of pseudo-random points, and a
+ * product belongs to the node of the first point at or after the hash of its id, wrapping around. Adding a node
+ * only moves the products that fall right before its points, about one in {@code n + 1}, all of them to the new
+ * node.
+ */
+final class HashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final int[] owners;
+
+    HashRing(List<String> nodes, int virtualNodes) {
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        long[][] placed = new long[this.nodes.size() * virtualNodes][];
+        for (int node = 0; node < this.nodes.size(); node++) {
+            byte[] name = this.nodes.get(node).getBytes(StandardCharsets.UTF_8);
+            for (int point = 0; point < virtualNodes; point++) {
+                placed[node * virtualNodes + point] = new long[]{mix(fnv(name) + point * 0x9E3779B97F4A7C15L), node};
+            }
+        }
+        Arrays.sort(placed, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[placed.length];
+        this.owners = new int[placed.length];
+        for (int i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            owners[i] = (int) placed[i][1];
+        }
+    }
+
+    List<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Node owning the product, or {@code null} if the ring is empty.
+     */
+    String ownerOf(long productId) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, mix(productId));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return nodes.get(owners[index == points.length ? 0 : index]);
+    }
+
+    private static long fnv(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long key) {
+        // SplitMix64 finalizer, so sequential ids and neighbouring points spread over the whole ring
+        long h = key;
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
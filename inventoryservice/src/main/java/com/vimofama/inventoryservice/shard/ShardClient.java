@@ -0,0 +1,133 @@
+package com.vimofama.inventoryservice.shard;
+
+import com.vimofama.inventoryservice.dto.BulkInventoryResultDTO;
+import com.vimofama.inventoryservice.dto.ClusterMembersDTO;
+import com.vimofama.inventoryservice.dto.ClusterStatusDTO;
+import com.vimofama.inventoryservice.dto.CreateInventoryBatchDTO;
+import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import com.vimofama.inventoryservice.dto.HandoffBatchDTO;
+import com.vimofama.inventoryservice.dto.HandoffResultDTO;
+import com.vimofama.inventoryservice.dto.HandoffRowDTO;
+import com.vimofama.inventoryservice.dto.JoinClusterDTO;
+import com.vimofama.inventoryservice.dto.StockMovementBatchDTO;
+import com.vimofama.inventoryservice.dto.StockMovementDTO;
+import com.vimofama.inventoryservice.dto.StockMovementResultDTO;
+import com.vimofama.inventoryservice.exception.ShardUnavailableException;
+import com.vimofama.inventoryservice.model.Inventory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Calls to the other nodes of the cluster. Every call carries {@value ShardRouter#FORWARDED_HEADER} with the shared
+ * secret, so the receiving node serves it locally instead of routing it again. Failures surface as
+ * {@link ShardUnavailableException}.
+ */
+@Component
+public class ShardClient {
+
+    private static final int MOVEMENTS_CHUNK = 10_000;
+    private static final int ITEMS_CHUNK = 1000;
+
+    private final RestTemplate restTemplate;
+    private final RestTemplate membershipTemplate;
+
+    public ShardClient(ShardProperties properties, RestTemplateBuilder restTemplateBuilder) {
+        RestTemplateBuilder builder = restTemplateBuilder
+                .connectTimeout(properties.requestTimeout())
+                .readTimeout(properties.requestTimeout());
+        if (properties.secret() != null) {
+            builder = builder.defaultHeader(ShardRouter.FORWARDED_HEADER, properties.secret());
+        }
+        this.restTemplate = builder.build();
+        this.membershipTemplate = builder.readTimeout(properties.joinTimeout()).build();
+    }
+
+    public List<Inventory> findAll(String node) {
+        Inventory[] items = execute(node, () -> restTemplate.getForObject(node + "/api/inventory", Inventory[].class));
+        return items == null ? List.of() : Arrays.asList(items);
+    }
+
+    public List<StockMovementResultDTO> applyMovements(String node, List<StockMovementDTO> movements) {
+        List<StockMovementResultDTO> results = new ArrayList<>(movements.size());
+        for (int from = 0; from < movements.size(); from += MOVEMENTS_CHUNK) {
+            StockMovementBatchDTO chunk = new StockMovementBatchDTO(
+                    movements.subList(from, Math.min(from + MOVEMENTS_CHUNK, movements.size())));
+            StockMovementResultDTO[] applied = execute(node, () -> restTemplate.postForObject(
+                    node + "/api/inventory/movements", chunk, StockMovementResultDTO[].class));
+            results.addAll(Arrays.asList(applied));
+        }
+        return results;
+    }
+
+    public BulkInventoryResultDTO saveAll(String node, List<CreateInventoryDTO> items) {
+        List<Inventory> created = new ArrayList<>();
+        List<BulkInventoryResultDTO.Rejected> rejected = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += ITEMS_CHUNK) {
+            CreateInventoryBatchDTO chunk = new CreateInventoryBatchDTO(
+                    items.subList(from, Math.min(from + ITEMS_CHUNK, items.size())));
+            BulkInventoryResultDTO result = execute(node, () -> restTemplate.postForObject(
+                    node + "/api/inventory/bulk", chunk, BulkInventoryResultDTO.class));
+            created.addAll(result.created());
+            rejected.addAll(result.rejected());
+        }
+        return new BulkInventoryResultDTO(created, rejected);
+    }
+
+    /**
+     * Hands rows and deletions off to {@code node}, split in batches; only the last one is marked {@code complete}.
+     *
+     * @return the products the node left out because they no longer exist
+     */
+    public List<Long> handoff(String node, String from, List<HandoffRowDTO> rows, List<Long> deleted, boolean complete) {
+        List<Long> missing = new ArrayList<>();
+        int batches = Math.max(1, Math.ceilDiv(Math.max(rows.size(), deleted.size()), ITEMS_CHUNK));
+        for (int batch = 0; batch < batches; batch++) {
+            HandoffBatchDTO chunk = new HandoffBatchDTO(from, chunk(rows, batch), chunk(deleted, batch),
+                    complete && batch == batches - 1);
+            missing.addAll(execute(node, () -> membershipTemplate.postForObject(node + "/api/inventory/cluster/handoff",
+                    chunk, HandoffResultDTO.class)).missing());
+        }
+        return missing;
+    }
+
+    public ClusterStatusDTO status(String node) {
+        return execute(node, () -> restTemplate.getForObject(node + "/api/inventory/cluster", ClusterStatusDTO.class));
+    }
+
+    public ClusterStatusDTO join(String seed, String self) {
+        return execute(seed, () -> membershipTemplate.postForObject(seed + "/api/inventory/cluster/join",
+                new JoinClusterDTO(self), ClusterStatusDTO.class));
+    }
+
+    public void prepare(String node, List<String> nodes) {
+        execute(node, () -> membershipTemplate.postForLocation(node + "/api/inventory/cluster/prepare", new ClusterMembersDTO(nodes)));
+    }
+
+    public void commit(String node, List<String> nodes) {
+        execute(node, () -> membershipTemplate.postForLocation(node + "/api/inventory/cluster/commit", new ClusterMembersDTO(nodes)));
+    }
+
+    public void abort(String node, List<String> nodes) {
+        execute(node, () -> membershipTemplate.postForLocation(node + "/api/inventory/cluster/abort", new ClusterMembersDTO(nodes)));
+    }
+
+    private static <T> List<T> chunk(List<T> items, int index) {
+        int from = Math.min(index * ITEMS_CHUNK, items.size());
+        return items.subList(from, Math.min(from + ITEMS_CHUNK, items.size()));
+    }
+
+    private static <T> T execute(String node, Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (RestClientException e) {
+            throw new ShardUnavailableException(node, e);
+        }
+    }
+}
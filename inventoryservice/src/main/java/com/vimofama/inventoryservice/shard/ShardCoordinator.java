@@ -0,0 +1,425 @@
+package com.vimofama.inventoryservice.shard;
+
+import com.vimofama.inventoryservice.dto.ClusterStatusDTO;
+import com.vimofama.inventoryservice.dto.HandoffBatchDTO;
+import com.vimofama.inventoryservice.dto.HandoffRowDTO;
+import com.vimofama.inventoryservice.exception.ShardRebalancingException;
+import com.vimofama.inventoryservice.exception.ShardUnavailableException;
+import com.vimofama.inventoryservice.service.InventoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cluster membership and rebalancing.
+ * <p>
+ * A node joins by asking any member, the seed. The seed passes the request on to the coordinator, the first node
+ * of the ring in URL order, so joins are run one at a time by a single node, which moves the cluster to the new ring
+ * in two phases.
+ * <ol>
+ *     <li>Prepare: every current member copies the rows it will no longer own to their new owners. Nobody routes
+ *     by the new ring yet, so the copies are not visible and members keep serving every product. Reservations are
+ *     not moved, so a member refuses to prepare while any of those products has one active, and takes no new ones
+ *     on them until the commit. If a member fails to prepare, the join is aborted everywhere and the new node drops
+ *     the copies it got.</li>
+ *     <li>Commit: every member, the new one first, switches to the new ring and from then on redirects the
+ *     moved products to their new owners. The switch waits for the writes already in progress, so from then on the
+ *     rows a former owner hands off no longer change. Each former owner then sends them as they are, with their
+ *     versions, along with the products it deleted since the prepare, and deletes its own rows only once the new
+ *     owner has them. A handoff that fails is retried; the rows stay with their former owner meanwhile.</li>
+ * </ol>
+ * A new owner refuses writes to the products it takes over until their former owner has handed them off, since
+ * the rows it receives replace its copies, so no write on either side is lost. Joins are refused while any member is
+ * still rebalancing.
+ */
+@Component
+public class ShardCoordinator implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardCoordinator.class);
+
+    private static final String SELECT_ROWS_SQL =
+            "select product_id, quantity, reorder_threshold, version from inventory";
+    private static final String SELECT_RESERVED_SQL =
+            "select distinct product_id from reservation where status = 'ACTIVE'";
+
+    private final ShardRouter shardRouter;
+    private final ShardClient shardClient;
+    private final ShardProperties properties;
+    private final InventoryService inventoryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService rebalancer = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("shard-rebalancer").daemon().factory());
+    private final LongAdder handedOff = new LongAdder();
+    // Not synchronized: both are held while calling other nodes, and a virtual thread would pin its carrier meanwhile.
+    // Only the coordinator takes the first, and nothing holding the second waits for another node's locks.
+    private final ReentrantLock joinLock = new ReentrantLock();
+    private final ReentrantLock memberLock = new ReentrantLock();
+    private volatile boolean rebalancing;
+    private Prepared prepared;
+
+    public ShardCoordinator(ShardRouter shardRouter, ShardClient shardClient, ShardProperties properties,
+                            InventoryService inventoryService, JdbcTemplate jdbcTemplate) {
+        this.shardRouter = shardRouter;
+        this.shardClient = shardClient;
+        this.properties = properties;
+        this.inventoryService = inventoryService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Joins the cluster through the seed, if one is configured, in the background and retrying until it succeeds.
+     * Until the join commits, this node routes by the seed's ring, which does not include it, so it serves nothing
+     * itself.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void joinOnStartup() {
+        if (!shardRouter.enabled() || properties.seed() == null) {
+            return;
+        }
+        rebalancer.execute(this::joinThroughSeed);
+    }
+
+    /**
+     * Adds {@code url} to the cluster and moves every member to the new ring, or passes the request on to the
+     * coordinator if this node is not it.
+     *
+     * @throws ShardRebalancingException if a member is still rebalancing after an earlier join
+     */
+    public ClusterStatusDTO join(String url) {
+        String coordinator = shardRouter.nodes().getFirst();
+        if (!coordinator.equals(properties.self())) {
+            return shardClient.join(coordinator, url);
+        }
+        joinLock.lock();
+        try {
+            List<String> current = shardRouter.nodes();
+            if (current.contains(url)) {
+                return status();
+            }
+            for (String node : current) {
+                ClusterStatusDTO member = node.equals(properties.self()) ? status() : shardClient.status(node);
+                if (member.rebalancing()) {
+                    throw new ShardRebalancingException();
+                }
+            }
+            TreeSet<String> members = new TreeSet<>(current);
+            members.add(url);
+            List<String> nodes = List.copyOf(members);
+            try {
+                for (String node : current) {
+                    if (node.equals(properties.self())) {
+                        prepare(nodes);
+                    } else {
+                        shardClient.prepare(node, nodes);
+                    }
+                }
+            } catch (RuntimeException e) {
+                abortOn(nodes);
+                throw e;
+            }
+            // The new member first: it has to be waiting for the handoffs before the former owners start them.
+            commitOn(url, nodes);
+            for (String node : current) {
+                commitOn(node, nodes);
+            }
+            log.info("Nodo {} añadido al clúster: {}", url, nodes);
+            return status();
+        } finally {
+            joinLock.unlock();
+        }
+    }
+
+    /**
+     * Copies the rows this node will not own under the new ring to their new owners, and takes no reservations of
+     * them until the commit.
+     *
+     * @throws ShardRebalancingException if one of those products has an active reservation
+     */
+    public void prepare(List<String> nodes) {
+        memberLock.lock();
+        try {
+            HashRing next = shardRouter.ringOf(nodes);
+            shardRouter.prepare(next, () -> requireNoReservationsMoving(next));
+            Set<Long> copied = new HashSet<>();
+            Map<String, List<HandoffRowDTO>> byOwner = new LinkedHashMap<>();
+            jdbcTemplate.query(SELECT_ROWS_SQL, rs -> {
+                HandoffRowDTO row = toRow(rs);
+                String owner = next.ownerOf(row.productId());
+                if (!owner.equals(properties.self())) {
+                    copied.add(row.productId());
+                    byOwner.computeIfAbsent(owner, node -> new ArrayList<>()).add(row);
+                }
+            });
+            try {
+                byOwner.forEach((owner, rows) -> logMissing(owner,
+                        shardClient.handoff(owner, properties.self(), rows, List.of(), false)));
+            } catch (RuntimeException e) {
+                shardRouter.abortPrepare();
+                throw e;
+            }
+            prepared = new Prepared(next.nodes(), copied);
+            log.info("{} productos copiados a sus nuevos nodos", copied.size());
+        } finally {
+            memberLock.unlock();
+        }
+    }
+
+    /**
+     * Switches to the new ring and, in the background, hands off the products this node no longer owns. Committing
+     * the ring this node is already on does nothing, so a commit can be repeated.
+     */
+    public void commit(List<String> nodes) {
+        memberLock.lock();
+        try {
+            HashRing current = shardRouter.ring();
+            HashRing next = shardRouter.ringOf(nodes);
+            if (current.nodes().equals(next.nodes())) {
+                return;
+            }
+            boolean member = current.nodes().contains(properties.self());
+            if (!member) {
+                // The ring followed from the seed may predate other joins; the members are the new ring without us.
+                current = shardRouter.ringOf(nodes.stream().filter(node -> !node.equals(properties.self())).toList());
+                shardRouter.follow(current);
+            }
+            Set<String> awaited = new HashSet<>(member ? List.of() : current.nodes());
+            shardRouter.switchTo(next, awaited);
+            Prepared handoff = prepared;
+            prepared = null;
+            if (!member) {
+                return;
+            }
+            Set<Long> copied = handoff != null && handoff.nodes().equals(next.nodes()) ? handoff.copied() : Set.of();
+            List<String> before = current.nodes();
+            List<String> receivers = next.nodes().stream().filter(node -> !before.contains(node)).toList();
+            rebalancing = true;
+            rebalancer.execute(() -> finishHandoff(receivers, copied));
+        } finally {
+            memberLock.unlock();
+        }
+    }
+
+    /**
+     * Drops a prepared ring that will not be committed: reservations are taken again and, on a node that is not a
+     * member yet, the rows copied to it are deleted, since it serves none of them.
+     */
+    public void abort(List<String> nodes) {
+        memberLock.lock();
+        try {
+            if (shardRouter.nodes().equals(nodes)) {
+                return;
+            }
+            shardRouter.abortPrepare();
+            prepared = null;
+            if (!shardRouter.nodes().contains(properties.self())) {
+                List<Long> copies = jdbcTemplate.queryForList("select product_id from inventory", Long.class);
+                copies.forEach(inventoryService::deleteById);
+                log.info("Anillo {} cancelado; {} productos copiados descartados", nodes, copies.size());
+            } else {
+                log.info("Anillo {} cancelado", nodes);
+            }
+        } finally {
+            memberLock.unlock();
+        }
+    }
+
+    /**
+     * Stores what another node hands off to this one.
+     *
+     * @return the products left out because they no longer exist
+     */
+    public List<Long> receive(HandoffBatchDTO batch) {
+        List<Long> missing = batch.rows().isEmpty() ? List.of() : inventoryService.importRows(batch.rows());
+        batch.deleted().forEach(inventoryService::deleteById);
+        if (batch.complete()) {
+            shardRouter.handedOff(batch.from());
+            log.info("Traspaso del nodo {} recibido", batch.from());
+        }
+        return missing;
+    }
+
+    public ClusterStatusDTO status() {
+        return new ClusterStatusDTO(properties.self(), shardRouter.nodes(),
+                rebalancing || shardRouter.awaitsHandoff(), handedOff.sum());
+    }
+
+    @Override
+    public void destroy() {
+        rebalancer.shutdownNow();
+    }
+
+    private void joinThroughSeed() {
+        while (true) {
+            try {
+                shardRouter.follow(shardRouter.ringOf(shardClient.status(properties.seed()).nodes()));
+                shardClient.join(properties.seed(), properties.self());
+                log.info("Nodo {} unido al clúster: {}", properties.self(), shardRouter.nodes());
+                return;
+            } catch (ShardUnavailableException e) {
+                log.warn("No se pudo unir el nodo {} al clúster a través de {}; se reintenta en {}", properties.self(),
+                        properties.seed(), properties.joinRetryInterval(), e);
+            }
+            if (!pauseBeforeRetry()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Aborts the join on every node of the new ring. A node that cannot be reached keeps refusing some reservations
+     * until the next join commits, but it is not left inconsistent.
+     */
+    private void abortOn(List<String> nodes) {
+        for (String node : nodes) {
+            try {
+                if (node.equals(properties.self())) {
+                    abort(nodes);
+                } else {
+                    shardClient.abort(node, nodes);
+                }
+            } catch (ShardUnavailableException e) {
+                log.warn("No se pudo cancelar el anillo {} en el nodo {}", nodes, node, e);
+            }
+        }
+    }
+
+    private void requireNoReservationsMoving(HashRing next) {
+        List<Long> moving = jdbcTemplate.queryForList(SELECT_RESERVED_SQL, Long.class).stream()
+                .filter(productId -> !next.ownerOf(productId).equals(properties.self()))
+                .toList();
+        if (!moving.isEmpty()) {
+            log.info("No se prepara el anillo {}: {} productos que cambian de nodo tienen reservas activas",
+                    next.nodes(), moving.size());
+            throw new ShardRebalancingException(moving.getFirst());
+        }
+    }
+
+    /**
+     * Commits the new ring on {@code node}, retrying until it succeeds: a member left on the old ring would keep
+     * taking writes to products that have moved.
+     */
+    private void commitOn(String node, List<String> nodes) {
+        while (true) {
+            try {
+                if (node.equals(properties.self())) {
+                    commit(nodes);
+                } else {
+                    shardClient.commit(node, nodes);
+                }
+                return;
+            } catch (ShardUnavailableException e) {
+                log.warn("No se pudo confirmar el nuevo anillo en el nodo {}; se reintenta en {}", node,
+                        properties.joinRetryInterval(), e);
+            }
+            if (!pauseBeforeRetry()) {
+                return;
+            }
+        }
+    }
+
+    private void finishHandoff(List<String> receivers, Set<Long> copied) {
+        Set<String> done = new HashSet<>();
+        try {
+            while (true) {
+                try {
+                    handOff(receivers, copied, done);
+                    return;
+                } catch (RuntimeException e) {
+                    log.warn("El traspaso no terminó; los productos no entregados siguen en este nodo y se reintenta en {}",
+                            properties.joinRetryInterval(), e);
+                }
+                if (!pauseBeforeRetry()) {
+                    return;
+                }
+            }
+        } finally {
+            rebalancing = false;
+        }
+    }
+
+    /**
+     * Sends every row this node no longer owns to its owner, with the copied products it deleted since, and drops
+     * the rows once the owner has them. Nothing writes to them any more: the ring switch waited for the writes in
+     * progress, and later ones are redirected. Owners in {@code done} already have theirs and may have taken writes
+     * since, so they are skipped.
+     */
+    private void handOff(List<String> receivers, Set<Long> copied, Set<String> done) {
+        Map<String, List<HandoffRowDTO>> rows = new LinkedHashMap<>();
+        Map<String, List<Long>> deleted = new LinkedHashMap<>();
+        for (String receiver : receivers) {
+            rows.put(receiver, new ArrayList<>());
+            deleted.put(receiver, new ArrayList<>());
+        }
+        Set<Long> held = new HashSet<>();
+        jdbcTemplate.query(SELECT_ROWS_SQL, rs -> {
+            HandoffRowDTO row = toRow(rs);
+            held.add(row.productId());
+            String owner = shardRouter.ownerOf(row.productId());
+            if (!owner.equals(properties.self())) {
+                rows.computeIfAbsent(owner, node -> new ArrayList<>()).add(row);
+            }
+        });
+        for (Long productId : copied) {
+            if (!held.contains(productId)) {
+                deleted.computeIfAbsent(shardRouter.ownerOf(productId), node -> new ArrayList<>()).add(productId);
+            }
+        }
+        Set<String> owners = new LinkedHashSet<>(rows.keySet());
+        owners.addAll(deleted.keySet());
+        owners.removeAll(done);
+        for (String owner : owners) {
+            List<HandoffRowDTO> moved = rows.getOrDefault(owner, List.of());
+            List<Long> gone = deleted.getOrDefault(owner, List.of());
+            logMissing(owner, shardClient.handoff(owner, properties.self(), moved, gone, true));
+            for (HandoffRowDTO row : moved) {
+                inventoryService.deleteById(row.productId());
+            }
+            done.add(owner);
+            handedOff.add(moved.size());
+            log.info("{} productos entregados y {} borrados comunicados al nodo {}", moved.size(), gone.size(), owner);
+        }
+    }
+
+    private boolean pauseBeforeRetry() {
+        try {
+            Thread.sleep(properties.joinRetryInterval());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void logMissing(String node, List<Long> missing) {
+        if (!missing.isEmpty()) {
+            log.warn("El nodo {} descartó {} productos que ya no existen: {}", node, missing.size(), missing);
+        }
+    }
+
+    private static HandoffRowDTO toRow(ResultSet rs) throws SQLException {
+        return new HandoffRowDTO(rs.getLong("product_id"), rs.getInt("quantity"), rs.getInt("reorder_threshold"),
+                rs.getLong("version"));
+    }
+
+    private record Prepared(List<String> nodes, Set<Long> copied) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.vimofama.inventoryservice.shard;
+
+import com.vimofama.inventoryservice.dto.BulkInventoryResultDTO;
+import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import com.vimofama.inventoryservice.dto.StockMovementDTO;
+import com.vimofama.inventoryservice.dto.StockMovementResultDTO;
+import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.service.InventoryService;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Inventory operations that span several products, and so possibly several nodes. Without sharding, or for a
+ * request another node forwarded, they run locally as before.
+ * <p>
+ * Batches are split by owner: this node's share runs locally and every other share is forwarded to its owner,
+ * one call per node, and the results are put back together in the order of the request. Shares are not atomic
+ * across nodes; if a node fails, the shares already applied elsewhere stay applied. The split and the local share
+ * run inside the {@linkplain ShardRouter write fence}, and a node refuses a forwarded share it no longer owns.
+ */
+@Service
+public class ShardGateway {
+
+    private final InventoryService inventoryService;
+    private final ShardRouter shardRouter;
+    private final ShardClient shardClient;
+
+    public ShardGateway(InventoryService inventoryService, ShardRouter shardRouter, ShardClient shardClient) {
+        this.inventoryService = inventoryService;
+        this.shardRouter = shardRouter;
+        this.shardClient = shardClient;
+    }
+
+    /**
+     * Every row of every node, ordered by product id (row ids are only unique within a node).
+     * <p>
+     * Nodes answer with every row they hold, which while rebalancing includes the copies a new owner got at the
+     * prepare and the rows a former owner has not handed off yet. Each node's rows are kept only for the products
+     * it owns by this node's ring, so every product is listed once, from the node this one would route it to.
+     */
+    public List<Inventory> findAll() {
+        if (!shardRouter.enabled() || shardRouter.isForwarded()) {
+            return inventoryService.readAll();
+        }
+        HashRing ring = shardRouter.ring();
+        List<Inventory> all = new ArrayList<>();
+        for (String node : ring.nodes()) {
+            List<Inventory> held = node.equals(shardRouter.self()) ? inventoryService.readAll() : shardClient.findAll(node);
+            for (Inventory inventory : held) {
+                if (node.equals(ring.ownerOf(inventory.getProductId()))) {
+                    all.add(inventory);
+                }
+            }
+        }
+        all.sort(Comparator.comparing(Inventory::getProductId));
+        return all;
+    }
+
+    public List<StockMovementResultDTO> applyMovements(List<StockMovementDTO> movements) {
+        if (!shardRouter.enabled()) {
+            return inventoryService.applyMovements(movements);
+        }
+        if (shardRouter.isForwarded()) {
+            return shardRouter.writeForwarded(productIds(movements, StockMovementDTO::productId),
+                    () -> inventoryService.applyMovements(movements));
+        }
+        // Rejects the whole batch before any share is applied
+        InventoryService.netMovements(movements);
+        StockMovementResultDTO[] results = new StockMovementResultDTO[movements.size()];
+        Map<String, List<Integer>> remote = runLocalShare(movements, StockMovementDTO::productId, (positions, local) -> {
+            List<StockMovementResultDTO> localResults = inventoryService.applyMovements(local);
+            for (int i = 0; i < localResults.size(); i++) {
+                results[positions.get(i)] = localResults.get(i);
+            }
+        });
+        for (Map.Entry<String, List<Integer>> share : remote.entrySet()) {
+            List<StockMovementResultDTO> shareResults = shardClient.applyMovements(share.getKey(),
+                    share.getValue().stream().map(movements::get).toList());
+            for (int i = 0; i < shareResults.size(); i++) {
+                results[share.getValue().get(i)] = shareResults.get(i);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    public BulkInventoryResultDTO saveAll(List<CreateInventoryDTO> items) {
+        if (!shardRouter.enabled()) {
+            return inventoryService.saveAll(items);
+        }
+        if (shardRouter.isForwarded()) {
+            return shardRouter.writeForwarded(productIds(items, CreateInventoryDTO::productId),
+                    () -> inventoryService.saveAll(items));
+        }
+        List<Inventory> created = new ArrayList<>();
+        List<BulkInventoryResultDTO.Rejected> rejected = new ArrayList<>();
+        Map<String, List<Integer>> remote = runLocalShare(items, CreateInventoryDTO::productId, (positions, local) -> {
+            BulkInventoryResultDTO result = inventoryService.saveAll(local);
+            created.addAll(result.created());
+            rejected.addAll(result.rejected());
+        });
+        for (Map.Entry<String, List<Integer>> share : remote.entrySet()) {
+            BulkInventoryResultDTO result = shardClient.saveAll(share.getKey(),
+                    share.getValue().stream().map(items::get).toList());
+            created.addAll(result.created());
+            rejected.addAll(result.rejected());
+        }
+        return new BulkInventoryResultDTO(created, rejected);
+    }
+
+    /**
+     * Splits the items by owner and, inside the write fence, runs this node's share with its positions in the
+     * request.
+     *
+     * @return the positions of the items owned by each other node, in request order
+     */
+    private <T> Map<String, List<Integer>> runLocalShare(List<T> items, Function<T, Long> productId,
+                                                         BiConsumer<List<Integer>, List<T>> local) {
+        shardRouter.beginWrite();
+        try {
+            Map<String, List<Integer>> positions = new LinkedHashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                positions.computeIfAbsent(shardRouter.ownerOf(productId.apply(items.get(i))), node -> new ArrayList<>()).add(i);
+            }
+            List<Integer> localPositions = positions.remove(shardRouter.self());
+            if (localPositions != null) {
+                List<T> localItems = localPositions.stream().map(items::get).toList();
+                localItems.forEach(item -> shardRouter.requireWritable(productId.apply(item)));
+                local.accept(localPositions, localItems);
+            }
+            return positions;
+        } finally {
+            shardRouter.endWrite();
+        }
+    }
+
+    private static <T> List<Long> productIds(List<T> items, Function<T, Long> productId) {
+        return items.stream().map(productId).toList();
+    }
+}
@@ -0,0 +1,33 @@
+package com.vimofama.inventoryservice.shard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @param enabled           partition inventory by product id across {@link #nodes}; off, this node holds everything
+ * @param self              base URL other nodes and clients reach this node at
+ * @param nodes             base URLs of every node of the cluster, this one included; empty when joining through
+ *                          {@link #seed}
+ * @param seed              base URL of a running node to join through on startup instead of a fixed node list
+ * @param secret            shared by every node and sent on each call between them; required with sharding on
+ * @param virtualNodes      points per node on the hash ring; more points spread products more evenly
+ * @param requestTimeout    connect and read timeout of calls to other nodes
+ * @param joinTimeout       read timeout of the calls that change membership or hand rows off, which may move many rows
+ * @param joinRetryInterval how long a node waits before trying a failed join, commit or handoff again
+ */
+@ConfigurationProperties(prefix = "inventory.shard")
+public record ShardProperties(
+        @DefaultValue("false") boolean enabled,
+        String self,
+        @DefaultValue List<String> nodes,
+        String seed,
+        String secret,
+        @DefaultValue("128") int virtualNodes,
+        @DefaultValue("2s") Duration requestTimeout,
+        @DefaultValue("5m") Duration joinTimeout,
+        @DefaultValue("5s") Duration joinRetryInterval
+) {
+}
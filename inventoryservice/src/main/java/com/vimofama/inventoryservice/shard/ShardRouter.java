@@ -0,0 +1,250 @@
+package com.vimofama.inventoryservice.shard;
+
+import com.vimofama.inventoryservice.exception.NotShardOwnerException;
+import com.vimofama.inventoryservice.exception.ShardRebalancingException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Decides which node owns each product, from the current {@link HashRing}. With sharding off every product is
+ * local.
+ * <p>
+ * Writes run inside the write fence, which a ring switch waits for: once the switch returns, no write that checked
+ * ownership against the old ring is still running, so the rows this node hands off no longer change. Products this
+ * node has taken over refuse writes until their former owner has handed them off, since its rows would replace
+ * whatever was written here meanwhile. From the prepare of a new ring until its commit, products that would move
+ * take no new reservations: reservations stay on the node that took them, so none may be active on a product that
+ * changes owner.
+ * <p>
+ * Requests other nodes send on behalf of a client carry {@value #FORWARDED_HEADER} and are not routed again, though
+ * a forwarded write is still refused if the sender routed it by a ring this node has left behind. The header holds
+ * the cluster's shared secret; with any other value it is ignored, so clients can neither skip routing nor call the
+ * cluster endpoints.
+ */
+@Component
+public class ShardRouter {
+
+    public static final String FORWARDED_HEADER = "X-Shard-Forwarded";
+
+    private final ShardProperties properties;
+    private final ReadWriteLock fence = new ReentrantReadWriteLock();
+    private final Set<String> awaitedOwners = ConcurrentHashMap.newKeySet();
+    private volatile HashRing ring;
+    private volatile HashRing previous;
+    private volatile HashRing preparing;
+
+    public ShardRouter(ShardProperties properties) {
+        if (properties.enabled() && (properties.secret() == null || properties.secret().isBlank())) {
+            throw new IllegalStateException("inventory.shard.secret es obligatorio con el particionado activado");
+        }
+        this.properties = properties;
+        List<String> nodes = properties.nodes().isEmpty() && properties.self() != null
+                ? List.of(properties.self())
+                : properties.nodes();
+        this.ring = new HashRing(nodes, properties.virtualNodes());
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    public String self() {
+        return properties.self();
+    }
+
+    public List<String> nodes() {
+        return ring.nodes();
+    }
+
+    public String ownerOf(Long productId) {
+        return ring.ownerOf(productId);
+    }
+
+    /**
+     * Whether the product belongs here: sharding is off or this node owns it.
+     */
+    public boolean servesLocally(Long productId) {
+        return !enabled() || properties.self().equals(ring.ownerOf(productId));
+    }
+
+    /**
+     * @throws NotShardOwnerException if the product belongs to another node
+     */
+    public void requireLocal(Long productId) {
+        if (!servesLocally(productId)) {
+            throw new NotShardOwnerException(productId, ring.ownerOf(productId));
+        }
+    }
+
+    /**
+     * @throws NotShardOwnerException     if the product belongs to another node
+     * @throws ShardRebalancingException if this node is still waiting for the product from its former owner
+     */
+    public void requireWritable(Long productId) {
+        requireLocal(productId);
+        if (isAwaited(productId)) {
+            throw new ShardRebalancingException(productId);
+        }
+    }
+
+    /**
+     * Runs a write of the product inside the write fence.
+     *
+     * @throws NotShardOwnerException     if the product belongs to another node
+     * @throws ShardRebalancingException if this node is still waiting for the product from its former owner
+     */
+    public <T> T write(Long productId, Supplier<T> write) {
+        if (!enabled()) {
+            return write.get();
+        }
+        beginWrite();
+        try {
+            requireWritable(productId);
+            return write.get();
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Runs a reservation of the product inside the write fence, like {@link #write}.
+     *
+     * @throws NotShardOwnerException     if the product belongs to another node
+     * @throws ShardRebalancingException if the product is still being handed off or moves under the ring being
+     *                                   prepared
+     */
+    public <T> T reserve(Long productId, Supplier<T> reservation) {
+        return write(productId, () -> {
+            HashRing next = preparing;
+            if (next != null && !properties.self().equals(next.ownerOf(productId))) {
+                throw new ShardRebalancingException(productId);
+            }
+            return reservation.get();
+        });
+    }
+
+    /**
+     * Runs a write another node forwarded inside the write fence. Every product has to be writable here; if the
+     * sender routed by a ring this node has already left behind, nothing is written.
+     *
+     * @throws ShardRebalancingException if a product belongs to another node or is still being handed off
+     */
+    public <T> T writeForwarded(Collection<Long> productIds, Supplier<T> write) {
+        beginWrite();
+        try {
+            for (Long productId : productIds) {
+                if (!servesLocally(productId) || isAwaited(productId)) {
+                    throw new ShardRebalancingException(productId);
+                }
+            }
+            return write.get();
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Enters the write fence; every call must be paired with {@link #endWrite()} on the same thread.
+     */
+    public void beginWrite() {
+        fence.readLock().lock();
+    }
+
+    public void endWrite() {
+        fence.readLock().unlock();
+    }
+
+    /**
+     * Whether the current request was sent by another node of the cluster, that is, it carries the shared secret.
+     */
+    public boolean isForwarded() {
+        if (properties.secret() == null
+                || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes servlet)) {
+            return false;
+        }
+        String secret = servlet.getRequest().getHeader(FORWARDED_HEADER);
+        return secret != null && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                properties.secret().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Whether this node still waits for products from a former owner.
+     */
+    public boolean awaitsHandoff() {
+        return !awaitedOwners.isEmpty();
+    }
+
+    HashRing ring() {
+        return ring;
+    }
+
+    HashRing ringOf(List<String> nodes) {
+        return new HashRing(nodes, properties.virtualNodes());
+    }
+
+    /**
+     * Adopts another node's ring, for a node that is not a member yet.
+     */
+    void follow(HashRing ring) {
+        this.ring = ring;
+    }
+
+    /**
+     * Stops reservations of the products that move under {@code next} once the writes in progress are done, then
+     * runs {@code check} while no write can start. If the check fails, reservations are taken again.
+     */
+    void prepare(HashRing next, Runnable check) {
+        fence.writeLock().lock();
+        try {
+            preparing = next;
+            check.run();
+        } catch (RuntimeException e) {
+            preparing = null;
+            throw e;
+        } finally {
+            fence.writeLock().unlock();
+        }
+    }
+
+    void abortPrepare() {
+        preparing = null;
+    }
+
+    /**
+     * Switches to a new ring once the writes in progress are done.
+     *
+     * @param awaited former owners of the products this node takes over, which it refuses writes to until each
+     *                owner has {@linkplain #handedOff handed them off}
+     */
+    void switchTo(HashRing next, Set<String> awaited) {
+        fence.writeLock().lock();
+        try {
+            previous = ring;
+            ring = next;
+            preparing = null;
+            awaitedOwners.addAll(awaited);
+        } finally {
+            fence.writeLock().unlock();
+        }
+    }
+
+    void handedOff(String owner) {
+        awaitedOwners.remove(owner);
+    }
+
+    private boolean isAwaited(Long productId) {
+        HashRing before = previous;
+        return before != null && !awaitedOwners.isEmpty() && awaitedOwners.contains(before.ownerOf(productId));
+    }
+}
@@ -0,0 +1,74 @@
+package com.vimofama.inventoryservice.shard;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Sends requests to handlers marked {@link ShardedByProduct} to the node owning the product they name. The
+ * {@link com.vimofama.inventoryservice.exception.NotShardOwnerException} it throws becomes a redirect. Anything but a
+ * read runs inside the {@linkplain ShardRouter write fence} until the request completes.
+ */
+@Component
+public class ShardRoutingInterceptor implements HandlerInterceptor {
+
+    private static final String IN_WRITE_FENCE = ShardRoutingInterceptor.class.getName() + ".inWriteFence";
+
+    private final ShardRouter shardRouter;
+
+    public ShardRoutingInterceptor(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!shardRouter.enabled() || !(handler instanceof HandlerMethod method)
+                || !method.hasMethodAnnotation(ShardedByProduct.class)) {
+            return true;
+        }
+        String name = method.getMethodAnnotation(ShardedByProduct.class).value();
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = variables == null ? null : variables.get(name);
+        if (id == null) {
+            id = request.getParameter(name);
+        }
+        if (id == null) {
+            return true;
+        }
+        Long productId;
+        try {
+            productId = Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            // Left to the handler, which rejects it like any malformed id
+            return true;
+        }
+        if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())) {
+            shardRouter.requireLocal(productId);
+            return true;
+        }
+        shardRouter.beginWrite();
+        try {
+            shardRouter.requireWritable(productId);
+        } catch (RuntimeException e) {
+            shardRouter.endWrite();
+            throw e;
+        }
+        request.setAttribute(IN_WRITE_FENCE, true);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(IN_WRITE_FENCE) != null) {
+            request.removeAttribute(IN_WRITE_FENCE);
+            shardRouter.endWrite();
+        }
+    }
+}
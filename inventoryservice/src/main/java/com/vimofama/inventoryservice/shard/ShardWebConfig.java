@@ -0,0 +1,20 @@
+package com.vimofama.inventoryservice.shard;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ShardWebConfig implements WebMvcConfigurer {
+
+    private final ShardRoutingInterceptor shardRoutingInterceptor;
+
+    public ShardWebConfig(ShardRoutingInterceptor shardRoutingInterceptor) {
+        this.shardRoutingInterceptor = shardRoutingInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(shardRoutingInterceptor).addPathPatterns("/api/inventory/**");
+    }
+}
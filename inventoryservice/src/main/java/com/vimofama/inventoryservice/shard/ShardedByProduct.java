@@ -0,0 +1,23 @@
+package com.vimofama.inventoryservice.shard;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler whose {@code {id}} path variable, or the path variable or request parameter named by
+ * {@link #value()}, is a product id, so {@link ShardRoutingInterceptor} sends the request to the node owning that
+ * product.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardedByProduct {
+
+    /**
+     * Path variable or, failing that, request parameter holding the product id.
+     */
+    String value() default "id";
+}
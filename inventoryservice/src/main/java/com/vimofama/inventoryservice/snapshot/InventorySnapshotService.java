@@ -0,0 +1,419 @@
+package com.vimofama.inventoryservice.snapshot;
+
+import com.vimofama.inventoryservice.event.MovementType;
+import com.vimofama.inventoryservice.event.RowVersion;
+import com.vimofama.inventoryservice.journal.JournalRecord;
+import com.vimofama.inventoryservice.journal.MovementJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Periodically writes a compact binary snapshot of every inventory row and active reservation and, on startup,
+ * rebuilds an empty inventory table and its reservations from the latest snapshot plus the movement journal
+ * records appended after it. The rebuild runs while the context starts, before any service loads in-memory state
+ * such as stock counters or expiry timers from those tables.
+ * <p>
+ * The snapshot remembers the last journal sequence taken before the rows were read, so replaying from there can
+ * only repeat changes the snapshot already contains. Replay keeps, per product, the newest record by row id and
+ * version, and a snapshot row is only replaced by a journal record that is newer than it. Rows go back in
+ * through plain JDBC batches, skipping JPA entirely, and the id sequence restarts past every row id seen, deleted
+ * ones included, so a new row never reuses the id of one the journal still remembers.
+ * <p>
+ * Reservations follow the same rule: one active in the snapshot or created in the journal stays active unless
+ * the journal ends it, and the reservation id sequence restarts past every reservation id seen.
+ * <p>
+ * Snapshot layout: magic, format, journal sequence, row count, then {@value #ROW_SIZE}-byte rows of id,
+ * productId, quantity, version, last update (epoch millis) and reorder threshold, then the reservation count and
+ * {@value #RESERVATION_SIZE}-byte reservations of id, productId, quantity, creation and expiry (epoch millis).
+ * Format 2 snapshots lack the reservations, and format 1 snapshots, written before thresholds existed, also lack
+ * the last row field and restore with a threshold of zero.
+ */
+@Component
+public class InventorySnapshotService implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(InventorySnapshotService.class);
+
+    private static final int MAGIC = 0x494E5653;
+    private static final int FORMAT = 3;
+    private static final int FORMAT_WITHOUT_RESERVATIONS = 2;
+    private static final int FORMAT_WITHOUT_THRESHOLD = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int ROW_COUNT_OFFSET = 16;
+    static final int ROW_SIZE = 40;
+    private static final int ROW_SIZE_WITHOUT_THRESHOLD = 36;
+    static final int RESERVATION_SIZE = 36;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int INSERT_BATCH_SIZE = 5000;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})\\.bin");
+
+    private static final String SELECT_ROWS_SQL =
+            "select id, product_id, quantity, version, last_update, reorder_threshold from inventory order by id";
+    private static final String INSERT_ROW_SQL =
+            "insert into inventory (id, product_id, quantity, version, last_update, reorder_threshold) " +
+            "values (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_RESERVATIONS_SQL =
+            "select id, product_id, quantity, created_at, expires_at from reservation where status = 'ACTIVE' order by id";
+    private static final String INSERT_RESERVATION_SQL =
+            "insert into reservation (id, product_id, quantity, status, created_at, expires_at) " +
+            "values (?, ?, ?, 'ACTIVE', ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MovementJournal movementJournal;
+    private final SnapshotProperties properties;
+
+    public InventorySnapshotService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    MovementJournal movementJournal, SnapshotProperties properties) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.movementJournal = movementJournal;
+        this.properties = properties;
+        Files.createDirectories(properties.directory());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        restore();
+    }
+
+    @Scheduled(initialDelayString = "${inventory.snapshot.interval:5m}", fixedDelayString = "${inventory.snapshot.interval:5m}")
+    public void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("No se pudo escribir el snapshot de inventario", e);
+        }
+    }
+
+    public synchronized Path snapshot() {
+        long start = System.nanoTime();
+        // Taken before reading the rows: every record up to here is already committed and part of the read
+        long sequence = movementJournal.lastSequence();
+        Path target = properties.directory().resolve("snapshot-%020d.bin".formatted(sequence));
+        Path temp = properties.directory().resolve(target.getFileName() + ".tmp");
+
+        long rows;
+        long reservations;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(FORMAT).putLong(sequence).putLong(0);
+            long[] count = new long[2];
+            readOnlyTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.query(SELECT_ROWS_SQL, rs -> {
+                    if (buffer.remaining() < ROW_SIZE) {
+                        drain(channel, buffer);
+                    }
+                    Timestamp lastUpdate = rs.getTimestamp("last_update");
+                    buffer.putLong(rs.getLong("id"))
+                            .putLong(rs.getLong("product_id"))
+                            .putInt(rs.getInt("quantity"))
+                            .putLong(rs.getLong("version"))
+                            .putLong(lastUpdate == null ? NO_TIMESTAMP : lastUpdate.getTime())
+                            .putInt(rs.getInt("reorder_threshold"));
+                    count[0]++;
+                });
+                if (buffer.remaining() < Long.BYTES) {
+                    drain(channel, buffer);
+                }
+                buffer.putLong(0);
+                jdbcTemplate.query(SELECT_RESERVATIONS_SQL, rs -> {
+                    if (buffer.remaining() < RESERVATION_SIZE) {
+                        drain(channel, buffer);
+                    }
+                    buffer.putLong(rs.getLong("id"))
+                            .putLong(rs.getLong("product_id"))
+                            .putInt(rs.getInt("quantity"))
+                            .putLong(rs.getTimestamp("created_at").getTime())
+                            .putLong(rs.getTimestamp("expires_at").getTime());
+                    count[1]++;
+                });
+            });
+            drain(channel, buffer);
+            rows = count[0];
+            reservations = count[1];
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, rows), ROW_COUNT_OFFSET);
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, reservations), HEADER_SIZE + rows * ROW_SIZE);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el snapshot " + target, e);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (Path older : snapshots()) {
+                if (!older.equals(target)) {
+                    Files.deleteIfExists(older);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo publicar el snapshot " + target, e);
+        }
+        int deletedSegments = properties.truncateJournal() ? movementJournal.deleteSegmentsUpTo(sequence) : 0;
+        log.info("Snapshot de inventario escrito: {} filas y {} reservas activas hasta la secuencia {} en {} ms ({} segmentos de journal eliminados)",
+                rows, reservations, sequence, (System.nanoTime() - start) / 1_000_000, deletedSegments);
+        return target;
+    }
+
+    /**
+     * Rebuilds the inventory table and the active reservations from the latest snapshot and the journal, unless
+     * the inventory table already has rows.
+     *
+     * @return number of rows restored
+     */
+    public synchronized long restore() {
+        Long existing = jdbcTemplate.queryForObject("select count(*) from inventory", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("La tabla de inventario ya tiene {} filas, no se restaura el snapshot", existing);
+            return 0;
+        }
+        long start = System.nanoTime();
+        Path snapshot = latestSnapshot();
+        long snapshotSequence = snapshot == null ? 0 : sequenceOf(snapshot);
+        if (snapshotSequence > movementJournal.lastSequence()) {
+            log.warn("El snapshot {} es posterior a la última secuencia del journal ({})", snapshot, movementJournal.lastSequence());
+        }
+
+        Map<Long, JournalRecord> newest = new HashMap<>();
+        Map<Long, ReservationRow> reservations = new LinkedHashMap<>();
+        Set<Long> endedReservations = new HashSet<>();
+        long[] replayed = new long[1];
+        long[] maxId = new long[1];
+        long[] maxReservationId = new long[1];
+        movementJournal.replay(snapshotSequence, record -> {
+            replayed[0]++;
+            if (record.type().isReservation()) {
+                maxReservationId[0] = Math.max(maxReservationId[0], record.inventoryId());
+                if (record.type() == MovementType.RESERVED) {
+                    reservations.put(record.inventoryId(), new ReservationRow(record.inventoryId(), record.productId(),
+                            record.quantity(), record.timestamp().toEpochMilli(), record.version()));
+                } else {
+                    reservations.remove(record.inventoryId());
+                    endedReservations.add(record.inventoryId());
+                }
+                return;
+            }
+            maxId[0] = Math.max(maxId[0], record.inventoryId());
+            newest.merge(record.productId(), record, (current, candidate) ->
+                    RowVersion.isNewer(candidate.inventoryId(), candidate.version(), current.inventoryId(), current.version()) ? candidate : current);
+        });
+
+        RowBatch batch = new RowBatch();
+        long restored = 0;
+        long snapshotRows = 0;
+        if (snapshot != null) {
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                buffer.limit(0);
+                readFully(channel, buffer, HEADER_SIZE);
+                int magic = buffer.getInt();
+                int format = buffer.getInt();
+                if (magic != MAGIC || format < FORMAT_WITHOUT_THRESHOLD || format > FORMAT) {
+                    throw new IllegalStateException("Formato de snapshot desconocido: " + snapshot);
+                }
+                int rowSize = format == FORMAT_WITHOUT_THRESHOLD ? ROW_SIZE_WITHOUT_THRESHOLD : ROW_SIZE;
+                buffer.getLong();
+                snapshotRows = buffer.getLong();
+                for (long row = 0; row < snapshotRows; row++) {
+                    if (buffer.remaining() < rowSize) {
+                        readFully(channel, buffer, rowSize);
+                    }
+                    long id = buffer.getLong();
+                    long productId = buffer.getLong();
+                    int quantity = buffer.getInt();
+                    long version = buffer.getLong();
+                    long lastUpdate = buffer.getLong();
+                    int reorderThreshold = format == FORMAT_WITHOUT_THRESHOLD ? 0 : buffer.getInt();
+                    maxId[0] = Math.max(maxId[0], id);
+                    JournalRecord record = newest.get(productId);
+                    if (record != null && RowVersion.isNewer(record.inventoryId(), record.version(), id, version)) {
+                        continue;
+                    }
+                    newest.remove(productId);
+                    batch.add(id, productId, quantity, version, lastUpdate, reorderThreshold);
+                    restored++;
+                }
+                if (format == FORMAT) {
+                    if (buffer.remaining() < Long.BYTES) {
+                        readFully(channel, buffer, Long.BYTES);
+                    }
+                    long snapshotReservations = buffer.getLong();
+                    for (long reservation = 0; reservation < snapshotReservations; reservation++) {
+                        if (buffer.remaining() < RESERVATION_SIZE) {
+                            readFully(channel, buffer, RESERVATION_SIZE);
+                        }
+                        ReservationRow row = new ReservationRow(buffer.getLong(), buffer.getLong(), buffer.getInt(),
+                                buffer.getLong(), buffer.getLong());
+                        maxReservationId[0] = Math.max(maxReservationId[0], row.id());
+                        if (!endedReservations.contains(row.id())) {
+                            reservations.putIfAbsent(row.id(), row);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el snapshot " + snapshot, e);
+            }
+        }
+        for (JournalRecord record : newest.values()) {
+            if (record.type() != MovementType.DELETE) {
+                batch.add(record.inventoryId(), record.productId(), record.quantity(), record.version(),
+                        record.timestamp().toEpochMilli(), record.reorderThreshold());
+                restored++;
+            }
+        }
+        batch.flush();
+
+        if (maxId[0] > 0) {
+            jdbcTemplate.execute("alter table inventory alter column id restart with " + (maxId[0] + 1));
+        }
+        Long existingReservations = jdbcTemplate.queryForObject("select count(*) from reservation", Long.class);
+        if (existingReservations != null && existingReservations > 0) {
+            log.info("La tabla de reservas ya tiene {} filas, no se restauran las reservas", existingReservations);
+            reservations.clear();
+        } else {
+            jdbcTemplate.batchUpdate(INSERT_RESERVATION_SQL, new ArrayList<>(reservations.values()), INSERT_BATCH_SIZE,
+                    (ps, reservation) -> {
+                        ps.setLong(1, reservation.id());
+                        ps.setLong(2, reservation.productId());
+                        ps.setInt(3, reservation.quantity());
+                        ps.setTimestamp(4, new Timestamp(reservation.createdAt()));
+                        ps.setTimestamp(5, new Timestamp(reservation.expiresAt()));
+                    });
+            if (maxReservationId[0] > 0) {
+                jdbcTemplate.execute("alter table reservation alter column id restart with " + (maxReservationId[0] + 1));
+            }
+        }
+        log.info("Inventario restaurado en {} ms: {} filas y {} reservas activas ({} filas del snapshot {}, {} registros de journal reproducidos)",
+                (System.nanoTime() - start) / 1_000_000, restored, reservations.size(), snapshotRows,
+                snapshot == null ? "-" : snapshot.getFileName(), replayed[0]);
+        return restored;
+    }
+
+    private Path latestSnapshot() {
+        List<Path> snapshots = snapshots();
+        return snapshots.isEmpty() ? null : snapshots.getLast();
+    }
+
+    private List<Path> snapshots() {
+        try (Stream<Path> files = Files.list(properties.directory())) {
+            return files.filter(file -> SNAPSHOT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long sequenceOf(Path snapshot) {
+        Matcher matcher = SNAPSHOT_NAME.matcher(snapshot.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(snapshot.toString());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Snapshot truncado");
+            }
+        }
+        buffer.flip();
+    }
+
+    private record ReservationRow(long id, long productId, int quantity, long createdAt, long expiresAt) {
+    }
+
+    /**
+     * Reusable primitive buffers for the insert batches, so millions of rows do not turn into millions of
+     * parameter arrays.
+     */
+    private final class RowBatch implements BatchPreparedStatementSetter {
+
+        private final long[] ids = new long[INSERT_BATCH_SIZE];
+        private final long[] productIds = new long[INSERT_BATCH_SIZE];
+        private final int[] quantities = new int[INSERT_BATCH_SIZE];
+        private final long[] versions = new long[INSERT_BATCH_SIZE];
+        private final long[] lastUpdates = new long[INSERT_BATCH_SIZE];
+        private final int[] reorderThresholds = new int[INSERT_BATCH_SIZE];
+        private int size;
+
+        void add(long id, long productId, int quantity, long version, long lastUpdate, int reorderThreshold) {
+            ids[size] = id;
+            productIds[size] = productId;
+            quantities[size] = quantity;
+            versions[size] = version;
+            lastUpdates[size] = lastUpdate;
+            reorderThresholds[size] = reorderThreshold;
+            if (++size == INSERT_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (size > 0) {
+                jdbcTemplate.batchUpdate(INSERT_ROW_SQL, this);
+                size = 0;
+            }
+        }
+
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+            ps.setLong(1, ids[i]);
+            ps.setLong(2, productIds[i]);
+            ps.setInt(3, quantities[i]);
+            ps.setLong(4, versions[i]);
+            ps.setTimestamp(5, lastUpdates[i] == NO_TIMESTAMP ? null : new Timestamp(lastUpdates[i]));
+            ps.setInt(6, reorderThresholds[i]);
+        }
+
+        @Override
+        public int getBatchSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.vimofama.inventoryservice.snapshot;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "inventory.snapshot")
+public record SnapshotProperties(
+        @DefaultValue("data/snapshots") Path directory,
+        @DefaultValue("5m") Duration interval,
+        @DefaultValue("true") boolean truncateJournal
+) {
+}
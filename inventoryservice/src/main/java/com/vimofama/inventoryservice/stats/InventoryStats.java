@@ -0,0 +1,139 @@
+package com.vimofama.inventoryservice.stats;
+
+import com.vimofama.inventoryservice.dto.InventoryStatsDTO;
+import com.vimofama.inventoryservice.dto.ProductSummaryDTO;
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import com.vimofama.inventoryservice.event.ProductChangedEvent;
+import com.vimofama.inventoryservice.event.RowVersion;
+import com.vimofama.inventoryservice.replica.ProductReplica;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals over every inventory row: item count, units, stock value ({@code quantity × price}) and
+ * zero-stock items. Each committed {@link InventoryChangedEvent} or price change adjusts the totals by the
+ * difference between the product's old and new position, so reading them never touches the table or the
+ * product service.
+ * <p>
+ * Positions carry the row id and version of the last change applied, and older events are ignored, the same
+ * way as in the low-stock index. Prices come from the local {@link ProductReplica} and are kept in cents; products
+ * the replica does not know yet count towards units but not towards the value, and are reported as unpriced.
+ */
+@Component
+public class InventoryStats {
+
+    private static final String SELECT_ROWS_SQL = "select id, product_id, quantity, version from inventory";
+    private static final long UNPRICED = -1;
+
+    private final ConcurrentMap<Long, Position> positions = new ConcurrentHashMap<>();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder units = new LongAdder();
+    private final LongAdder valueCents = new LongAdder();
+    private final LongAdder zeroStock = new LongAdder();
+    private final LongAdder unpriced = new LongAdder();
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductReplica productReplica;
+
+    public InventoryStats(JdbcTemplate jdbcTemplate, ProductReplica productReplica) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productReplica = productReplica;
+    }
+
+    /**
+     * Loads every row once the snapshot restore has filled the table and the replica has been read from disk.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        jdbcTemplate.query(SELECT_ROWS_SQL, rs -> {
+            apply(rs.getLong("product_id"), rs.getLong("id"), rs.getLong("version"), rs.getInt("quantity"), false);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        apply(event.productId(), event.inventoryId(), event.version(), event.quantity(),
+                event.type() == MovementType.DELETE);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        onPriceChanged(event.productId(), event.price());
+    }
+
+    public void onPriceChanged(Long productId, BigDecimal price) {
+        long cents = price == null ? UNPRICED : toCents(price);
+        positions.computeIfPresent(productId, (id, current) -> {
+            Position updated = new Position(current.inventoryId(), current.version(), current.quantity(), cents,
+                    current.deleted());
+            adjust(current, updated);
+            return updated;
+        });
+    }
+
+    public InventoryStatsDTO snapshot() {
+        return new InventoryStatsDTO(
+                items.sum(),
+                units.sum(),
+                BigDecimal.valueOf(valueCents.sum(), 2),
+                zeroStock.sum(),
+                unpriced.sum()
+        );
+    }
+
+    private void apply(long productId, long inventoryId, long version, int quantity, boolean deleted) {
+        positions.compute(productId, (id, current) -> {
+            if (current != null && !RowVersion.isNewer(inventoryId, version, current.inventoryId(), current.version())) {
+                return current;
+            }
+            // A recreated item keeps the price already known for its product
+            Position updated = new Position(inventoryId, version, deleted ? 0 : quantity,
+                    current == null ? replicaPrice(productId) : current.priceCents(), deleted);
+            adjust(current, updated);
+            return updated;
+        });
+    }
+
+    private void adjust(Position previous, Position current) {
+        if (previous != null && !previous.deleted()) {
+            add(previous, -1);
+        }
+        if (!current.deleted()) {
+            add(current, 1);
+        }
+    }
+
+    private void add(Position position, int sign) {
+        items.add(sign);
+        units.add((long) sign * position.quantity());
+        if (position.quantity() == 0) {
+            zeroStock.add(sign);
+        }
+        if (position.priceCents() == UNPRICED) {
+            unpriced.add(sign);
+        } else {
+            valueCents.add(sign * position.quantity() * position.priceCents());
+        }
+    }
+
+    private long replicaPrice(long productId) {
+        ProductSummaryDTO product = productReplica.get(productId);
+        return product == null || product.price() == null ? UNPRICED : toCents(product.price());
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private record Position(long inventoryId, long version, int quantity, long priceCents, boolean deleted) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.vimofama.inventoryservice.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Tags every request with the caller's {@code X-Request-Id} (or a fresh UUID), exposes it in the MDC for logs
+ * and the movement journal, and echoes it back in the response.
+ */
+@Component
+public class RequestIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Id";
+    public static final String MDC_KEY = "requestId";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(HEADER);
+        if (requestId == null || requestId.isBlank()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        MDC.put(MDC_KEY, requestId);
+        response.setHeader(HEADER, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    /**
+     * Request id of the current thread as a UUID; ids that are not UUIDs are hashed into one.
+     */
+    public static UUID currentRequestId() {
+        String requestId = MDC.get(MDC_KEY);
+        if (requestId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(requestId);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(requestId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.vimofama.inventoryservice.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures {@code select ... where product_id = ?} latency on a 1M-row inventory table in H2, first as a full table
+ * scan and then after creating the unique index declared on {@code Inventory}.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -pl inventoryservice -Dtest=ProductIdLookupBenchmarkTests}.
+ */
+@Tag("benchmark")
+public class ProductIdLookupBenchmarkTests {
+
+    private static final int ROWS = 1_000_000;
+    private static final int LOOKUPS_WITHOUT_INDEX = 50;
+    private static final int LOOKUPS_WITH_INDEX = 20_000;
+
+    @Test
+    void compareProductIdLookupWithAndWithoutIndex() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:product-id-benchmark;DB_CLOSE_DELAY=-1")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table inventory (id bigint primary key, product_id bigint, quantity integer, " +
+                        "reorder_threshold integer, version bigint, last_update timestamp(6))");
+                // Product ids are shuffled against the row ids so a lookup cannot stop early in insertion order
+                statement.execute("insert into inventory select x, mod(x * 7919, " + ROWS + ") + 1, 100, 5, 0, " +
+                        "current_timestamp from system_range(1, " + ROWS + ")");
+            }
+
+            long[] withoutIndex = measure(connection, LOOKUPS_WITHOUT_INDEX);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create unique index ux_inventory_product_id on inventory (product_id)");
+            }
+            long[] withIndex = measure(connection, LOOKUPS_WITH_INDEX);
+
+            System.out.printf("%n%-14s %10s %12s %12s%n", "product lookup", "samples", "p50 (us)", "p99 (us)");
+            print("no index", withoutIndex);
+            print("unique index", withIndex);
+
+            assertThat(percentile(withIndex, 0.99)).isLessThan(percentile(withoutIndex, 0.50));
+        }
+    }
+
+    private long[] measure(Connection connection, int lookups) throws SQLException {
+        long[] latencies = new long[lookups];
+        try (PreparedStatement statement = connection.prepareStatement(
+                "select id, quantity, version from inventory where product_id = ?")) {
+            for (int i = 0; i < lookups; i++) {
+                statement.setLong(1, ThreadLocalRandom.current().nextLong(1, ROWS + 1));
+                long start = System.nanoTime();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    assertThat(resultSet.next()).isTrue();
+                }
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private void print(String label, long[] latencies) {
+        System.out.printf("%-14s %10d %12.1f %12.1f%n", label, latencies.length,
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3);
+    }
+
+    private long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, sorted.length * percentile)];
+    }
+}
@@ -0,0 +1,74 @@
+package com.vimofama.inventoryservice.benchmark;
+
+import com.vimofama.inventoryservice.snapshot.InventorySnapshotService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures how long it takes to write a snapshot of 1M inventory rows and to restore an empty table from it,
+ * which is what a cold start of the service pays.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -pl inventoryservice -Dtest=SnapshotRestoreBenchmarkTests}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.com.vimofama=WARN")
+public class SnapshotRestoreBenchmarkTests {
+
+    private static final int ROWS = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Autowired
+    InventorySnapshotService snapshotService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void measureSnapshotAndRestore() throws Exception {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int from = 0; from < ROWS; from += BATCH_SIZE) {
+            int offset = from;
+            jdbcTemplate.batchUpdate("insert into inventory (product_id, quantity, version, last_update, reorder_threshold) values (?, ?, 0, ?, 0)",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ps.setLong(1, offset + i + 1);
+                            ps.setInt(2, (offset + i) % 500);
+                            ps.setTimestamp(3, now);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return BATCH_SIZE;
+                        }
+                    });
+        }
+
+        long start = System.nanoTime();
+        Path snapshot = snapshotService.snapshot();
+        long snapshotMillis = (System.nanoTime() - start) / 1_000_000;
+
+        jdbcTemplate.update("truncate table inventory");
+        start = System.nanoTime();
+        long restored = snapshotService.restore();
+        long restoreMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%n%-10s %10s %12s %14s%n", "rows", "size (MB)", "write (ms)", "restore (ms)");
+        System.out.printf("%-10d %10.1f %12d %14d%n", restored, Files.size(snapshot) / 1e6, snapshotMillis, restoreMillis);
+
+        assertThat(restored).isEqualTo(ROWS);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from inventory", Long.class)).isEqualTo(ROWS);
+    }
+}
@@ -0,0 +1,166 @@
+package com.vimofama.inventoryservice.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import com.vimofama.inventoryservice.InventoryserviceApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares inventory creation throughput and tail latency with {@code spring.threads.virtual.enabled} on and
+ * off. Every request misses the product cache and blocks on a product-service stub that answers after a fixed
+ * delay, so the run is bound by how many requests can wait concurrently.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -pl inventoryservice -Dtest=VirtualThreadsBenchmarkTests}.
+ */
+@Tag("benchmark")
+public class VirtualThreadsBenchmarkTests {
+
+    private static final int PRODUCT_SERVICE_DELAY_MS = 200;
+    private static final int TOMCAT_MAX_THREADS = 50;
+    private static final int CONCURRENCY = 500;
+    private static final int REQUESTS = 10000;
+
+    private static HttpServer productServiceStub;
+    private static ExecutorService stubExecutor;
+
+    @BeforeAll
+    static void startProductServiceStub() throws IOException {
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(CONCURRENCY * 2));
+        stubExecutor = Executors.newCachedThreadPool();
+        productServiceStub = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        productServiceStub.setExecutor(stubExecutor);
+        productServiceStub.createContext("/api/products/", exchange -> {
+            try {
+                Thread.sleep(PRODUCT_SERVICE_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        productServiceStub.start();
+    }
+
+    @AfterAll
+    static void stopProductServiceStub() {
+        productServiceStub.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Test
+    void compareVirtualAndPlatformThreads() throws Exception {
+        Result platform = run(false, 0);
+        Result virtual = run(true, REQUESTS);
+
+        System.out.printf("%n%-10s %12s %12s %12s %10s%n", "mode", "req/s", "p50 (ms)", "p99 (ms)", "errors");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-10s %12.1f %12.1f %12.1f %10d %s%n", result.mode(), result.throughput(),
+                    result.p50Millis(), result.p99Millis(), result.errors(), result.errorBreakdown());
+        }
+
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+
+    private Result run(boolean virtualThreads, long productIdOffset) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(InventoryserviceApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                        "--server.tomcat.accept-count=" + CONCURRENCY,
+                        "--logging.level.root=WARN",
+                        "--inventory.product-service.url=http://localhost:" + productServiceStub.getAddress().getPort(),
+                        "--inventory.product-service.connect-timeout=30s",
+                        "--inventory.product-service.read-timeout=30s",
+                        "--inventory.product-service.circuit-breaker.failure-threshold=" + Integer.MAX_VALUE,
+                        "--inventory.product-service.max-connections=" + CONCURRENCY,
+                        "--inventory.product-service.bulkhead.max-concurrent-calls=" + CONCURRENCY,
+                        "--inventory.product-service.bulkhead.max-wait=30s"
+                )) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return drive(virtualThreads ? "virtual" : "platform", port, productIdOffset);
+        }
+    }
+
+    private Result drive(String mode, int port, long productIdOffset) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        URI uri = URI.create("http://localhost:" + port + "/api/inventory");
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        long[] latencies = new long[REQUESTS];
+        Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(REQUESTS);
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                int index = i;
+                inFlight.acquire();
+                futures.add(executor.submit(() -> {
+                    String body = "{\"productId\": " + (productIdOffset + index + 1) + ", \"quantity\": 1}";
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 201) {
+                            errors.computeIfAbsent("HTTP " + response.statusCode(), key -> new AtomicLong()).incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.computeIfAbsent(e.getClass().getSimpleName(), key -> new AtomicLong()).incrementAndGet();
+                    } finally {
+                        latencies[index] = System.nanoTime() - sent;
+                        inFlight.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            return new Result(
+                    mode,
+                    REQUESTS / (elapsed / 1e9),
+                    latencies[(int) (REQUESTS * 0.50)] / 1e6,
+                    latencies[(int) (REQUESTS * 0.99)] / 1e6,
+                    errors.values().stream().mapToLong(AtomicLong::get).sum(),
+                    errors.toString()
+            );
+        }
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis, long errors,
+                          String errorBreakdown) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.vimofama.inventoryservice.cache;
+
+import com.vimofama.inventoryservice.dto.CacheStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ProductExistenceCacheTests {
+
+    @Test
+    void shouldLoadOnceAndServeRepeatedLookupsFromCache() {
+        ProductExistenceCache cache = new ProductExistenceCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.exists(1L, id -> {
+                loads.incrementAndGet();
+                return true;
+            })).isTrue();
+        }
+
+        CacheStatsDTO stats = cache.stats();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(stats.hitCount()).isEqualTo(9);
+        assertThat(stats.missCount()).isEqualTo(1);
+        assertThat(stats.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldExpireNegativeEntriesSooner() throws InterruptedException {
+        ProductExistenceCache cache = new ProductExistenceCache(100, Duration.ofMinutes(10), Duration.ofMillis(50));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.exists(1L, id -> loads.incrementAndGet() < 0)).isFalse();
+        assertThat(cache.exists(2L, id -> loads.incrementAndGet() > 0)).isTrue();
+        Thread.sleep(100);
+
+        assertThat(cache.exists(1L, id -> loads.incrementAndGet() > 0)).isTrue();
+        assertThat(cache.exists(2L, id -> loads.incrementAndGet() < 0)).isTrue();
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentMisses() throws Exception {
+        ProductExistenceCache cache = new ProductExistenceCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                results.add(callers.submit(() -> cache.exists(1L, id -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return true;
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountFailedLoadsWithoutCachingThem() {
+        ProductExistenceCache cache = new ProductExistenceCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+
+        assertThatThrownBy(() -> cache.exists(1L, id -> {
+            throw new IllegalStateException("servicio caído");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.stats().loadFailureCount()).isEqualTo(1);
+        assertThat(cache.exists(1L, id -> true)).isTrue();
+    }
+}
@@ -0,0 +1,62 @@
+package com.vimofama.inventoryservice.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CircuitBreakerTests {
+
+    @Test
+    void shouldOpenAfterConsecutiveFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofMinutes(1));
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void shouldResetFailureCountOnSuccess() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldAllowSingleProbeWhenHalfOpen() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(20));
+        circuitBreaker.onFailure();
+        Thread.sleep(40);
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    void shouldReopenWhenProbeFails() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(20));
+        circuitBreaker.onFailure();
+        Thread.sleep(40);
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+}
@@ -0,0 +1,119 @@
+package com.vimofama.inventoryservice.client;
+
+import com.sun.net.httpserver.HttpServer;
+import com.vimofama.inventoryservice.exception.ProductServiceRejectedException;
+import com.vimofama.inventoryservice.exception.ProductServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ProductServiceClientTests {
+
+    private HttpServer server;
+    private ProductServiceClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/products/", exchange -> {
+            String id = exchange.getRequestURI().getPath().substring("/api/products/".length());
+            int status = switch (id) {
+                case "1" -> 200;
+                case "400" -> 400;
+                case "429" -> 429;
+                case "500" -> 500;
+                default -> 404;
+            };
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        client = client(Duration.ofMinutes(1));
+    }
+
+    private ProductServiceClient client(Duration openDuration) {
+        ProductServiceProperties properties = new ProductServiceProperties(
+                "http://localhost:" + server.getAddress().getPort(),
+                Duration.ofSeconds(1),
+                Duration.ofSeconds(1),
+                10,
+                Duration.ofSeconds(30),
+                new ProductServiceProperties.CircuitBreakerProperties(2, openDuration),
+                new ProductServiceProperties.BulkheadProperties(5, Duration.ofMillis(100))
+        );
+        return new ProductServiceClient(properties, new RestTemplateBuilder());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void shouldReportExistingAndMissingProducts() {
+        assertThat(client.productExists(1L)).isTrue();
+        assertThat(client.productExists(2L)).isFalse();
+        assertThat(client.stats().failures()).isZero();
+    }
+
+    @Test
+    void shouldOpenCircuitAfterServerErrors() {
+        assertThatThrownBy(() -> client.productExists(500L)).isInstanceOf(ProductServiceUnavailableException.class);
+        assertThatThrownBy(() -> client.productExists(500L)).isInstanceOf(ProductServiceUnavailableException.class);
+
+        assertThat(client.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> client.productExists(1L)).isInstanceOf(ProductServiceUnavailableException.class);
+        assertThat(client.stats().rejectedByCircuitBreaker()).isEqualTo(1);
+        assertThat(client.stats().calls()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCountTooManyRequestsAsFailures() {
+        assertThatThrownBy(() -> client.productExists(429L)).isInstanceOf(ProductServiceUnavailableException.class);
+        assertThatThrownBy(() -> client.productExists(429L)).isInstanceOf(ProductServiceUnavailableException.class);
+
+        assertThat(client.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void shouldReportOtherClientErrorsWithoutOpeningCircuit() {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.productExists(400L))
+                    .isInstanceOfSatisfying(ProductServiceRejectedException.class,
+                            e -> assertThat(e.getStatus()).isEqualTo(400));
+        }
+
+        assertThat(client.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(client.stats().failures()).isZero();
+    }
+
+    @Test
+    void shouldReopenCircuitWhenProbeThrowsUnexpectedException() throws Exception {
+        ProductServiceClient breaking = client(Duration.ofMillis(50));
+        try {
+            assertThatThrownBy(() -> breaking.productExists(500L)).isInstanceOf(ProductServiceUnavailableException.class);
+            assertThatThrownBy(() -> breaking.productExists(500L)).isInstanceOf(ProductServiceUnavailableException.class);
+            Thread.sleep(100);
+
+            assertThatThrownBy(() -> breaking.execute(() -> {
+                throw new IllegalStateException("respuesta inesperada");
+            })).isInstanceOf(IllegalStateException.class);
+            assertThat(breaking.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+            Thread.sleep(100);
+            assertThat(breaking.productExists(1L)).isTrue();
+            assertThat(breaking.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        } finally {
+            breaking.destroy();
+        }
+    }
+}
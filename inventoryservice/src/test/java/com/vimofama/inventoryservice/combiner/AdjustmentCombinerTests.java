@@ -0,0 +1,110 @@
+package com.vimofama.inventoryservice.combiner;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AdjustmentCombinerTests {
+
+    @Test
+    void answersEachConcurrentAdjustmentWithItsOwnRunningTotal() throws Exception {
+        Map<Long, Long> totals = new HashMap<>();
+        AtomicInteger writing = new AtomicInteger();
+        AdjustmentCombiner<Long> combiner = new AdjustmentCombiner<>(Duration.ofMillis(1), 64, (productId, deltas) -> {
+            assertThat(writing.incrementAndGet()).isEqualTo(1);
+            List<Long> results = new ArrayList<>(deltas.length);
+            long total = totals.getOrDefault(productId, 0L);
+            for (int delta : deltas) {
+                total += delta;
+                results.add(total);
+            }
+            totals.put(productId, total);
+            sleep(2);
+            writing.decrementAndGet();
+            return results;
+        });
+
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        int requests = 2000;
+        runConcurrently(requests, () -> seen.add(combiner.adjust(7L, 1)));
+
+        assertThat(totals.get(7L)).isEqualTo(requests);
+        assertThat(seen).hasSize(requests).contains(1L, (long) requests);
+        assertThat(combiner.adjustments()).isEqualTo(requests);
+        assertThat(combiner.batches()).isLessThan(requests / 4);
+    }
+
+    @Test
+    void writesUncontendedAdjustmentsOneByOne() {
+        List<Integer> batchSizes = new ArrayList<>();
+        AdjustmentCombiner<Integer> combiner = new AdjustmentCombiner<>(Duration.ofMillis(50), 64, (productId, deltas) -> {
+            batchSizes.add(deltas.length);
+            return List.of(deltas[0]);
+        });
+
+        assertThat(combiner.adjust(1L, 5)).isEqualTo(5);
+        assertThat(combiner.adjust(1L, -3)).isEqualTo(-3);
+        assertThat(combiner.adjust(2L, 4)).isEqualTo(4);
+        assertThat(batchSizes).containsExactly(1, 1, 1);
+    }
+
+    @Test
+    void rethrowsWriterFailuresToEveryCallerOfTheBatch() throws Exception {
+        AdjustmentCombiner<Integer> combiner = new AdjustmentCombiner<>(Duration.ofMillis(1), 8, (productId, deltas) -> {
+            sleep(1);
+            throw new IllegalStateException("sin conexión");
+        });
+        AtomicInteger failures = new AtomicInteger();
+
+        runConcurrently(100, () -> {
+            try {
+                combiner.adjust(1L, 1);
+            } catch (IllegalStateException e) {
+                failures.incrementAndGet();
+            }
+        });
+
+        assertThat(failures.get()).isEqualTo(100);
+        assertThatThrownBy(() -> combiner.adjust(1L, 1)).hasMessage("sin conexión");
+    }
+
+    private static void runConcurrently(int requests, Runnable task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package com.vimofama.inventoryservice.controller;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.vimofama.inventoryservice.cache.ProductExistenceCache;
+import com.vimofama.inventoryservice.dto.CreateInventoryBatchDTO;
+import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import com.vimofama.inventoryservice.dto.CreateReservationDTO;
+import com.vimofama.inventoryservice.dto.ProductChangeDTO;
+import com.vimofama.inventoryservice.dto.QuantityDTO;
+import com.vimofama.inventoryservice.dto.ReorderThresholdDTO;
+import com.vimofama.inventoryservice.dto.StockMovementBatchDTO;
+import com.vimofama.inventoryservice.dto.StockMovementDTO;
+import com.vimofama.inventoryservice.exception.GlobalExceptionHandler;
+import com.vimofama.inventoryservice.exception.MovementOverflowException;
+import com.vimofama.inventoryservice.idempotency.IdempotencyStore;
+import com.vimofama.inventoryservice.lowstock.LowStockAlerts;
+import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.replica.ProductReplica;
+import com.vimofama.inventoryservice.repository.InventoryRepository;
+import com.vimofama.inventoryservice.service.InventoryService;
+import com.vimofama.inventoryservice.stats.InventoryStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class InventoryControllerTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    InventoryRepository inventoryRepository;
+
+    @Autowired
+    ProductExistenceCache productExistenceCache;
+
+    @Autowired
+    LowStockAlerts lowStockAlerts;
+
+    @Autowired
+    InventoryStats inventoryStats;
+
+    @Autowired
+    ProductReplica productReplica;
+
+    @Autowired
+    GlobalExceptionHandler globalExceptionHandler;
+
+    @Autowired
+    InventoryService inventoryService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    void shouldApplyBatchOfMovements() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+        inventoryRepository.save(new Inventory(2L, 5, LocalDateTime.now()));
+
+        StockMovementBatchDTO batch = new StockMovementBatchDTO(List.of(
+                new StockMovementDTO(1L, 5),
+                new StockMovementDTO(2L, -3),
+                new StockMovementDTO(1L, -2),
+                new StockMovementDTO(2L, -10),
+                new StockMovementDTO(3L, 1)
+        ));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory/movements", batch, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        int resultCount = documentContext.read("$.length()");
+        assertThat(resultCount).isEqualTo(5);
+
+        assertThat((String) documentContext.read("$[0].status")).isEqualTo("APPLIED");
+        assertThat((Integer) documentContext.read("$[0].quantity")).isEqualTo(13);
+        assertThat((String) documentContext.read("$[2].status")).isEqualTo("APPLIED");
+        assertThat((String) documentContext.read("$[1].status")).isEqualTo("INSUFFICIENT_STOCK");
+        assertThat((Integer) documentContext.read("$[1].quantity")).isEqualTo(5);
+        assertThat((String) documentContext.read("$[4].status")).isEqualTo("NOT_FOUND");
+
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getQuantity()).isEqualTo(13);
+        assertThat(inventoryRepository.findByProductId(2L).orElseThrow().getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldApplyLargeBatchInSingleCall() {
+        inventoryRepository.save(new Inventory(1L, 0, LocalDateTime.now()));
+        List<StockMovementDTO> movements = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            movements.add(new StockMovementDTO(1L, 1));
+        }
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory/movements",
+                new StockMovementBatchDTO(movements), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getQuantity()).isEqualTo(10000);
+    }
+
+    @Test
+    void shouldRejectBatchWhoseNetMovementOverflows() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+        inventoryRepository.save(new Inventory(2L, 10, LocalDateTime.now()));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory/movements",
+                new StockMovementBatchDTO(List.of(
+                        new StockMovementDTO(2L, 1),
+                        new StockMovementDTO(1L, Integer.MAX_VALUE),
+                        new StockMovementDTO(1L, 1))), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(JsonPath.parse(response.getBody()).read("$.productId", Long.class)).isEqualTo(1L);
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getQuantity()).isEqualTo(10);
+        assertThat(inventoryRepository.findByProductId(2L).orElseThrow().getQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldRejectIncreasesThatOverflowTheQuantity() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+
+        // Merged by the adjustment combiner
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory/increase/1",
+                new QuantityDTO(Integer.MAX_VALUE), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(JsonPath.parse(response.getBody()).read("$.productId", Long.class)).isEqualTo(1L);
+
+        // Written directly inside the caller's transaction
+        Throwable thrown = catchThrowable(() -> new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> inventoryService.increaseQuantity(1L, Integer.MAX_VALUE)));
+        assertThat(thrown).isInstanceOf(MovementOverflowException.class);
+
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldReturnValidationErrorWhenBatchIsEmpty() {
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory/movements",
+                new StockMovementBatchDTO(List.of()), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldReturnConflictWhenDecreasingBelowZero() {
+        inventoryRepository.save(new Inventory(1L, 2, LocalDateTime.now()));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory/decrease/1",
+                new QuantityDTO(3), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void shouldPageAndStreamInventory() {
+        for (long productId = 1; productId <= 5; productId++) {
+            inventoryRepository.save(new Inventory(productId, 10, LocalDateTime.now()));
+        }
+
+        ResponseEntity<String> page = restTemplate.getForEntity("/api/inventory/page?size=2", String.class);
+        assertThat(page.getStatusCode()).isEqualTo(HttpStatus.OK);
+        DocumentContext pageContext = JsonPath.parse(page.getBody());
+        int pageCount = pageContext.read("$.items.length()");
+        Number cursor = pageContext.read("$.nextCursor");
+        assertThat(pageCount).isEqualTo(2);
+
+        ResponseEntity<String> lastPage = restTemplate.getForEntity("/api/inventory/page?size=10&after=" + cursor, String.class);
+        int lastCount = JsonPath.parse(lastPage.getBody()).read("$.items.length()");
+        assertThat(lastCount).isEqualTo(3);
+
+        ResponseEntity<String> stream = restTemplate.getForEntity("/api/inventory/stream", String.class);
+        assertThat(stream.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(stream.getBody().split("\n")).hasSize(5);
+    }
+
+    @Test
+    void shouldReturnConflictWhenInventoryAlreadyExists() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory",
+                new CreateInventoryDTO(1L, 5), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void shouldReportViolationsOfTheProductIdIndexAsDuplicates() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+
+        Throwable violation = catchThrowable(() -> inventoryRepository.saveAndFlush(new Inventory(1L, 5, LocalDateTime.now())));
+        assertThat(violation).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(globalExceptionHandler.handleDataIntegrityViolation((DataIntegrityViolationException) violation).getBody())
+                .containsEntry("message", "Ya existe un inventario para este producto");
+    }
+
+    @Test
+    void shouldNotReportOtherConstraintViolationsAsDuplicates() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory/movements",
+                new StockMovementBatchDTO(List.of(new StockMovementDTO(1L, Integer.MAX_VALUE))), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(JsonPath.parse(response.getBody()).read("$.message", String.class))
+                .isNotEqualTo("Ya existe un inventario para este producto");
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldCreateManyInventoriesAndReportRejections() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+        productExistenceCache.put(2L, true);
+        productExistenceCache.put(3L, true);
+        productExistenceCache.put(4L, false);
+
+        CreateInventoryBatchDTO batch = new CreateInventoryBatchDTO(List.of(
+                new CreateInventoryDTO(1L, 5),
+                new CreateInventoryDTO(2L, 5),
+                new CreateInventoryDTO(3L, 7),
+                new CreateInventoryDTO(3L, 8),
+                new CreateInventoryDTO(4L, 1)
+        ));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory/bulk", batch, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        assertThat((Integer) documentContext.read("$.created.length()")).isEqualTo(2);
+        assertThat((Integer) documentContext.read("$.rejected.length()")).isEqualTo(3);
+        assertThat(inventoryRepository.findByProductId(3L).orElseThrow().getQuantity()).isEqualTo(7);
+        assertThat(inventoryRepository.findByProductId(4L)).isEmpty();
+    }
+
+    @Test
+    void shouldAnswerConditionalGetWithNotModifiedUntilInventoryChanges() {
+        // Created through the API, so the read model serving the GETs sees it
+        productExistenceCache.put(1L, true);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(1L, 10), String.class);
+
+        ResponseEntity<String> first = restTemplate.getForEntity("/api/inventory/1", String.class);
+        String etag = first.getHeaders().getETag();
+        assertThat(etag).isNotNull();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<String> notModified = restTemplate.exchange("/api/inventory/1", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getBody()).isNull();
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(etag);
+
+        restTemplate.postForEntity("/api/inventory/increase/1", new QuantityDTO(5), String.class);
+
+        ResponseEntity<String> changed = restTemplate.exchange("/api/inventory/1", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat((Integer) JsonPath.parse(changed.getBody()).read("$.quantity")).isEqualTo(15);
+    }
+
+    @Test
+    void shouldNotMatchETagOfDeletedInventoryAfterRecreation() {
+        productExistenceCache.put(1L, true);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(1L, 10), String.class);
+        String etag = restTemplate.getForEntity("/api/inventory/1", String.class).getHeaders().getETag();
+
+        restTemplate.delete("/api/inventory/1");
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(1L, 3), String.class);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<String> recreated = restTemplate.exchange("/api/inventory/1", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(recreated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(recreated.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat((Integer) JsonPath.parse(recreated.getBody()).read("$.quantity")).isEqualTo(3);
+    }
+
+    @Test
+    void shouldReserveCommitAndReleaseStock() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+
+        ResponseEntity<String> reserved = restTemplate.postForEntity("/api/inventory/reservations",
+                new CreateReservationDTO(1L, 6, null), String.class);
+        assertThat(reserved.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        URI reservation = reserved.getHeaders().getLocation();
+
+        ResponseEntity<String> overbooked = restTemplate.postForEntity("/api/inventory/reservations",
+                new CreateReservationDTO(1L, 5, null), String.class);
+        assertThat(overbooked.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        ResponseEntity<String> decrease = restTemplate.postForEntity("/api/inventory/decrease/1", new QuantityDTO(5), String.class);
+        assertThat(decrease.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+
+        ResponseEntity<String> second = restTemplate.postForEntity("/api/inventory/reservations",
+                new CreateReservationDTO(1L, 4, null), String.class);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        ResponseEntity<String> committed = restTemplate.postForEntity(action(reservation, "commit"), null, String.class);
+        assertThat(committed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat((String) JsonPath.parse(committed.getBody()).read("$.status")).isEqualTo("COMMITTED");
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getQuantity()).isEqualTo(4);
+
+        ResponseEntity<String> committedAgain = restTemplate.postForEntity(action(reservation, "commit"), null, String.class);
+        assertThat(committedAgain.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+
+        restTemplate.postForEntity(action(second.getHeaders().getLocation(), "release"), null, String.class);
+        DocumentContext availability = JsonPath.parse(restTemplate.getForObject("/api/inventory/1/availability", String.class));
+        assertThat((Integer) availability.read("$.quantity")).isEqualTo(4);
+        assertThat((Integer) availability.read("$.reserved")).isZero();
+        assertThat((Integer) availability.read("$.available")).isEqualTo(4);
+    }
+
+    @Test
+    void shouldRefuseToDeleteInventoryWithActiveReservations() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+        ResponseEntity<String> reserved = restTemplate.postForEntity("/api/inventory/reservations",
+                new CreateReservationDTO(1L, 6, null), String.class);
+
+        ResponseEntity<String> refused = restTemplate.exchange("/api/inventory/1", HttpMethod.DELETE, null, String.class);
+        assertThat(refused.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat((Integer) JsonPath.parse(refused.getBody()).read("$.productId")).isEqualTo(1);
+        assertThat(inventoryRepository.findByProductId(1L)).isPresent();
+
+        restTemplate.postForEntity(action(reserved.getHeaders().getLocation(), "release"), null, String.class);
+        ResponseEntity<String> deleted = restTemplate.exchange("/api/inventory/1", HttpMethod.DELETE, null, String.class);
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(inventoryRepository.findByProductId(1L)).isEmpty();
+    }
+
+    @Test
+    void shouldNotLetMovementsTakeReservedStock() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+        restTemplate.postForEntity("/api/inventory/reservations", new CreateReservationDTO(1L, 6, null), String.class);
+
+        StockMovementBatchDTO batch = new StockMovementBatchDTO(List.of(
+                new StockMovementDTO(1L, 2),
+                new StockMovementDTO(1L, -7)
+        ));
+        DocumentContext rejected = JsonPath.parse(
+                restTemplate.postForEntity("/api/inventory/movements", batch, String.class).getBody());
+        assertThat((String) rejected.read("$[0].status")).isEqualTo("INSUFFICIENT_STOCK");
+        assertThat((Integer) rejected.read("$[0].quantity")).isEqualTo(10);
+
+        DocumentContext applied = JsonPath.parse(restTemplate.postForEntity("/api/inventory/movements",
+                new StockMovementBatchDTO(List.of(new StockMovementDTO(1L, -4))), String.class).getBody());
+        assertThat((String) applied.read("$[0].status")).isEqualTo("APPLIED");
+
+        DocumentContext availability = JsonPath.parse(restTemplate.getForObject("/api/inventory/1/availability", String.class));
+        assertThat((Integer) availability.read("$.quantity")).isEqualTo(6);
+        assertThat((Integer) availability.read("$.reserved")).isEqualTo(6);
+        assertThat((Integer) availability.read("$.available")).isZero();
+    }
+
+    @Test
+    void shouldExpireReservationsAfterTheirTtl() throws InterruptedException {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+
+        ResponseEntity<String> reserved = restTemplate.postForEntity("/api/inventory/reservations",
+                new CreateReservationDTO(1L, 10, 1L), String.class);
+        assertThat(reserved.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        String status = "ACTIVE";
+        while (status.equals("ACTIVE") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            status = JsonPath.parse(restTemplate.getForObject(reserved.getHeaders().getLocation(), String.class)).read("$.status");
+        }
+        assertThat(status).isEqualTo("EXPIRED");
+        DocumentContext availability = JsonPath.parse(restTemplate.getForObject("/api/inventory/1/availability", String.class));
+        assertThat((Integer) availability.read("$.available")).isEqualTo(10);
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenReservingUnknownInventory() {
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/inventory/reservations",
+                new CreateReservationDTO(99L, 1, null), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldJournalCommittedMovementsWithTheirRequestId() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+        String requestId = "0b7d1f9e-3c4a-4f7e-9d2b-5a6c8e1f2a3b";
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Request-Id", requestId);
+
+        ResponseEntity<String> increased = restTemplate.postForEntity("/api/inventory/increase/1",
+                new HttpEntity<>(new QuantityDTO(5), headers), String.class);
+        assertThat(increased.getHeaders().getFirst("X-Request-Id")).isEqualTo(requestId);
+        restTemplate.postForEntity("/api/inventory/decrease/1", new QuantityDTO(3), String.class);
+        restTemplate.postForEntity("/api/inventory/decrease/1", new QuantityDTO(100), String.class);
+
+        DocumentContext journal = JsonPath.parse(restTemplate.getForObject("/api/inventory/journal?productId=1", String.class));
+        assertThat((Integer) journal.read("$.length()")).isEqualTo(2);
+        assertThat((String) journal.read("$[0].type")).isEqualTo("INCREASE");
+        assertThat((Integer) journal.read("$[0].delta")).isEqualTo(5);
+        assertThat((Integer) journal.read("$[0].quantity")).isEqualTo(15);
+        assertThat((String) journal.read("$[0].requestId")).isEqualTo(requestId);
+        assertThat((String) journal.read("$[1].type")).isEqualTo("DECREASE");
+        assertThat((Integer) journal.read("$[1].quantity")).isEqualTo(12);
+
+        Integer firstSequence = journal.read("$[0].sequence");
+        DocumentContext tail = JsonPath.parse(restTemplate.getForObject(
+                "/api/inventory/journal?afterSequence=" + firstSequence, String.class));
+        assertThat((Integer) tail.read("$.length()")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldIndexLowStockAndStreamThresholdCrossings() throws Exception {
+        productExistenceCache.put(1L, true);
+        productExistenceCache.put(2L, true);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(1L, 10, 5), String.class);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(2L, 3, 5), String.class);
+
+        DocumentContext lowStock = JsonPath.parse(restTemplate.getForObject("/api/inventory/low-stock", String.class));
+        assertThat((List<Integer>) lowStock.read("$[*].productId")).containsExactly(2);
+
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        HttpClient client = HttpClient.newHttpClient();
+        client.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/inventory/low-stock/stream")).build(),
+                HttpResponse.BodyHandlers.ofLines())
+                .thenAccept(response -> response.body().filter(line -> line.startsWith("event:")).forEach(events::add));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lowStockAlerts.subscribers() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        restTemplate.postForEntity("/api/inventory/decrease/1", new QuantityDTO(6), String.class);
+        restTemplate.postForEntity("/api/inventory/increase/2", new QuantityDTO(10), String.class);
+        assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("event:low-stock");
+        assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("event:restocked");
+
+        lowStock = JsonPath.parse(restTemplate.getForObject("/api/inventory/low-stock", String.class));
+        assertThat((List<Integer>) lowStock.read("$[*].productId")).containsExactly(1);
+        assertThat((Integer) lowStock.read("$[0].quantity")).isEqualTo(4);
+
+        ResponseEntity<String> updated = restTemplate.exchange("/api/inventory/1/reorder-threshold", HttpMethod.PUT,
+                new HttpEntity<>(new ReorderThresholdDTO(0)), String.class);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(restTemplate.getForObject("/api/inventory/low-stock", String.class)).isEqualTo("[]");
+        assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("event:restocked");
+
+        ResponseEntity<String> missing = restTemplate.exchange("/api/inventory/99/reorder-threshold", HttpMethod.PUT,
+                new HttpEntity<>(new ReorderThresholdDTO(1)), String.class);
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldReportRunningStats() {
+        productExistenceCache.put(1L, true);
+        productExistenceCache.put(2L, true);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(1L, 10), String.class);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(2L, 0), String.class);
+        productReplica.apply(new ProductChangeDTO(1, "CREATED", 1L, "Cable", "CB-1", new BigDecimal("1.25"), 0L));
+        inventoryStats.onPriceChanged(2L, new BigDecimal("9.99"));
+        restTemplate.postForEntity("/api/inventory/decrease/1", new QuantityDTO(2), String.class);
+
+        DocumentContext stats = JsonPath.parse(restTemplate.getForObject("/api/inventory/stats", String.class));
+        assertThat((Integer) stats.read("$.items")).isEqualTo(2);
+        assertThat((Integer) stats.read("$.totalUnits")).isEqualTo(8);
+        assertThat((Double) stats.read("$.totalValue")).isEqualTo(10.0);
+        assertThat((Integer) stats.read("$.zeroStockItems")).isEqualTo(1);
+        assertThat((Integer) stats.read("$.unpricedItems")).isZero();
+    }
+
+    @Test
+    void shouldJoinInventoryWithReplicatedProducts() {
+        productExistenceCache.put(1L, true);
+        productExistenceCache.put(2L, true);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(1L, 10, 3), String.class);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(2L, 4), String.class);
+        productReplica.apply(new ProductChangeDTO(1, "CREATED", 1L, "Teclado", "KB-1", new BigDecimal("49.99"), 0L));
+        productReplica.apply(new ProductChangeDTO(2, "UPDATED", 1L, "Teclado mecánico", "KB-1", new BigDecimal("44.99"), 1L));
+
+        DocumentContext details = JsonPath.parse(restTemplate.getForObject("/api/inventory/1/details", String.class));
+        assertThat((Integer) details.read("$.quantity")).isEqualTo(10);
+        assertThat((Integer) details.read("$.reorderThreshold")).isEqualTo(3);
+        assertThat((String) details.read("$.name")).isEqualTo("Teclado mecánico");
+        assertThat((String) details.read("$.sku")).isEqualTo("KB-1");
+        assertThat((Double) details.read("$.price")).isEqualTo(44.99);
+
+        DocumentContext page = JsonPath.parse(restTemplate.getForObject("/api/inventory/details?size=10", String.class));
+        assertThat((List<Integer>) page.read("$.items[*].productId")).containsExactly(1, 2);
+        assertThat((String) page.read("$.items[1].name")).isNull();
+        assertThat((String) page.read("$.nextCursor")).isNull();
+
+        ResponseEntity<String> missing = restTemplate.getForEntity("/api/inventory/3/details", String.class);
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldReplayRetriedMovementsWithTheSameIdempotencyKey() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(IdempotencyStore.HEADER, "pedido-42");
+
+        ResponseEntity<String> first = restTemplate.postForEntity("/api/inventory/decrease/1",
+                new HttpEntity<>(new QuantityDTO(3), headers), String.class);
+        ResponseEntity<String> retry = restTemplate.postForEntity("/api/inventory/decrease/1",
+                new HttpEntity<>(new QuantityDTO(3), headers), String.class);
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retry.getBody()).isEqualTo(first.getBody());
+        assertThat(retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getQuantity()).isEqualTo(7);
+
+        ResponseEntity<String> reused = restTemplate.postForEntity("/api/inventory/decrease/1",
+                new HttpEntity<>(new QuantityDTO(4), headers), String.class);
+        assertThat(reused.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+        restTemplate.postForEntity("/api/inventory/decrease/1", new QuantityDTO(3), String.class);
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getQuantity()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldChartStockHistory() {
+        productExistenceCache.put(1L, true);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(1L, 10), String.class);
+        restTemplate.postForEntity("/api/inventory/decrease/1", new QuantityDTO(4), String.class);
+        restTemplate.postForEntity("/api/inventory/increase/1", new QuantityDTO(1), String.class);
+
+        DocumentContext raw = JsonPath.parse(restTemplate.getForObject("/api/inventory/1/history", String.class));
+        assertThat((List<Integer>) raw.read("$.points[*].quantity")).containsExactly(10, 6, 7);
+
+        DocumentContext hourly = JsonPath.parse(restTemplate.getForObject("/api/inventory/1/history?step=PT1H", String.class));
+        assertThat((List<Integer>) hourly.read("$.points[*].quantity")).containsExactly(7);
+        assertThat((List<Integer>) hourly.read("$.points[*].min")).containsExactly(6);
+        assertThat((List<Integer>) hourly.read("$.points[*].max")).containsExactly(10);
+
+        assertThat(restTemplate.getForEntity("/api/inventory/1/history?step=PT1S", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.getForEntity("/api/inventory/2/history", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private static URI action(URI reservation, String action) {
+        return UriComponentsBuilder.fromUri(reservation).path("/" + action).build().toUri();
+    }
+}
@@ -0,0 +1,54 @@
+package com.vimofama.inventoryservice.controller;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.vimofama.inventoryservice.cache.ProductExistenceCache;
+import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import com.vimofama.inventoryservice.dto.QuantityDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class InventoryReadModelControllerTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    ProductExistenceCache productExistenceCache;
+
+    @Test
+    void shouldServeCommittedWritesFromTheReadModel() {
+        productExistenceCache.put(1L, true);
+        productExistenceCache.put(2L, true);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(2L, 4), String.class);
+        restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(1L, 10, 3), String.class);
+        restTemplate.postForEntity("/api/inventory/decrease/1", new QuantityDTO(4), String.class);
+
+        DocumentContext item = JsonPath.parse(restTemplate.getForObject("/api/inventory/1", String.class));
+        assertThat((Integer) item.read("$.quantity")).isEqualTo(6);
+        assertThat((Integer) item.read("$.reorderThreshold")).isEqualTo(3);
+
+        DocumentContext all = JsonPath.parse(restTemplate.getForObject("/api/inventory", String.class));
+        assertThat((List<Integer>) all.read("$[*].productId")).containsExactly(2, 1);
+
+        restTemplate.delete("/api/inventory/2");
+        ResponseEntity<String> deleted = restTemplate.getForEntity("/api/inventory/2", String.class);
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        DocumentContext status = JsonPath.parse(restTemplate.getForObject("/api/inventory/diagnostics/read-model", String.class));
+        assertThat((Boolean) status.read("$.servingReads")).isTrue();
+        assertThat((Integer) status.read("$.items")).isEqualTo(1);
+        assertThat((Integer) status.read("$.pendingChanges")).isZero();
+    }
+}
@@ -0,0 +1,43 @@
+package com.vimofama.inventoryservice.controller;
+
+import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "inventory.product-service.url=http://localhost:1")
+@AutoConfigureObservability
+public class MetricsEndpointTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    void shouldExposeEndpointClientAndPoolMetrics() {
+        // Product service is unreachable, so the create fails in the client
+        ResponseEntity<String> created = restTemplate.postForEntity("/api/inventory", new CreateInventoryDTO(1L, 5), String.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        restTemplate.getForEntity("/api/inventory/1", String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/inventory/{id}\"")
+                .contains("http_client_requests_seconds_count{")
+                .containsPattern("product_client_errors_total [1-9]")
+                .contains("spring_data_repository_invocations_seconds_count{")
+                .contains("repository=\"InventoryRepository\"")
+                .contains("httpcomponents_httpclient_pool_total_max{")
+                .contains("hikaricp_connections_active")
+                .contains("cache_gets_total{cache=\"product-existence\"")
+                .contains("cache_gets_total{cache=\"inventory-version\"");
+    }
+}
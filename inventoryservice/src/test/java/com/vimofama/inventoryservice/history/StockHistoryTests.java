@@ -0,0 +1,162 @@
+package com.vimofama.inventoryservice.history;
+
+import com.vimofama.inventoryservice.dto.StockHistoryDTO;
+import com.vimofama.inventoryservice.dto.StockHistoryPointDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StockHistoryTests {
+
+    private static final long T0 = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+
+    private final StockHistory history = new StockHistory(null,
+            new HistoryProperties(16, Duration.ofDays(30), Duration.ofHours(1), 1000));
+
+    @Test
+    void returnsEveryPointAcrossBlocks() {
+        Random random = new Random(42);
+        long[] timestamps = new long[100];
+        int[] quantities = new int[100];
+        long timestamp = T0;
+        int quantity = 500;
+        for (int i = 0; i < 100; i++) {
+            timestamp += 1 + random.nextInt(60_000);
+            quantity = Math.max(0, quantity + random.nextInt(21) - 10);
+            timestamps[i] = timestamp;
+            quantities[i] = quantity;
+            history.record(1L, 10L, i, timestamp, quantity, false);
+        }
+
+        List<StockHistoryPointDTO> points = query(T0, timestamp, null).points();
+
+        assertThat(points).hasSize(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(points.get(i)).isEqualTo(point(timestamps[i], quantities[i], quantities[i], quantities[i]));
+        }
+        assertThat(history.points()).isEqualTo(100);
+    }
+
+    @Test
+    void startsRangesWithTheLevelInEffect() {
+        for (int i = 0; i < 40; i++) {
+            history.record(1L, 10L, i, T0 + i * 1000L, i, false);
+        }
+
+        assertThat(query(T0 + 20_500, T0 + 22_000, null).points()).containsExactly(
+                point(T0 + 20_500, 20, 20, 20),
+                point(T0 + 21_000, 21, 21, 21),
+                point(T0 + 22_000, 22, 22, 22));
+        assertThat(query(T0 + 100_000, T0 + 200_000, null).points()).containsExactly(
+                point(T0 + 100_000, 39, 39, 39));
+        assertThat(query(T0 - 10_000, T0 - 1, null).points()).isEmpty();
+    }
+
+    @Test
+    void downsamplesIntoBucketsWithLastMinAndMax() {
+        int[] quantities = {10, 4, 7, 12, 3, 8};
+        for (int i = 0; i < quantities.length; i++) {
+            history.record(1L, 10L, i, T0 + i * 20_000L, quantities[i], false);
+        }
+
+        StockHistoryDTO downsampled = query(T0, T0 + 119_999, Duration.ofMinutes(1));
+
+        assertThat(downsampled.step()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(downsampled.points()).containsExactly(
+                point(T0, 7, 4, 10),
+                point(T0 + 60_000, 8, 3, 12));
+    }
+
+    @Test
+    void skipsOlderChangesAndRecordsDeletesAsZero() {
+        history.record(1L, 10L, 0, T0, 5, false);
+        history.record(1L, 10L, 2, T0 + 1000, 8, false);
+        history.record(1L, 10L, 1, T0 + 2000, 6, false);
+        history.record(1L, 10L, 3, T0 + 3000, 0, true);
+        history.record(1L, 11L, 0, T0 + 4000, 2, false);
+
+        assertThat(query(T0, T0 + 10_000, null).points()).extracting(StockHistoryPointDTO::quantity)
+                .containsExactly(5, 8, 0, 2);
+        assertThat(history.query(2L, Instant.ofEpochMilli(T0), Instant.ofEpochMilli(T0 + 1000), null)).isNull();
+    }
+
+    @Test
+    void takesAFewBytesPerPoint() {
+        StockHistory history = new StockHistory(null,
+                new HistoryProperties(128, Duration.ofDays(30), Duration.ofHours(1), 1000));
+        for (long productId = 1; productId <= 100; productId++) {
+            for (int i = 0; i < 1000; i++) {
+                history.record(productId, productId, i, T0 + i * 60_000L + (i % 7) * 13, 1000 - i % 50, false);
+            }
+        }
+
+        assertThat(history.points()).isEqualTo(100_000);
+        assertThat((double) history.bytes() / history.points()).isLessThan(4.0);
+    }
+
+    @Test
+    void dropsBlocksPastTheRetention() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 64; i++) {
+            history.record(1L, 10L, i, now - Duration.ofDays(40).toMillis() + i, i, false);
+        }
+        for (int i = 64; i < 70; i++) {
+            history.record(1L, 10L, i, now - 1000 + i, i, false);
+        }
+
+        history.prune();
+
+        assertThat(history.points()).isEqualTo(6);
+        assertThat(query(now - Duration.ofDays(50).toMillis(), now, null).points())
+                .extracting(StockHistoryPointDTO::quantity).containsExactly(64, 65, 66, 67, 68, 69);
+    }
+
+    @Test
+    void downsamplesRawQueriesWithMoreThanMaxPoints() {
+        for (int i = 0; i < 5000; i++) {
+            history.record(1L, 10L, i, T0 + i * 1000L, i % 100, false);
+        }
+
+        StockHistoryDTO capped = query(T0, T0 + 4_999_999, null);
+
+        assertThat(capped.step()).isEqualTo(Duration.ofMillis(5000));
+        assertThat(capped.points()).hasSize(1000);
+        assertThat(capped.points().getFirst()).isEqualTo(point(T0, 4, 0, 4));
+        assertThat(query(T0, T0 + 999_000, null).step()).isNull();
+        assertThat(query(T0, T0 + 999_000, null).points()).hasSize(1000);
+    }
+
+    @Test
+    void dropsSeriesOfRowsDeletedPastTheRetention() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 20; i++) {
+            history.record(1L, 10L, i, now - Duration.ofDays(40).toMillis() + i, i, false);
+        }
+        history.record(1L, 10L, 20, now - Duration.ofDays(40).toMillis() + 20, 0, true);
+        history.record(2L, 20L, 0, now - Duration.ofDays(40).toMillis(), 0, true);
+        history.record(2L, 20L, 1, now - 1000, 0, true);
+        history.record(3L, 30L, 0, now - Duration.ofDays(40).toMillis(), 7, false);
+
+        history.prune();
+
+        assertThat(query(now - Duration.ofDays(50).toMillis(), now, null)).isNull();
+        assertThat(history.query(2L, Instant.ofEpochMilli(now - 2000), Instant.ofEpochMilli(now), null)).isNotNull();
+        // An unchanged row still has a level to report
+        assertThat(history.query(3L, Instant.ofEpochMilli(now - 2000), Instant.ofEpochMilli(now), null).points())
+                .extracting(StockHistoryPointDTO::quantity).containsExactly(7);
+        assertThat(history.points()).isEqualTo(3);
+    }
+
+    private StockHistoryDTO query(long from, long to, Duration step) {
+        return history.query(1L, Instant.ofEpochMilli(from), Instant.ofEpochMilli(to), step);
+    }
+
+    private static StockHistoryPointDTO point(long timestamp, int quantity, int min, int max) {
+        return new StockHistoryPointDTO(Instant.ofEpochMilli(timestamp), quantity, min, max);
+    }
+}
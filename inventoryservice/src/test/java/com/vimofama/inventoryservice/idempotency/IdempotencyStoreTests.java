@@ -0,0 +1,130 @@
+package com.vimofama.inventoryservice.idempotency;
+
+import com.vimofama.inventoryservice.exception.IdempotencyKeyReusedException;
+import com.vimofama.inventoryservice.exception.IdempotentRequestInProgressException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IdempotencyStoreTests {
+
+    private final IdempotencyStore store = new IdempotencyStore(
+            new IdempotencyProperties(1000, Duration.ofHours(1), Duration.ofSeconds(5)));
+
+    @Test
+    void runsConcurrentDuplicatesOnceAndReturnsTheSameResponse() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        Set<Integer> bodies = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ResponseEntity<Integer> response = store.execute("clave-1", "increase:5", () -> {
+                        sleep(20);
+                        return ResponseEntity.ok(runs.incrementAndGet());
+                    });
+                    bodies.add(response.getBody());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(bodies).containsExactly(1);
+    }
+
+    @Test
+    void marksReplayedResponses() {
+        ResponseEntity<String> first = store.execute("clave-1", "increase:5", () -> ResponseEntity.ok("hecho"));
+        ResponseEntity<String> retry = store.execute("clave-1", "increase:5", () -> ResponseEntity.ok("otra vez"));
+
+        assertThat(first.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+        assertThat(retry.getBody()).isEqualTo("hecho");
+        assertThat(retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void rejectsAKeyReusedForAnotherRequest() {
+        store.execute("clave-1", "increase:5", () -> ResponseEntity.ok("hecho"));
+
+        assertThatThrownBy(() -> store.execute("clave-1", "increase:6", () -> ResponseEntity.ok("otra")))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void forgetsKeysWhoseRequestFailed() {
+        assertThatThrownBy(() -> store.execute("clave-1", "decrease:5", () -> {
+            throw new IllegalStateException("sin stock");
+        })).hasMessage("sin stock");
+
+        assertThat(store.execute("clave-1", "decrease:5", () -> ResponseEntity.ok("hecho")).getBody()).isEqualTo("hecho");
+    }
+
+    @Test
+    void givesUpWaitingAfterTheTimeout() throws Exception {
+        IdempotencyStore impatient = new IdempotencyStore(
+                new IdempotencyProperties(1000, Duration.ofHours(1), Duration.ofMillis(50)));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<ResponseEntity<String>> first = executor.submit(() -> impatient.execute("clave-1", "increase:5", () -> {
+                running.countDown();
+                await(release);
+                return ResponseEntity.ok("hecho");
+            }));
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> impatient.execute("clave-1", "increase:5", () -> ResponseEntity.ok("otra")))
+                    .isInstanceOf(IdempotentRequestInProgressException.class);
+            release.countDown();
+            assertThat(first.get().getBody()).isEqualTo("hecho");
+        }
+    }
+
+    @Test
+    void staysWithinItsMaximumSize() {
+        IdempotencyStore small = new IdempotencyStore(
+                new IdempotencyProperties(100, Duration.ofHours(1), Duration.ofSeconds(5)));
+        for (int i = 0; i < 10_000; i++) {
+            small.execute("clave-" + i, i, () -> ResponseEntity.ok("hecho"));
+        }
+
+        assertThat(small.size()).isLessThanOrEqualTo(100);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
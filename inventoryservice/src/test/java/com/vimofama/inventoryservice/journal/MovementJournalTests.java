@@ -0,0 +1,116 @@
+package com.vimofama.inventoryservice.journal;
+
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MovementJournalTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRotateSegmentsAndRecoverAfterRestart() throws Exception {
+        // Room for four records per segment
+        JournalProperties properties = new JournalProperties(directory,
+                DataSize.ofBytes(4 * MovementJournal.RECORD_SIZE), Duration.ofMillis(1), true);
+        UUID requestId = UUID.randomUUID();
+
+        MovementJournal journal = new MovementJournal(properties);
+        for (int i = 1; i <= 10; i++) {
+            journal.append(MovementType.INCREASE, i % 2 == 0 ? 2L : 1L, 1L, i, i, i * 10, 0,
+                    requestId.getMostSignificantBits(), requestId.getLeastSignificantBits());
+        }
+        journal.awaitDurable(10);
+        journal.destroy();
+
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments.count()).isEqualTo(3);
+        }
+
+        MovementJournal reopened = new MovementJournal(properties);
+        assertThat(reopened.lastSequence()).isEqualTo(10);
+        long next = reopened.append(MovementType.DECREASE, 1L, 1L, 11, -5, 45, 0, 0, 0);
+        assertThat(next).isEqualTo(11);
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        reopened.replay(0, replayed::add);
+        assertThat(replayed).extracting(JournalRecord::sequence)
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L);
+        assertThat(replayed.getFirst().requestId()).isEqualTo(requestId);
+        assertThat(replayed.getLast().requestId()).isNull();
+        assertThat(replayed.getLast().type()).isEqualTo(MovementType.DECREASE);
+        reopened.destroy();
+    }
+
+    @Test
+    void shouldFilterByProductTimeAndSequence() throws Exception {
+        MovementJournal journal = new MovementJournal(new JournalProperties(directory,
+                DataSize.ofBytes(8 * MovementJournal.RECORD_SIZE), Duration.ofMillis(1), true));
+        Instant before = Instant.now();
+        for (int i = 1; i <= 20; i++) {
+            journal.append(MovementType.MOVEMENT, i % 4L, i % 4L, i, 1, i, 0, 0, 0);
+        }
+
+        assertThat(journal.read(0, 3L, null, null, 100))
+                .extracting(JournalRecord::quantity)
+                .containsExactly(3, 7, 11, 15, 19);
+        assertThat(journal.read(15, null, null, null, 100))
+                .extracting(JournalRecord::sequence)
+                .containsExactly(16L, 17L, 18L, 19L, 20L);
+        assertThat(journal.read(0, null, null, null, 3)).hasSize(3);
+        assertThat(journal.read(0, null, before, Instant.now(), 100)).hasSize(20);
+        assertThat(journal.read(0, null, null, before.minusSeconds(60), 100)).isEmpty();
+        journal.destroy();
+    }
+
+    @Test
+    void shouldDropTornRecordOnRecovery() throws Exception {
+        JournalProperties properties = new JournalProperties(directory,
+                DataSize.ofBytes(16 * MovementJournal.RECORD_SIZE), Duration.ofMillis(1), true);
+        MovementJournal journal = new MovementJournal(properties);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(MovementType.INCREASE, 1L, 1L, i, 1, i, 0, 0, 0);
+        }
+        journal.destroy();
+
+        // Corrupt the quantity of the third record without touching its checksum
+        Path segment;
+        try (Stream<Path> segments = Files.list(directory)) {
+            segment = segments.findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[2 * MovementJournal.RECORD_SIZE + 28] ^= 0x7F;
+        Files.write(segment, bytes);
+
+        MovementJournal reopened = new MovementJournal(properties);
+        assertThat(reopened.lastSequence()).isEqualTo(2);
+        assertThat(reopened.append(MovementType.INCREASE, 1L, 1L, 3, 1, 3, 0, 0, 0)).isEqualTo(3);
+        reopened.destroy();
+    }
+
+    @Test
+    void shouldAnswerCommittedWritesOnlyOnceDurable() throws Exception {
+        // A long flush interval, so the second write would find its record still pending without the wait
+        MovementJournal journal = new MovementJournal(new JournalProperties(directory,
+                DataSize.ofBytes(16 * MovementJournal.RECORD_SIZE), Duration.ofMillis(200), true));
+        for (int i = 1; i <= 2; i++) {
+            journal.onInventoryChanged(new InventoryChangedEvent(MovementType.INCREASE, 1L, 1L, i, 1, i, 0, 0));
+            assertThat(journal.durableSequence()).isEqualTo(i);
+        }
+        journal.destroy();
+    }
+}
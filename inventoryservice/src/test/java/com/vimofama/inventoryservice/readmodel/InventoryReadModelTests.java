@@ -0,0 +1,165 @@
+package com.vimofama.inventoryservice.readmodel;
+
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import com.vimofama.inventoryservice.model.Inventory;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InventoryReadModelTests {
+
+    private final InventoryReadModel readModel = new InventoryReadModel(null, new ReadModelProperties(true));
+
+    @Test
+    void servesReadsOnlyOnceLoaded() {
+        JdbcTemplate emptyTable = new JdbcTemplate() {
+            @Override
+            public void query(String sql, RowCallbackHandler handler) {
+            }
+        };
+        InventoryReadModel loading = new InventoryReadModel(emptyTable, new ReadModelProperties(true));
+
+        assertThat(loading.servesReads()).isFalse();
+        assertThat(loading.status().servingReads()).isFalse();
+        loading.load();
+        assertThat(loading.servesReads()).isTrue();
+        assertThat(new InventoryReadModel(emptyTable, new ReadModelProperties(false)).servesReads()).isFalse();
+    }
+
+    @Test
+    void appliesCommittedChangesAndIgnoresOlderOnes() {
+        readModel.onInventoryChanged(event(MovementType.CREATE, 1L, 10L, 0, 5, 2));
+        readModel.onInventoryChanged(event(MovementType.INCREASE, 1L, 10L, 2, 8, 2));
+        readModel.onInventoryChanged(event(MovementType.INCREASE, 1L, 10L, 1, 6, 2));
+
+        Inventory inventory = readModel.get(1L);
+        assertThat(inventory.getId()).isEqualTo(10L);
+        assertThat(inventory.getQuantity()).isEqualTo(8);
+        assertThat(inventory.getReorderThreshold()).isEqualTo(2);
+        assertThat(inventory.getVersion()).isEqualTo(2L);
+        assertThat(readModel.get(2L)).isNull();
+        assertThat(readModel.status().generation()).isEqualTo(3);
+        assertThat(readModel.status().pendingChanges()).isZero();
+    }
+
+    @Test
+    void keepsTheLastUpdateOfTheWrite() {
+        readModel.onInventoryChanged(new InventoryChangedEvent(MovementType.CREATE, 1L, 10L, 0, 5, 5, 0,
+                1_700_000_000_000L));
+
+        assertThat(readModel.get(1L).getLastUpdate())
+                .isEqualTo(LocalDateTime.ofInstant(Instant.ofEpochMilli(1_700_000_000_000L), ZoneId.systemDefault()));
+    }
+
+    @Test
+    void keepsDeletedRowsOutUntilTheProductIsCreatedAgain() {
+        readModel.onInventoryChanged(event(MovementType.CREATE, 1L, 10L, 0, 5, 0));
+        InventoryChangedEvent lateIncrease = event(MovementType.INCREASE, 1L, 10L, 0, 7, 0);
+        // The increase is published in a transaction that only completes after the delete is applied
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            readModel.onInventoryChanging(lateIncrease);
+            readModel.onInventoryChanged(event(MovementType.DELETE, 1L, 10L, 1, 0, 0));
+            // A late change of the deleted row must not bring it back
+            readModel.onInventoryChanged(lateIncrease);
+            assertThat(readModel.get(1L)).isNull();
+            assertThat(readModel.status().items()).isZero();
+            assertThat(readModel.tombstones()).isEqualTo(1);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Nothing older can arrive any more, so the next publication drops the tombstone
+        readModel.onInventoryChanged(event(MovementType.CREATE, 2L, 20L, 0, 1, 0));
+        assertThat(readModel.tombstones()).isZero();
+        assertThat(readModel.get(1L)).isNull();
+
+        readModel.onInventoryChanged(event(MovementType.CREATE, 1L, 11L, 0, 3, 0));
+        assertThat(readModel.get(1L).getId()).isEqualTo(11L);
+        assertThat(readModel.get(1L).getQuantity()).isEqualTo(3);
+        assertThat(readModel.status().items()).isEqualTo(2);
+    }
+
+    @Test
+    void growsAndListsEveryRowByRowId() {
+        int products = 5_000;
+        for (long productId = products; productId >= 1; productId--) {
+            readModel.onInventoryChanged(event(MovementType.CREATE, productId, productId + 100, 0, (int) productId, 0));
+        }
+
+        List<Inventory> all = readModel.findAll();
+        assertThat(all).hasSize(products);
+        assertThat(all.getFirst().getProductId()).isEqualTo(1L);
+        assertThat(all.getLast().getProductId()).isEqualTo((long) products);
+        assertThat(all).isSortedAccordingTo((a, b) -> Long.compare(a.getId(), b.getId()));
+        for (long productId = 1; productId <= products; productId++) {
+            assertThat(readModel.get(productId).getQuantity()).isEqualTo((int) productId);
+        }
+    }
+
+    @Test
+    void leavesEarlierTablesUntouched() {
+        List<InventoryTable.Change> changes = new ArrayList<>();
+        for (long productId = 1; productId <= 100; productId++) {
+            changes.add(new InventoryTable.Change(productId, productId, 0, 1, 0, false, 0));
+        }
+        InventoryTable first = InventoryTable.EMPTY.apply(changes);
+        InventoryTable second = first.apply(List.of(
+                new InventoryTable.Change(1L, 1L, 1, 50, 0, false, 0),
+                new InventoryTable.Change(2L, 2L, 1, 0, 0, true, 0)));
+
+        assertThat(InventoryTable.EMPTY.size()).isZero();
+        assertThat(first.size()).isEqualTo(100);
+        assertThat(first.get(1L).getQuantity()).isEqualTo(1);
+        assertThat(first.get(2L)).isNotNull();
+        assertThat(second.size()).isEqualTo(99);
+        assertThat(second.get(1L).getQuantity()).isEqualTo(50);
+        assertThat(second.get(2L)).isNull();
+        assertThat(second.get(3L).getQuantity()).isEqualTo(1);
+    }
+
+    @Test
+    void purgesTombstonesWithoutLosingOtherRows() {
+        List<InventoryTable.Change> changes = new ArrayList<>();
+        for (long productId = 1; productId <= 2_000; productId++) {
+            changes.add(new InventoryTable.Change(productId, productId, 0, (int) productId, 0, false, 0));
+        }
+        List<InventoryTable.Change> deletes = new ArrayList<>();
+        for (long productId = 2; productId <= 2_000; productId += 2) {
+            deletes.add(new InventoryTable.Change(productId, productId, 1, 0, 0, true, 0));
+        }
+        InventoryTable table = InventoryTable.EMPTY.apply(changes).apply(deletes);
+        // Created again after its delete, so its tombstone is already gone
+        table = table.apply(List.of(new InventoryTable.Change(2L, 5_000L, 0, 9, 0, false, 0)));
+
+        InventoryTable purged = table.purge(deletes);
+
+        assertThat(purged.size()).isEqualTo(1_001);
+        assertThat(purged.get(2L).getQuantity()).isEqualTo(9);
+        for (long productId = 1; productId <= 2_000; productId += 2) {
+            assertThat(purged.get(productId).getQuantity()).isEqualTo((int) productId);
+        }
+        assertThat(purged.get(4L)).isNull();
+        // Without the tombstone an old change would be taken again, which is why purging waits for late changes
+        assertThat(purged.apply(List.of(changes.get(3))).get(4L)).isNotNull();
+        assertThat(table.apply(List.of(changes.get(3))).get(4L)).isNull();
+    }
+
+    private static InventoryChangedEvent event(MovementType type, Long productId, Long inventoryId, long version,
+                                               int quantity, int reorderThreshold) {
+        return new InventoryChangedEvent(type, productId, inventoryId, version, 0, quantity, reorderThreshold, 0);
+    }
+}
@@ -0,0 +1,151 @@
+package com.vimofama.inventoryservice.replica;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.vimofama.inventoryservice.client.ProductServiceClient;
+import com.vimofama.inventoryservice.client.ProductServiceProperties;
+import com.vimofama.inventoryservice.dto.ProductChangeDTO;
+import com.vimofama.inventoryservice.dto.ProductChangePageDTO;
+import com.vimofama.inventoryservice.dto.ProductSummaryDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductReplicaTests {
+
+    private static final int PAGE_SIZE = 2;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ProductChangeDTO> feed = new CopyOnWriteArrayList<>();
+    private final List<Long> requestedAfter = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private ProductServiceClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/products/changes", exchange -> {
+            Map<String, String> query = UriComponentsBuilder.fromUri(exchange.getRequestURI()).build().getQueryParams().toSingleValueMap();
+            long after = Long.parseLong(query.get("after"));
+            int limit = Integer.parseInt(query.get("limit"));
+            requestedAfter.add(after);
+            List<ProductChangeDTO> changes = feed.stream()
+                    .filter(change -> change.sequence() > after)
+                    .limit(limit)
+                    .toList();
+            long head = feed.isEmpty() ? 0 : feed.getLast().sequence();
+            byte[] body = objectMapper.writeValueAsBytes(new ProductChangePageDTO(changes,
+                    changes.isEmpty() ? after : changes.getLast().sequence(), head));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        client = new ProductServiceClient(new ProductServiceProperties(
+                "http://localhost:" + server.getAddress().getPort(),
+                Duration.ofSeconds(1),
+                Duration.ofSeconds(1),
+                10,
+                Duration.ofSeconds(30),
+                new ProductServiceProperties.CircuitBreakerProperties(5, Duration.ofMinutes(1)),
+                new ProductServiceProperties.BulkheadProperties(5, Duration.ofMillis(100))
+        ), new RestTemplateBuilder());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void catchesUpPageByPageAndAppliesDeletes() throws IOException {
+        feed.add(change(1, "CREATED", 10L, "Teclado", "9.99"));
+        feed.add(change(2, "CREATED", 11L, "Mouse", "4.99"));
+        feed.add(change(3, "UPDATED", 10L, "Teclado mecánico", "19.99"));
+        feed.add(change(4, "CREATED", 12L, "Monitor", "99.00"));
+        feed.add(change(5, "DELETED", 11L, "Mouse", "4.99"));
+        ProductReplica replica = replica();
+
+        assertThat(replica.poll()).isEqualTo(5);
+        assertThat(requestedAfter).containsExactly(0L, 2L, 4L);
+        assertThat(replica.get(10L)).isEqualTo(new ProductSummaryDTO(10L, "Teclado mecánico", "SKU-10", new BigDecimal("19.99")));
+        assertThat(replica.get(11L)).isNull();
+        assertThat(replica.status().products()).isEqualTo(2);
+        assertThat(replica.status().lag()).isZero();
+
+        assertThat(replica.poll()).isZero();
+        assertThat(requestedAfter).endsWith(5L);
+    }
+
+    @Test
+    void resumesFromThePersistedSequenceAfterRestart() throws IOException {
+        feed.add(change(1, "CREATED", 10L, "Teclado", "9.99"));
+        feed.add(change(2, "CREATED", 11L, "Mouse", null));
+        ProductReplica replica = replica();
+        replica.poll();
+        replica.destroy();
+
+        feed.add(change(3, "UPDATED", 11L, "Mouse", "4.99"));
+        requestedAfter.clear();
+        ProductReplica restarted = replica();
+        assertThat(restarted.lastSequence()).isEqualTo(2);
+        assertThat(restarted.get(11L).price()).isNull();
+
+        assertThat(restarted.poll()).isEqualTo(1);
+        assertThat(requestedAfter).containsExactly(2L);
+        assertThat(restarted.get(10L).name()).isEqualTo("Teclado");
+        assertThat(restarted.get(11L).price()).isEqualByComparingTo("4.99");
+    }
+
+    @Test
+    void rebuildsWhenTheFeedStartsOver() throws IOException {
+        feed.add(change(1, "CREATED", 10L, "Teclado", "9.99"));
+        feed.add(change(2, "CREATED", 11L, "Mouse", "4.99"));
+        feed.add(change(3, "CREATED", 12L, "Monitor", "99.00"));
+        ProductReplica replica = replica();
+        replica.poll();
+
+        feed.clear();
+        feed.add(change(1, "CREATED", 20L, "Silla", "150.00"));
+        replica.poll();
+
+        assertThat(replica.lastSequence()).isEqualTo(1);
+        assertThat(replica.get(10L)).isNull();
+        assertThat(replica.get(20L).name()).isEqualTo("Silla");
+    }
+
+    private ProductReplica replica() throws IOException {
+        ProductReplica replica = new ProductReplica(client,
+                new ProductReplicaProperties(directory, Duration.ofHours(1), PAGE_SIZE, Duration.ofHours(1)), event -> {
+        });
+        replica.afterSingletonsInstantiated();
+        return replica;
+    }
+
+    private static ProductChangeDTO change(long sequence, String type, Long productId, String name, String price) {
+        return new ProductChangeDTO(sequence, type, productId, name, "SKU-" + productId,
+                price == null ? null : new BigDecimal(price), 0L);
+    }
+}
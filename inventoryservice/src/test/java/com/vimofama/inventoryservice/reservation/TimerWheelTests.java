@@ -0,0 +1,79 @@
+package com.vimofama.inventoryservice.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimerWheelTests {
+
+    @Test
+    void shouldFireKeysOnlyOnceTheirDeadlinePassed() {
+        AtomicLong clock = new AtomicLong(1_000);
+        List<String> expired = new ArrayList<>();
+        TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(10), 8, expired::add, clock::get, false);
+
+        wheel.schedule("a", 1_025);
+        wheel.schedule("b", 1_500);
+
+        clock.set(1_020);
+        wheel.advance();
+        assertThat(expired).isEmpty();
+
+        clock.set(1_030);
+        wheel.advance();
+        assertThat(expired).containsExactly("a");
+
+        // "b" is several revolutions away and shares buckets with earlier ticks
+        for (long now = 1_040; now < 1_500; now += 10) {
+            clock.set(now);
+            wheel.advance();
+        }
+        assertThat(expired).containsExactly("a");
+
+        clock.set(1_500);
+        wheel.advance();
+        assertThat(expired).containsExactly("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void shouldNotFireCancelledOrRescheduledKeys() {
+        AtomicLong clock = new AtomicLong(0);
+        List<String> expired = new ArrayList<>();
+        TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(10), 8, expired::add, clock::get, false);
+
+        wheel.schedule("cancelled", 50);
+        wheel.schedule("moved", 50);
+        assertThat(wheel.cancel("cancelled")).isTrue();
+        wheel.schedule("moved", 200);
+
+        clock.set(100);
+        wheel.advance();
+        assertThat(expired).isEmpty();
+
+        clock.set(200);
+        wheel.advance();
+        assertThat(expired).containsExactly("moved");
+    }
+
+    @Test
+    void shouldFirePastDeadlinesOnNextTickAndCatchUpAfterLongPauses() {
+        AtomicLong clock = new AtomicLong(1_000);
+        List<Integer> expired = new ArrayList<>();
+        TimerWheel<Integer> wheel = new TimerWheel<>(Duration.ofMillis(10), 4, expired::add, clock::get, false);
+
+        wheel.schedule(1, 500);
+        for (int key = 2; key <= 20; key++) {
+            wheel.schedule(key, 1_000 + key * 10L);
+        }
+
+        clock.set(5_000);
+        wheel.advance();
+        assertThat(expired).hasSize(20);
+    }
+}
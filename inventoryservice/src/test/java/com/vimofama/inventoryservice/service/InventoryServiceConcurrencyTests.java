@@ -0,0 +1,131 @@
+package com.vimofama.inventoryservice.service;
+
+import com.vimofama.inventoryservice.exception.InsufficientStockException;
+import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class InventoryServiceConcurrencyTests {
+
+    private static final Long PRODUCT_ID = 42L;
+    private static final int THREADS = 32;
+    private static final int REQUESTS = 4000;
+
+    @Autowired
+    InventoryService inventoryService;
+
+    @Autowired
+    InventoryRepository inventoryRepository;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+    }
+
+    @Test
+    void shouldNotLoseConcurrentIncreases() throws Exception {
+        inventoryRepository.save(new Inventory(PRODUCT_ID, 0, LocalDateTime.now()));
+
+        runConcurrently(REQUESTS, () -> inventoryService.increaseQuantity(PRODUCT_ID, 1));
+
+        assertThat(inventoryService.findByProductId(PRODUCT_ID).getQuantity()).isEqualTo(REQUESTS);
+    }
+
+    @Test
+    void shouldNotLoseMixedIncreasesAndDecreases() throws Exception {
+        inventoryRepository.save(new Inventory(PRODUCT_ID, REQUESTS, LocalDateTime.now()));
+        AtomicInteger counter = new AtomicInteger();
+
+        runConcurrently(REQUESTS, () -> {
+            if (counter.getAndIncrement() % 2 == 0) {
+                inventoryService.increaseQuantity(PRODUCT_ID, 3);
+            } else {
+                inventoryService.decreaseQuantity(PRODUCT_ID, 1);
+            }
+        });
+
+        assertThat(inventoryService.findByProductId(PRODUCT_ID).getQuantity()).isEqualTo(REQUESTS + REQUESTS);
+    }
+
+    @Test
+    void shouldNeverDecreaseBelowZero() throws Exception {
+        int initial = REQUESTS / 4;
+        inventoryRepository.save(new Inventory(PRODUCT_ID, initial, LocalDateTime.now()));
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(REQUESTS, () -> {
+            try {
+                inventoryService.decreaseQuantity(PRODUCT_ID, 1);
+            } catch (InsufficientStockException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertThat(inventoryService.findByProductId(PRODUCT_ID).getQuantity()).isZero();
+        assertThat(rejected.get()).isEqualTo(REQUESTS - initial);
+    }
+
+    @Test
+    void shouldAnswerEachCombinedDecreaseWithItsOwnResultingQuantityAndVersion() throws Exception {
+        inventoryRepository.save(new Inventory(PRODUCT_ID, REQUESTS, LocalDateTime.now()));
+        Set<Integer> quantities = ConcurrentHashMap.newKeySet();
+        Set<Long> versions = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(REQUESTS, () -> {
+            Inventory inventory = inventoryService.decreaseQuantity(PRODUCT_ID, 1);
+            quantities.add(inventory.getQuantity());
+            versions.add(inventory.getVersion());
+        });
+
+        assertThat(quantities).hasSize(REQUESTS).contains(0, REQUESTS - 1);
+        assertThat(versions).hasSize(REQUESTS).contains(1L, (long) REQUESTS);
+        assertThat(inventoryService.getAdjustmentCombiner().batches()).isLessThan(inventoryService.getAdjustmentCombiner().adjustments());
+        Inventory last = inventoryService.findByProductId(PRODUCT_ID);
+        assertThat(last.getQuantity()).isZero();
+        assertThat(last.getVersion()).isEqualTo(REQUESTS);
+    }
+
+    @Test
+    void shouldReturnNullWhenAdjustingUnknownProduct() {
+        assertThat(inventoryService.increaseQuantity(999L, 1)).isNull();
+        assertThat(inventoryService.decreaseQuantity(999L, 1)).isNull();
+    }
+
+    private void runConcurrently(int requests, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
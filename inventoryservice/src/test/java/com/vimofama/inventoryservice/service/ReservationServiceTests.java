@@ -0,0 +1,65 @@
+package com.vimofama.inventoryservice.service;
+
+import com.vimofama.inventoryservice.dto.CreateReservationDTO;
+import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.model.Reservation;
+import com.vimofama.inventoryservice.repository.InventoryRepository;
+import com.vimofama.inventoryservice.repository.ReservationRepository;
+import com.vimofama.inventoryservice.reservation.StockCounters;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReservationServiceTests {
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ReservationRepository reservationRepository;
+
+    @Autowired
+    InventoryRepository inventoryRepository;
+
+    @Autowired
+    StockCounters stockCounters;
+
+    @Test
+    void shouldRestoreActiveReservationsFromDatabase() {
+        inventoryRepository.save(new Inventory(7L, 10, LocalDateTime.now()));
+        LocalDateTime now = LocalDateTime.now();
+        reservationRepository.save(new Reservation(7L, 4, now, now.plusMinutes(10)));
+        reservationRepository.save(new Reservation(7L, 3, now, now.plusMinutes(10)));
+
+        // Same path the service runs on startup
+        reservationService.afterSingletonsInstantiated();
+
+        assertThat(reservationService.availability(7L).reserved()).isEqualTo(7);
+        assertThat(reservationService.availability(7L).available()).isEqualTo(3);
+        assertThat(reservationService.pendingExpirations()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepReservedAmountsWhileTheRowIsMissing() {
+        Inventory inventory = inventoryRepository.save(new Inventory(7L, 10, LocalDateTime.now()));
+        Reservation reservation = reservationService.reserve(new CreateReservationDTO(7L, 4, null));
+
+        // A write that bypassed the service removes the row; the next check finds it missing
+        inventoryRepository.delete(inventory);
+        stockCounters.refresh(7L);
+        assertThat(reservationService.availability(7L)).isNull();
+
+        inventoryRepository.save(new Inventory(7L, 10, LocalDateTime.now()));
+        assertThat(reservationService.availability(7L).reserved()).isEqualTo(4);
+
+        reservationService.release(reservation.getId(), reservation.getProductId());
+        assertThat(reservationService.availability(7L).reserved()).isZero();
+    }
+}
@@ -0,0 +1,57 @@
+package com.vimofama.inventoryservice.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HashRingTests {
+
+    private static final int PRODUCTS = 100_000;
+
+    @Test
+    void spreadsProductsEvenly() {
+        HashRing ring = new HashRing(List.of("http://a:8001", "http://b:8001", "http://c:8001"), 128);
+
+        Map<String, Integer> owned = new HashMap<>();
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            owned.merge(ring.ownerOf(productId), 1, Integer::sum);
+        }
+
+        assertThat(owned).hasSize(3);
+        assertThat(owned.values()).allSatisfy(count ->
+                assertThat(count).isBetween(PRODUCTS / 3 * 8 / 10, PRODUCTS / 3 * 12 / 10));
+    }
+
+    @Test
+    void addingANodeOnlyMovesProductsToIt() {
+        HashRing before = new HashRing(List.of("http://a:8001", "http://b:8001", "http://c:8001"), 128);
+        HashRing after = new HashRing(List.of("http://a:8001", "http://b:8001", "http://c:8001", "http://d:8001"), 128);
+
+        int moved = 0;
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            String owner = after.ownerOf(productId);
+            if (!owner.equals(before.ownerOf(productId))) {
+                assertThat(owner).isEqualTo("http://d:8001");
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(PRODUCTS / 4 * 8 / 10, PRODUCTS / 4 * 12 / 10);
+    }
+
+    @Test
+    void ignoresOrderAndDuplicatesOfNodes() {
+        HashRing ring = new HashRing(List.of("http://b:8001", "http://a:8001", "http://b:8001"), 16);
+        HashRing sorted = new HashRing(List.of("http://a:8001", "http://b:8001"), 16);
+
+        assertThat(ring.nodes()).containsExactly("http://a:8001", "http://b:8001");
+        for (long productId = 1; productId <= 1000; productId++) {
+            assertThat(ring.ownerOf(productId)).isEqualTo(sorted.ownerOf(productId));
+        }
+        assertThat(new HashRing(List.of(), 16).ownerOf(1L)).isNull();
+    }
+}
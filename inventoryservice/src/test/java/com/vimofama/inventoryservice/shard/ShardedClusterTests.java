@@ -0,0 +1,403 @@
+package com.vimofama.inventoryservice.shard;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.vimofama.inventoryservice.InventoryserviceApplication;
+import com.vimofama.inventoryservice.cache.ProductExistenceCache;
+import com.vimofama.inventoryservice.dto.ClusterMembersDTO;
+import com.vimofama.inventoryservice.dto.CreateInventoryBatchDTO;
+import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import com.vimofama.inventoryservice.dto.CreateReservationDTO;
+import com.vimofama.inventoryservice.dto.HandoffBatchDTO;
+import com.vimofama.inventoryservice.dto.HandoffRowDTO;
+import com.vimofama.inventoryservice.dto.JoinClusterDTO;
+import com.vimofama.inventoryservice.dto.QuantityDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardedClusterTests {
+
+    private static final int PRODUCTS = 200;
+    private static final String SECRET = "cluster-secret";
+
+    private final TestRestTemplate restTemplate =
+            new TestRestTemplate(new RestTemplateBuilder().redirects(ClientHttpRequestFactorySettings.Redirects.DONT_FOLLOW));
+    private final List<ConfigurableApplicationContext> nodes = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void routesProductsToTheirOwnersAndRebalancesOnJoin() throws Exception {
+        String a = start(null);
+        String b = start(a);
+        awaitRebalanced(List.of(a, b));
+
+        List<CreateInventoryDTO> items = new ArrayList<>();
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            items.add(new CreateInventoryDTO(productId, (int) productId, 5));
+        }
+        ResponseEntity<String> created = restTemplate.postForEntity(a + "/api/inventory/bulk",
+                new CreateInventoryBatchDTO(items), String.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat((List<Object>) JsonPath.parse(created.getBody()).read("$.created")).hasSize(PRODUCTS);
+
+        Map<Long, Integer> local = new HashMap<>(localQuantities(a));
+        local.putAll(localQuantities(b));
+        assertThat(local).hasSize(PRODUCTS);
+        assertThat(localQuantities(a)).isNotEmpty();
+        assertThat(localQuantities(b)).isNotEmpty();
+
+        long remote = localQuantities(b).keySet().iterator().next();
+        ResponseEntity<String> redirected = restTemplate.postForEntity(a + "/api/inventory/increase/" + remote,
+                new QuantityDTO(10), String.class);
+        assertThat(redirected.getStatusCode()).isEqualTo(HttpStatus.TEMPORARY_REDIRECT);
+        assertThat(redirected.getHeaders().getLocation()).hasToString(b + "/api/inventory/increase/" + remote);
+        restTemplate.postForEntity(b + "/api/inventory/increase/" + remote, new QuantityDTO(10), String.class);
+
+        for (String node : List.of(a, b)) {
+            DocumentContext all = JsonPath.parse(restTemplate.getForObject(node + "/api/inventory", String.class));
+            assertThat((List<Integer>) all.read("$[*].productId")).hasSize(PRODUCTS).isSorted();
+        }
+
+        String c = start(a);
+        awaitRebalanced(List.of(a, b, c));
+
+        Map<Long, Integer> rebalanced = new HashMap<>();
+        for (String node : List.of(a, b, c)) {
+            DocumentContext status = JsonPath.parse(fromCluster(node + "/api/inventory/cluster").getBody());
+            assertThat((List<String>) status.read("$.nodes")).containsExactlyInAnyOrder(a, b, c);
+            Map<Long, Integer> held = localQuantities(node);
+            ShardRouter router = router(node);
+            assertThat(held.keySet()).allSatisfy(productId -> assertThat(router.ownerOf(productId)).isEqualTo(node));
+            held.forEach((productId, quantity) -> assertThat(rebalanced.put(productId, quantity)).isNull());
+        }
+        assertThat(localQuantities(c)).isNotEmpty();
+        assertThat(rebalanced).hasSize(PRODUCTS);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            assertThat(rebalanced.get(productId)).isEqualTo((int) productId + (productId == remote ? 10 : 0));
+        }
+    }
+
+    @Test
+    void joinsThroughDifferentSeedsAtTheSameTime() throws Exception {
+        String a = start(null);
+        String b = start(a);
+        awaitRebalanced(List.of(a, b));
+
+        ExecutorService joiners = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> c = joiners.submit(() -> start(a));
+            Future<String> d = joiners.submit(() -> start(b));
+            List<String> cluster = List.of(a, b, c.get(60, TimeUnit.SECONDS), d.get(60, TimeUnit.SECONDS));
+            awaitRebalanced(cluster);
+            for (String node : cluster) {
+                DocumentContext status = JsonPath.parse(fromCluster(node + "/api/inventory/cluster").getBody());
+                assertThat((List<String>) status.read("$.nodes")).containsExactlyInAnyOrderElementsOf(cluster);
+            }
+        } finally {
+            joiners.shutdownNow();
+        }
+    }
+
+    @Test
+    void handsOffRowsAsTheyAreAfterTheSwitchAndTheProductsDeletedSinceThePrepare() throws Exception {
+        String a = start(null);
+        List<CreateInventoryDTO> items = new ArrayList<>();
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            items.add(new CreateInventoryDTO(productId, 100, 5));
+        }
+        restTemplate.postForEntity(a + "/api/inventory/bulk", new CreateInventoryBatchDTO(items), String.class);
+        // Not a member yet: routes by a's ring, as a node joining through a seed does
+        String b = start(null, "--inventory.shard.nodes=" + a);
+
+        List<String> nodes = new ArrayList<>(List.of(a, b));
+        nodes.sort(null);
+        HashRing next = new HashRing(nodes, 128);
+        List<Long> moving = new ArrayList<>();
+        for (long productId = 1; productId <= PRODUCTS && moving.size() < 2; productId++) {
+            if (next.ownerOf(productId).equals(b)) {
+                moving.add(productId);
+            }
+        }
+        long deleted = moving.get(0);
+        long decreased = moving.get(1);
+
+        assertThat(toCluster(a, "/prepare", new ClusterMembersDTO(nodes)).getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(localQuantities(b)).containsKeys(deleted, decreased);
+        restTemplate.delete(a + "/api/inventory/" + deleted);
+        restTemplate.postForEntity(a + "/api/inventory/decrease/" + decreased, new QuantityDTO(30), String.class);
+        toCluster(b, "/commit", new ClusterMembersDTO(nodes));
+        // b already routes by the new ring while a still holds every row: each product is listed once
+        List<Integer> listed = JsonPath.parse(restTemplate.getForObject(b + "/api/inventory", String.class))
+                .read("$[*].productId");
+        assertThat(listed).hasSize(PRODUCTS).doesNotHaveDuplicates().isSorted();
+        toCluster(a, "/commit", new ClusterMembersDTO(nodes));
+        awaitRebalanced(nodes);
+
+        Map<Long, Integer> heldByB = localQuantities(b);
+        assertThat(heldByB).doesNotContainKey(deleted).containsEntry(decreased, 70);
+        assertThat(heldByB.keySet()).allSatisfy(productId -> assertThat(next.ownerOf(productId)).isEqualTo(b));
+        assertThat(localQuantities(a).keySet()).allSatisfy(productId -> assertThat(next.ownerOf(productId)).isEqualTo(a));
+        assertThat(localQuantities(a).size() + heldByB.size()).isEqualTo(PRODUCTS - 1);
+        DocumentContext moved = JsonPath.parse(fromCluster(b + "/api/inventory/" + decreased).getBody());
+        assertThat(moved.read("$.version", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void refusesToPrepareWhileMovingProductsHaveActiveReservationsAndTakesNoneUntilTheCommit() throws Exception {
+        String a = start(null);
+        List<CreateInventoryDTO> items = new ArrayList<>();
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            items.add(new CreateInventoryDTO(productId, 100, 5));
+        }
+        restTemplate.postForEntity(a + "/api/inventory/bulk", new CreateInventoryBatchDTO(items), String.class);
+        String b = start(null, "--inventory.shard.nodes=" + a);
+
+        List<String> nodes = new ArrayList<>(List.of(a, b));
+        nodes.sort(null);
+        HashRing next = new HashRing(nodes, 128);
+        long moving = LongStream.rangeClosed(1, PRODUCTS)
+                .filter(productId -> next.ownerOf(productId).equals(b))
+                .findFirst()
+                .orElseThrow();
+        long staying = LongStream.rangeClosed(1, PRODUCTS)
+                .filter(productId -> next.ownerOf(productId).equals(a))
+                .findFirst()
+                .orElseThrow();
+
+        long reservation = reserve(a, moving);
+        assertThat(toCluster(a, "/prepare", new ClusterMembersDTO(nodes)).getStatusCode())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(localQuantities(b)).isEmpty();
+        long another = reserve(a, moving);
+
+        for (long id : List.of(reservation, another)) {
+            restTemplate.postForEntity(a + "/api/inventory/reservations/" + id + "/release?productId=" + moving, null, String.class);
+        }
+        assertThat(toCluster(a, "/prepare", new ClusterMembersDTO(nodes)).getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(localQuantities(b)).containsKey(moving);
+        assertThat(restTemplate.postForEntity(a + "/api/inventory/reservations", new CreateReservationDTO(moving, 1, null),
+                String.class).getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        reserve(a, staying);
+
+        toCluster(a, "/abort", new ClusterMembersDTO(nodes));
+        toCluster(b, "/abort", new ClusterMembersDTO(nodes));
+        assertThat(localQuantities(b)).isEmpty();
+        reserve(a, moving);
+    }
+
+    @Test
+    void importsHandedOffRowsWithTheirVersionOnlyForExistingProducts() throws Exception {
+        String a = start(null);
+        context(a).getBean(ProductExistenceCache.class).put(PRODUCTS + 1L, false);
+
+        DocumentContext result = JsonPath.parse(handoff(a, new HandoffRowDTO(1L, 8, 2, 7),
+                new HandoffRowDTO(PRODUCTS + 1L, 3, 0, 4)).getBody());
+        assertThat((List<Integer>) result.read("$.missing")).containsExactly(PRODUCTS + 1);
+        DocumentContext imported = JsonPath.parse(fromCluster(a + "/api/inventory/1").getBody());
+        assertThat(imported.read("$.quantity", Integer.class)).isEqualTo(8);
+        assertThat(imported.read("$.reorderThreshold", Integer.class)).isEqualTo(2);
+        assertThat(imported.read("$.version", Long.class)).isEqualTo(7);
+        assertThat(fromCluster(a + "/api/inventory/" + (PRODUCTS + 1)).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        handoff(a, new HandoffRowDTO(1L, 5, 2, 9));
+        DocumentContext replaced = JsonPath.parse(fromCluster(a + "/api/inventory/1").getBody());
+        assertThat(replaced.read("$.quantity", Integer.class)).isEqualTo(5);
+        assertThat(replaced.read("$.version", Long.class)).isEqualTo(9);
+    }
+
+    @Test
+    void routesReservationsByTheirProduct() throws Exception {
+        String a = start(null);
+        String b = start(a);
+        awaitRebalanced(List.of(a, b));
+        long onA = LongStream.rangeClosed(1, PRODUCTS)
+                .filter(productId -> router(a).ownerOf(productId).equals(a))
+                .findFirst()
+                .orElseThrow();
+        long onB = LongStream.rangeClosed(1, PRODUCTS)
+                .filter(productId -> router(a).ownerOf(productId).equals(b))
+                .findFirst()
+                .orElseThrow();
+        restTemplate.postForEntity(a + "/api/inventory/bulk", new CreateInventoryBatchDTO(
+                List.of(new CreateInventoryDTO(onA, 10, 5), new CreateInventoryDTO(onB, 10, 5))), String.class);
+        ResponseEntity<String> reserved = restTemplate.postForEntity(b + "/api/inventory/reservations",
+                new CreateReservationDTO(onB, 1, null), String.class);
+        long id = JsonPath.parse(reserved.getBody()).read("$.id", Long.class);
+        // Both nodes hand out the same ids
+        assertThat(reserve(a, onA)).isEqualTo(id);
+        assertThat(reserved.getHeaders().getLocation())
+                .hasToString(b + "/api/inventory/reservations/" + id + "?productId=" + onB);
+
+        ResponseEntity<String> redirected = restTemplate.postForEntity(
+                a + "/api/inventory/reservations/" + id + "/commit?productId=" + onB, null, String.class);
+        assertThat(redirected.getStatusCode()).isEqualTo(HttpStatus.TEMPORARY_REDIRECT);
+        assertThat(redirected.getHeaders().getLocation())
+                .hasToString(b + "/api/inventory/reservations/" + id + "/commit?productId=" + onB);
+        assertThat(restTemplate.postForEntity(b + "/api/inventory/reservations/" + id + "/commit?productId=" + onB,
+                null, String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(restTemplate.getForEntity(a + "/api/inventory/reservations/" + id + "?productId=" + onA,
+                String.class).getBody()).contains("\"status\":\"ACTIVE\"");
+        long otherOnA = LongStream.rangeClosed(onA + 1, PRODUCTS)
+                .filter(productId -> router(a).ownerOf(productId).equals(a))
+                .findFirst()
+                .orElseThrow();
+        assertThat(restTemplate.postForEntity(a + "/api/inventory/reservations/" + id + "/release?productId=" + otherOnA,
+                null, String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(restTemplate.postForEntity(a + "/api/inventory/reservations/" + id + "/release",
+                null, String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void ignoresForwardedHeaderWithoutTheSharedSecret() throws Exception {
+        String a = start(null);
+        String b = start(a);
+        awaitRebalanced(List.of(a, b));
+        long remote = LongStream.rangeClosed(1, PRODUCTS)
+                .filter(productId -> router(a).ownerOf(productId).equals(b))
+                .findFirst()
+                .orElseThrow();
+        restTemplate.postForEntity(a + "/api/inventory/bulk", new CreateInventoryBatchDTO(
+                List.of(new CreateInventoryDTO(remote, 1, 5))), String.class);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ShardRouter.FORWARDED_HEADER, "true");
+        ResponseEntity<String> spoofed = restTemplate.exchange(a + "/api/inventory/increase/" + remote, HttpMethod.POST,
+                new HttpEntity<>(new QuantityDTO(10), headers), String.class);
+        assertThat(spoofed.getStatusCode()).isEqualTo(HttpStatus.TEMPORARY_REDIRECT);
+
+        Map<String, Object> requests = Map.of(
+                "/join", new JoinClusterDTO("http://localhost:1"),
+                "/prepare", new ClusterMembersDTO(List.of(a, b)),
+                "/commit", new ClusterMembersDTO(List.of(a, b)),
+                "/handoff", new HandoffBatchDTO(b, List.of(new HandoffRowDTO(3L, 3, 5, 0)), List.of(), true));
+        requests.forEach((path, body) -> assertThat(restTemplate.exchange(a + "/api/inventory/cluster" + path,
+                HttpMethod.POST, new HttpEntity<>(body, headers), String.class).getStatusCode())
+                .isEqualTo(HttpStatus.FORBIDDEN));
+        assertThat(restTemplate.exchange(a + "/api/inventory/cluster", HttpMethod.GET, new HttpEntity<>(headers),
+                String.class).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(fromCluster(a + "/api/inventory/cluster").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private String start(String seed, String... extraArgs) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String self = "http://localhost:" + port;
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=" + port,
+                "--inventory.shard.enabled=true",
+                "--inventory.shard.self=" + self,
+                "--inventory.shard.secret=" + SECRET,
+                "--inventory.shard.join-retry-interval=200ms"));
+        if (seed != null) {
+            args.add("--inventory.shard.seed=" + seed);
+        }
+        args.addAll(List.of(extraArgs));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(InventoryserviceApplication.class)
+                .run(args.toArray(String[]::new));
+        nodes.add(context);
+        ProductExistenceCache productExistenceCache = context.getBean(ProductExistenceCache.class);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            productExistenceCache.put(productId, true);
+        }
+        return self;
+    }
+
+    private ConfigurableApplicationContext context(String node) {
+        return nodes.stream()
+                .filter(context -> context.getBean(ShardRouter.class).self().equals(node))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private ShardRouter router(String node) {
+        return context(node).getBean(ShardRouter.class);
+    }
+
+    private Map<Long, Integer> localQuantities(String node) {
+        DocumentContext items = JsonPath.parse(fromCluster(node + "/api/inventory").getBody());
+        List<Number> productIds = items.read("$[*].productId");
+        List<Integer> quantities = items.read("$[*].quantity");
+        Map<Long, Integer> held = new HashMap<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            held.put(productIds.get(i).longValue(), quantities.get(i));
+        }
+        return held;
+    }
+
+    private ResponseEntity<String> fromCluster(String url) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ShardRouter.FORWARDED_HEADER, SECRET);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private ResponseEntity<String> toCluster(String node, String path, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ShardRouter.FORWARDED_HEADER, SECRET);
+        return restTemplate.postForEntity(node + "/api/inventory/cluster" + path, new HttpEntity<>(body, headers),
+                String.class);
+    }
+
+    private ResponseEntity<String> handoff(String node, HandoffRowDTO... rows) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ShardRouter.FORWARDED_HEADER, SECRET);
+        ResponseEntity<String> response = restTemplate.postForEntity(node + "/api/inventory/cluster/handoff",
+                new HttpEntity<>(new HandoffBatchDTO(node, List.of(rows), List.of(), false), headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response;
+    }
+
+    private long reserve(String node, long productId) {
+        ResponseEntity<String> reserved = restTemplate.postForEntity(node + "/api/inventory/reservations",
+                new CreateReservationDTO(productId, 1, null), String.class);
+        assertThat(reserved.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return JsonPath.parse(reserved.getBody()).read("$.id", Long.class);
+    }
+
+    private void awaitRebalanced(List<String> cluster) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            boolean rebalanced = true;
+            for (String node : cluster) {
+                DocumentContext status = JsonPath.parse(fromCluster(node + "/api/inventory/cluster").getBody());
+                rebalanced &= !status.read("$.rebalancing", Boolean.class)
+                        && ((List<String>) status.read("$.nodes")).containsAll(cluster);
+            }
+            if (rebalanced) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("El clúster no terminó de rebalancear");
+    }
+}
@@ -0,0 +1,148 @@
+package com.vimofama.inventoryservice.snapshot;
+
+import com.vimofama.inventoryservice.cache.ProductExistenceCache;
+import com.vimofama.inventoryservice.dto.CreateInventoryDTO;
+import com.vimofama.inventoryservice.dto.CreateReservationDTO;
+import com.vimofama.inventoryservice.model.Inventory;
+import com.vimofama.inventoryservice.model.Reservation;
+import com.vimofama.inventoryservice.model.ReservationStatus;
+import com.vimofama.inventoryservice.repository.InventoryRepository;
+import com.vimofama.inventoryservice.repository.ReservationRepository;
+import com.vimofama.inventoryservice.service.InventoryService;
+import com.vimofama.inventoryservice.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class InventorySnapshotServiceTests {
+
+    @Autowired
+    InventorySnapshotService snapshotService;
+
+    @Autowired
+    InventoryService inventoryService;
+
+    @Autowired
+    InventoryRepository inventoryRepository;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ReservationRepository reservationRepository;
+
+    @Autowired
+    ProductExistenceCache productExistenceCache;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldRestoreSnapshotPlusJournalIntoEmptyTable() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+        inventoryRepository.save(new Inventory(2L, 20, LocalDateTime.now()));
+        inventoryRepository.save(new Inventory(3L, 30, 25, LocalDateTime.now()));
+        snapshotService.snapshot();
+
+        // Only in the journal
+        inventoryService.increaseQuantity(1L, 5);
+        inventoryService.decreaseQuantity(1L, 2);
+        inventoryService.deleteById(2L);
+        productExistenceCache.put(4L, true);
+        inventoryService.save(new CreateInventoryDTO(4L, 7, 10));
+        Inventory expected = inventoryRepository.findByProductId(1L).orElseThrow();
+
+        // Simulate a restart of the in-memory database
+        jdbcTemplate.update("delete from inventory");
+        assertThat(snapshotService.restore()).isEqualTo(3);
+
+        Inventory restored = inventoryRepository.findByProductId(1L).orElseThrow();
+        assertThat(restored.getQuantity()).isEqualTo(13);
+        assertThat(restored.getId()).isEqualTo(expected.getId());
+        assertThat(restored.getVersion()).isEqualTo(expected.getVersion());
+        assertThat(inventoryRepository.findByProductId(2L)).isEmpty();
+        assertThat(inventoryRepository.findByProductId(3L).orElseThrow().getQuantity()).isEqualTo(30);
+        assertThat(inventoryRepository.findByProductId(3L).orElseThrow().getReorderThreshold()).isEqualTo(25);
+        assertThat(inventoryRepository.findByProductId(4L).orElseThrow().getQuantity()).isEqualTo(7);
+        assertThat(inventoryRepository.findByProductId(4L).orElseThrow().getReorderThreshold()).isEqualTo(10);
+
+        // Ids keep growing after the restored rows
+        Inventory created = inventoryRepository.save(new Inventory(5L, 1, LocalDateTime.now()));
+        assertThat(created.getId()).isGreaterThan(inventoryRepository.findByProductId(4L).orElseThrow().getId());
+
+        // A table that already has rows is left alone
+        assertThat(snapshotService.restore()).isZero();
+    }
+
+    @Test
+    void shouldNotReuseIdsOfRowsDeletedInTheJournal() {
+        inventoryRepository.save(new Inventory(1L, 10, LocalDateTime.now()));
+        snapshotService.snapshot();
+        productExistenceCache.put(2L, true);
+        Long deletedId = inventoryService.save(new CreateInventoryDTO(2L, 5)).getId();
+        inventoryService.deleteById(2L);
+
+        simulateRestart();
+        assertThat(snapshotService.restore()).isEqualTo(1);
+        assertThat(inventoryService.save(new CreateInventoryDTO(2L, 8)).getId()).isGreaterThan(deletedId);
+
+        // Also when nothing is left to restore
+        inventoryService.deleteById(1L);
+        inventoryService.deleteById(2L);
+        simulateRestart();
+        assertThat(snapshotService.restore()).isZero();
+        Inventory recreated = inventoryService.save(new CreateInventoryDTO(2L, 3));
+        assertThat(recreated.getId()).isGreaterThan(deletedId + 1);
+
+        // The new row survives another restore instead of losing to the old delete
+        simulateRestart();
+        snapshotService.restore();
+        assertThat(inventoryRepository.findByProductId(2L).orElseThrow().getQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRestoreActiveReservationsFromSnapshotPlusJournal() {
+        inventoryRepository.save(new Inventory(1L, 100, LocalDateTime.now()));
+        Reservation kept = reservationService.reserve(new CreateReservationDTO(1L, 5, null));
+        Reservation released = reservationService.reserve(new CreateReservationDTO(1L, 6, null));
+        snapshotService.snapshot();
+
+        // Only in the journal
+        reservationService.release(released.getId(), released.getProductId());
+        Reservation created = reservationService.reserve(new CreateReservationDTO(1L, 7, 60L));
+        Reservation committed = reservationService.reserve(new CreateReservationDTO(1L, 8, null));
+        reservationService.commit(committed.getId(), committed.getProductId());
+
+        simulateRestart();
+        assertThat(snapshotService.restore()).isEqualTo(1);
+
+        List<Reservation> active = reservationRepository.findByStatus(ReservationStatus.ACTIVE);
+        assertThat(active).extracting(Reservation::getId).containsExactlyInAnyOrder(kept.getId(), created.getId());
+        Reservation restored = reservationRepository.findById(created.getId()).orElseThrow();
+        assertThat(restored.getProductId()).isEqualTo(1L);
+        assertThat(restored.getQuantity()).isEqualTo(7);
+        assertThat(restored.getExpiresAt()).isEqualTo(created.getExpiresAt().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getQuantity()).isEqualTo(92);
+
+        // Ids keep growing past every reservation the journal remembers
+        assertThat(reservationService.reserve(new CreateReservationDTO(1L, 1, null)).getId()).isGreaterThan(committed.getId());
+    }
+
+    private void simulateRestart() {
+        // A fresh in-memory database also starts its id sequences over
+        jdbcTemplate.update("delete from inventory");
+        jdbcTemplate.execute("alter table inventory alter column id restart with 1");
+        jdbcTemplate.update("delete from reservation");
+        jdbcTemplate.execute("alter table reservation alter column id restart with 1");
+    }
+}
@@ -0,0 +1,86 @@
+package com.vimofama.inventoryservice.stats;
+
+import com.vimofama.inventoryservice.dto.InventoryStatsDTO;
+import com.vimofama.inventoryservice.dto.ProductChangeDTO;
+import com.vimofama.inventoryservice.event.InventoryChangedEvent;
+import com.vimofama.inventoryservice.event.MovementType;
+import com.vimofama.inventoryservice.event.ProductChangedEvent;
+import com.vimofama.inventoryservice.replica.ProductReplica;
+import com.vimofama.inventoryservice.replica.ProductReplicaProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InventoryStatsTests {
+
+    private ProductReplica replica;
+    private InventoryStats stats;
+
+    @BeforeEach
+    void setUp(@TempDir Path directory) throws IOException {
+        replica = new ProductReplica(null, new ProductReplicaProperties(directory, Duration.ofHours(1), 500, Duration.ofHours(1)),
+                event -> stats.onProductChanged((ProductChangedEvent) event));
+        stats = new InventoryStats(null, replica);
+    }
+
+    @Test
+    void keepsTotalsInStepWithMovementsAndPriceChanges() {
+        stats.onInventoryChanged(event(MovementType.CREATE, 1L, 10L, 0, 10, 10));
+        stats.onInventoryChanged(event(MovementType.CREATE, 2L, 11L, 0, 0, 0));
+        assertThat(stats.snapshot()).isEqualTo(new InventoryStatsDTO(2, 10, new BigDecimal("0.00"), 1, 2));
+
+        stats.onPriceChanged(1L, new BigDecimal("2.50"));
+        stats.onPriceChanged(2L, new BigDecimal("100"));
+        assertThat(stats.snapshot()).isEqualTo(new InventoryStatsDTO(2, 10, new BigDecimal("25.00"), 1, 0));
+
+        stats.onInventoryChanged(event(MovementType.INCREASE, 2L, 11L, 1, 3, 3));
+        stats.onInventoryChanged(event(MovementType.DECREASE, 1L, 10L, 1, -4, 6));
+        stats.onPriceChanged(1L, new BigDecimal("3.00"));
+        assertThat(stats.snapshot()).isEqualTo(new InventoryStatsDTO(2, 9, new BigDecimal("318.00"), 0, 0));
+
+        stats.onInventoryChanged(event(MovementType.DELETE, 2L, 11L, 2, -3, 0));
+        assertThat(stats.snapshot()).isEqualTo(new InventoryStatsDTO(1, 6, new BigDecimal("18.00"), 0, 0));
+
+        // Recreated items keep the known price
+        stats.onInventoryChanged(event(MovementType.CREATE, 2L, 12L, 0, 1, 1));
+        assertThat(stats.snapshot()).isEqualTo(new InventoryStatsDTO(2, 7, new BigDecimal("118.00"), 0, 0));
+    }
+
+    @Test
+    void ignoresEventsOlderThanTheAppliedOnes() {
+        stats.onInventoryChanged(event(MovementType.CREATE, 1L, 10L, 0, 5, 5));
+        stats.onInventoryChanged(event(MovementType.INCREASE, 1L, 10L, 2, 2, 8));
+        stats.onInventoryChanged(event(MovementType.INCREASE, 1L, 10L, 1, 1, 6));
+        stats.onInventoryChanged(event(MovementType.DELETE, 3L, 20L, 4, -2, 0));
+        stats.onInventoryChanged(event(MovementType.CREATE, 3L, 20L, 0, 2, 2));
+
+        assertThat(stats.snapshot()).isEqualTo(new InventoryStatsDTO(1, 8, new BigDecimal("0.00"), 0, 1));
+    }
+
+    @Test
+    void takesPricesFromTheProductReplica() {
+        replica.apply(new ProductChangeDTO(1, "CREATED", 1L, "Teclado", "KB-1", new BigDecimal("2.00"), 0L));
+        stats.onInventoryChanged(event(MovementType.CREATE, 1L, 10L, 0, 5, 5));
+        stats.onInventoryChanged(event(MovementType.CREATE, 2L, 11L, 0, 1, 1));
+        assertThat(stats.snapshot()).isEqualTo(new InventoryStatsDTO(2, 6, new BigDecimal("10.00"), 0, 1));
+
+        replica.apply(new ProductChangeDTO(2, "CREATED", 2L, "Mouse", "MS-1", new BigDecimal("7.50"), 0L));
+        replica.apply(new ProductChangeDTO(3, "UPDATED", 1L, "Teclado", "KB-1", new BigDecimal("3.00"), 1L));
+        assertThat(stats.snapshot()).isEqualTo(new InventoryStatsDTO(2, 6, new BigDecimal("22.50"), 0, 0));
+
+        replica.apply(new ProductChangeDTO(4, "DELETED", 2L, "Mouse", "MS-1", new BigDecimal("7.50"), 1L));
+        assertThat(stats.snapshot()).isEqualTo(new InventoryStatsDTO(2, 6, new BigDecimal("15.00"), 0, 1));
+    }
+
+    private static InventoryChangedEvent event(MovementType type, Long productId, Long inventoryId, long version,
+                                               int delta, int quantity) {
+        return new InventoryChangedEvent(type, productId, inventoryId, version, delta, quantity, 0, 0);
+    }
+}
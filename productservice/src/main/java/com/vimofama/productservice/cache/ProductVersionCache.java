@@ -0,0 +1,55 @@
+package com.vimofama.productservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Last known {@code @Version} of recently read or written products, used to answer conditional GETs without
+ * loading the product. Versions only move forward, so a slow reader can never overwrite a newer write, and a
+ * deleted product keeps a tombstone until it expires so a read that started before the delete cannot bring its
+ * version back. Product ids come from a sequence and are never reused, so the tombstone never hides a new product.
+ */
+@Component
+public class ProductVersionCache implements MeterBinder {
+
+    private static final long DELETED = -1L;
+
+    private final Cache<Long, Long> cache;
+
+    public ProductVersionCache(@Value("${product.version-cache.max-size:10000}") long maxSize,
+                               @Value("${product.version-cache.ttl:1m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Long get(Long productId) {
+        Long version = cache.getIfPresent(productId);
+        return version == null || version == DELETED ? null : version;
+    }
+
+    public void record(Long productId, Long version) {
+        if (productId != null && version != null) {
+            cache.asMap().merge(productId, version,
+                    (current, recorded) -> current == DELETED ? DELETED : Math.max(current, recorded));
+        }
+    }
+
+    public void invalidate(Long productId) {
+        cache.put(productId, DELETED);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "product-version");
+    }
+}
@@ -0,0 +1,87 @@
+package com.vimofama.productservice.changes;
+
+import com.vimofama.productservice.dto.ProductChangePageDTO;
+import com.vimofama.productservice.model.Product;
+import com.vimofama.productservice.model.ProductChange;
+import com.vimofama.productservice.model.ProductChangeType;
+import com.vimofama.productservice.repository.ProductChangeRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sequence-numbered feed of product creates, updates and deletes, stored in the {@code product_change} table by
+ * the transaction that changes the product (transactional outbox).
+ * <p>
+ * Sequences are handed out here rather than by the database so the ones still uncommitted are known: readers
+ * only see changes below the oldest open one. Without that, a reader could see sequence 11 commit before 10 and
+ * skip 10 for good once it asks for changes after 11. Rolled back changes leave gaps, which readers ignore.
+ */
+@Component
+public class ProductChangeLog {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final ProductChangeRepository productChangeRepository;
+    private final EntityManager entityManager;
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private long lastAllocated = -1;
+
+    public ProductChangeLog(ProductChangeRepository productChangeRepository, EntityManager entityManager) {
+        this.productChangeRepository = productChangeRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Records a change of {@code product}. Must run inside the transaction that writes the product.
+     */
+    public void record(ProductChangeType type, Product product) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Los cambios de producto se registran dentro de una transacción");
+        }
+        long sequence = allocate();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlight.remove(sequence);
+            }
+        });
+        entityManager.persist(new ProductChange(sequence, type, product, LocalDateTime.now()));
+    }
+
+    public ProductChangePageDTO read(long after, int limit) {
+        long head = headSequence();
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<ProductChange> changes = productChangeRepository
+                .findBySequenceGreaterThanAndSequenceLessThanEqualOrderBySequenceAsc(after, head, Limit.of(pageSize));
+        long last = changes.isEmpty() ? after : changes.getLast().getSequence();
+        return new ProductChangePageDTO(changes, last, head);
+    }
+
+    public long headSequence() {
+        synchronized (this) {
+            initialize();
+            Long oldestOpen = inFlight.isEmpty() ? null : inFlight.first();
+            return oldestOpen == null ? lastAllocated : oldestOpen - 1;
+        }
+    }
+
+    private synchronized long allocate() {
+        initialize();
+        long sequence = ++lastAllocated;
+        inFlight.add(sequence);
+        return sequence;
+    }
+
+    private void initialize() {
+        if (lastAllocated < 0) {
+            lastAllocated = productChangeRepository.findMaxSequence();
+        }
+    }
+}
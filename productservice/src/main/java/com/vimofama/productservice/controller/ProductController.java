@@ -1,14 +1,31 @@
 package com.vimofama.productservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vimofama.productservice.dto.CreateProductDTO;
+import com.vimofama.productservice.dto.CursorPageDTO;
+import com.vimofama.productservice.dto.ImportResultDTO;
+import com.vimofama.productservice.dto.ProductChangePageDTO;
+import com.vimofama.productservice.dto.ProductLookupDTO;
+import com.vimofama.productservice.dto.ProductLookupResultDTO;
+import com.vimofama.productservice.dto.ProductSearchHitDTO;
 import com.vimofama.productservice.dto.UpdateProductDTO;
 import com.vimofama.productservice.model.Product;
+import com.vimofama.productservice.service.ProductImportService;
 import com.vimofama.productservice.service.ProductService;
 import jakarta.validation.Valid;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
@@ -19,9 +36,13 @@ import java.util.Map;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService productImportService, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -31,17 +52,71 @@ public class ProductController {
         return ResponseEntity.created(url).body(product);
     }
 
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportResultDTO> importProductsCsv(InputStream body, @RequestParam(required = false) Integer batchSize) throws IOException {
+        return ResponseEntity.ok(productImportService.importCsv(body, batchSize));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResultDTO> importProductsJson(InputStream body, @RequestParam(required = false) Integer batchSize) throws IOException {
+        return ResponseEntity.ok(productImportService.importJson(body, batchSize));
+    }
+
     @GetMapping
     public ResponseEntity<List<Product>> getAllProducts() {
         return ResponseEntity.ok(productService.getAll());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<Product>> getProductsPage(@RequestParam(required = false) Long after,
+                                                                   @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(productService.getPage(after, size));
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangePageDTO> getProductChanges(@RequestParam(defaultValue = "0") long after,
+                                                                  @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(productService.getChanges(after, limit));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        StreamingResponseBody body = out -> productService.streamAll(product -> writeLine(out, product));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductSearchHitDTO>> searchProducts(@RequestParam String q,
+                                                                    @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(productService.search(q, limit));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    public ResponseEntity<Product> getProductById(@PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Long cachedVersion = productService.getCachedVersion(id);
+        if (cachedVersion != null && matchesETag(ifNoneMatch, cachedVersion)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(cachedVersion)).build();
+        }
         var product = productService.getById(id);
         if (product == null) {
             return ResponseEntity.notFound().build();
         }
+        // Spring turns a matching If-None-Match into a 304 before the body is serialized
+        return ResponseEntity.ok().eTag(etag(product.getVersion())).body(product);
+    }
+
+    @PostMapping("/lookup")
+    public ResponseEntity<ProductLookupResultDTO> lookupProducts(@Valid @RequestBody ProductLookupDTO productLookupDTO) {
+        return ResponseEntity.ok(productService.lookup(productLookupDTO.ids()));
+    }
+
+    @GetMapping("/sku/{sku}")
+    public ResponseEntity<Product> getProductBySku(@PathVariable String sku) {
+        var product = productService.getBySku(sku);
+        if (product == null) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.ok(product);
     }
 
@@ -68,4 +143,29 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
 
+    private static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, Long version) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        ETag current = ETag.create(etag(version));
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(current, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
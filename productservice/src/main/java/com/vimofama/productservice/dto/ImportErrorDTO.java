@@ -0,0 +1,10 @@
+package com.vimofama.productservice.dto;
+
+import java.util.Map;
+
+public record ImportErrorDTO(
+        long row,
+        String sku,
+        Map<String, String> errors
+) {
+}
@@ -0,0 +1,12 @@
+package com.vimofama.productservice.dto;
+
+import java.util.List;
+
+public record ImportResultDTO(
+        long processed,
+        long imported,
+        long failed,
+        List<ImportErrorDTO> errors,
+        boolean errorsTruncated
+) {
+}
@@ -0,0 +1,17 @@
+package com.vimofama.productservice.dto;
+
+import com.vimofama.productservice.model.ProductChange;
+
+import java.util.List;
+
+/**
+ * @param changes      changes after the requested sequence, in sequence order
+ * @param lastSequence sequence to ask for next time: the last change returned, or the requested one if none
+ * @param headSequence newest sequence readers can see right now
+ */
+public record ProductChangePageDTO(
+        List<ProductChange> changes,
+        long lastSequence,
+        long headSequence
+) {
+}
@@ -0,0 +1,13 @@
+package com.vimofama.productservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.Set;
+
+public record ProductLookupDTO(
+        @NotEmpty(message = "La lista de IDs no puede estar vacía")
+        @Size(max = 1000, message = "No se pueden consultar más de 1000 productos por solicitud")
+        Set<Long> ids
+) {
+}
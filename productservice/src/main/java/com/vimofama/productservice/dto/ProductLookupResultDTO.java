@@ -0,0 +1,11 @@
+package com.vimofama.productservice.dto;
+
+import com.vimofama.productservice.model.Product;
+
+import java.util.List;
+
+public record ProductLookupResultDTO(
+        List<Product> found,
+        List<Long> missing
+) {
+}
@@ -0,0 +1,13 @@
+package com.vimofama.productservice.dto;
+
+import java.math.BigDecimal;
+
+public record ProductSearchHitDTO(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        String sku,
+        int score
+) {
+}
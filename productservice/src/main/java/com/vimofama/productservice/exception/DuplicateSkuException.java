@@ -0,0 +1,15 @@
+package com.vimofama.productservice.exception;
+
+public class DuplicateSkuException extends RuntimeException {
+
+    private final String sku;
+
+    public DuplicateSkuException(String sku) {
+        super("Ya existe un producto con el SKU " + sku);
+        this.sku = sku;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+}
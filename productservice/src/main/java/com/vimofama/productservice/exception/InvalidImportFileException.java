@@ -0,0 +1,8 @@
+package com.vimofama.productservice.exception;
+
+public class InvalidImportFileException extends RuntimeException {
+
+    public InvalidImportFileException(String message) {
+        super(message);
+    }
+}
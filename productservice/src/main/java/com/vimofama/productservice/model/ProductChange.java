@@ -0,0 +1,90 @@
+package com.vimofama.productservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the product change feed, written in the same transaction as the product change it describes.
+ * Carries the product fields other services replicate, as they were after the change.
+ */
+@Entity
+@Table(name = "product_change")
+public class ProductChange {
+
+    @Id
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    private ProductChangeType type;
+
+    private Long productId;
+    private String name;
+    private String sku;
+    private BigDecimal price;
+    private Long version;
+    private LocalDateTime occurredAt;
+
+    public ProductChange() {
+    }
+
+    public ProductChange(Long sequence, ProductChangeType type, Product product, LocalDateTime occurredAt) {
+        this.sequence = sequence;
+        this.type = type;
+        this.productId = product.getId();
+        this.name = product.getName();
+        this.sku = product.getSku();
+        this.price = product.getPrice();
+        this.version = product.getVersion();
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public ProductChangeType getType() {
+        return type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductChange{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", productId=" + productId +
+                ", sku='" + sku + '\'' +
+                ", price=" + price +
+                ", version=" + version +
+                '}';
+    }
+}
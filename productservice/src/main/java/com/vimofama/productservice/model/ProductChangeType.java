@@ -0,0 +1,7 @@
+package com.vimofama.productservice.model;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,18 @@
+package com.vimofama.productservice.repository;
+
+import com.vimofama.productservice.model.ProductChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    List<ProductChange> findBySequenceGreaterThanAndSequenceLessThanEqualOrderBySequenceAsc(Long after, Long upTo, Limit limit);
+
+    @Query("select coalesce(max(c.sequence), 0) from ProductChange c")
+    long findMaxSequence();
+}
@@ -0,0 +1,303 @@
+package com.vimofama.productservice.search;
+
+import com.vimofama.productservice.dto.ProductSearchHitDTO;
+import com.vimofama.productservice.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over product sku, name and description.
+ * <p>
+ * Every indexed product gets an increasing ordinal, so posting lists stay sorted just by appending. Updates and
+ * deletes leave a tombstone behind and the index compacts itself once tombstones reach a quarter of the live
+ * documents. Every query token is matched as a prefix; a product must match all tokens and is ranked by the
+ * fields the tokens hit (sku over name over description), with exact term matches counting double.
+ */
+@Component
+public class ProductSearchIndex {
+
+    public static final int MAX_RESULTS = 100;
+
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    private static final int FIELD_SKU = 1;
+    private static final int FIELD_NAME = 2;
+    private static final int FIELD_DESCRIPTION = 4;
+    private static final int FIELD_BITS = 3;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    public void rebuild(Consumer<Consumer<Product>> source) {
+        State rebuilt = new State();
+        source.accept(rebuilt::add);
+        lock.writeLock().lock();
+        try {
+            state = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            state.remove(product.getId());
+            state.add(product);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            state.remove(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<ProductSearchHitDTO> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        int maxResults = Math.min(Math.max(limit, 1), MAX_RESULTS);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return state.search(tokens, maxResults);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (state.tombstones >= MIN_TOMBSTONES_TO_COMPACT && state.tombstones * 4 >= state.ordinals.size()) {
+            State compacted = new State();
+            for (Document document : state.documents) {
+                if (document != null) {
+                    compacted.add(document);
+                }
+            }
+            state = compacted;
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static int fieldScore(int fields) {
+        if ((fields & FIELD_SKU) != 0) {
+            return 8;
+        }
+        if ((fields & FIELD_NAME) != 0) {
+            return 4;
+        }
+        return 1;
+    }
+
+    private static final class State {
+
+        private final List<Document> documents = new ArrayList<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final NavigableMap<String, Postings> terms = new TreeMap<>();
+        private int tombstones;
+
+        void add(Product product) {
+            add(new Document(product.getId(), product.getName(), product.getDescription(), product.getPrice(), product.getSku()));
+        }
+
+        void add(Document document) {
+            int ordinal = documents.size();
+            documents.add(document);
+            ordinals.put(document.id(), ordinal);
+
+            Map<String, Integer> fieldsByTerm = new LinkedHashMap<>();
+            collect(fieldsByTerm, document.sku(), FIELD_SKU);
+            collect(fieldsByTerm, document.name(), FIELD_NAME);
+            collect(fieldsByTerm, document.description(), FIELD_DESCRIPTION);
+            fieldsByTerm.forEach((term, fields) -> terms.computeIfAbsent(term, key -> new Postings()).add(ordinal, fields));
+        }
+
+        void remove(Long productId) {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                documents.set(ordinal, null);
+                tombstones++;
+            }
+        }
+
+        List<ProductSearchHitDTO> search(List<String> tokens, int limit) {
+            List<List<Map.Entry<String, Postings>>> expansions = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                List<Map.Entry<String, Postings>> matches = new ArrayList<>();
+                for (Map.Entry<String, Postings> entry : terms.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                    matches.add(entry);
+                    if (matches.size() == MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                }
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+                expansions.add(matches);
+            }
+
+            int rarest = 0;
+            long rarestSize = Long.MAX_VALUE;
+            for (int i = 0; i < expansions.size(); i++) {
+                long size = 0;
+                for (Map.Entry<String, Postings> match : expansions.get(i)) {
+                    size += match.getValue().size;
+                }
+                if (size < rarestSize) {
+                    rarest = i;
+                    rarestSize = size;
+                }
+            }
+
+            Map<Integer, Integer> candidates = new HashMap<>();
+            String rarestToken = tokens.get(rarest);
+            for (Map.Entry<String, Postings> match : expansions.get(rarest)) {
+                int multiplier = match.getKey().equals(rarestToken) ? 2 : 1;
+                Postings postings = match.getValue();
+                for (int i = 0; i < postings.size; i++) {
+                    int ordinal = postings.entries[i] >>> FIELD_BITS;
+                    if (documents.get(ordinal) != null) {
+                        int score = fieldScore(postings.entries[i] & FIELD_MASK) * multiplier;
+                        candidates.merge(ordinal, score, Math::max);
+                    }
+                }
+            }
+
+            Comparator<Hit> ranking = Comparator.comparingInt(Hit::score).thenComparing(hit -> -hit.document().id());
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, ranking);
+            for (Map.Entry<Integer, Integer> candidate : candidates.entrySet()) {
+                int ordinal = candidate.getKey();
+                int score = candidate.getValue();
+                for (int i = 0; i < tokens.size() && score > 0; i++) {
+                    if (i != rarest) {
+                        int tokenScore = score(ordinal, tokens.get(i), expansions.get(i));
+                        score = tokenScore == 0 ? 0 : score + tokenScore;
+                    }
+                }
+                if (score > 0) {
+                    top.add(new Hit(documents.get(ordinal), score));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+
+            List<ProductSearchHitDTO> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Hit hit = top.poll();
+                Document document = hit.document();
+                hits.add(new ProductSearchHitDTO(document.id(), document.name(), document.description(),
+                        document.price(), document.sku(), hit.score()));
+            }
+            return hits.reversed();
+        }
+
+        private static int score(int ordinal, String token, List<Map.Entry<String, Postings>> matches) {
+            int best = 0;
+            for (Map.Entry<String, Postings> match : matches) {
+                int fields = match.getValue().fields(ordinal);
+                if (fields != 0) {
+                    best = Math.max(best, fieldScore(fields) * (match.getKey().equals(token) ? 2 : 1));
+                }
+            }
+            return best;
+        }
+
+        private static void collect(Map<String, Integer> fieldsByTerm, String text, int field) {
+            for (String term : tokenize(text)) {
+                fieldsByTerm.merge(term, field, (a, b) -> a | b);
+            }
+        }
+    }
+
+    /**
+     * Posting list of {@code ordinal << FIELD_BITS | fields} entries in ascending ordinal order.
+     */
+    private static final class Postings {
+
+        private int[] entries = new int[2];
+        private int size;
+
+        void add(int ordinal, int fields) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = ordinal << FIELD_BITS | fields;
+        }
+
+        int fields(int ordinal) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midOrdinal = entries[mid] >>> FIELD_BITS;
+                if (midOrdinal < ordinal) {
+                    low = mid + 1;
+                } else if (midOrdinal > ordinal) {
+                    high = mid - 1;
+                } else {
+                    return entries[mid] & FIELD_MASK;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private record Document(Long id, String name, String description, BigDecimal price, String sku) {
+    }
+
+    private record Hit(Document document, int score) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.vimofama.productservice.search;
+
+import com.vimofama.productservice.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads every product into the search index once the context is wired, before the web server accepts requests.
+ */
+@Component
+public class ProductSearchIndexInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndexInitializer.class);
+
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductService productService;
+
+    public ProductSearchIndexInitializer(ProductSearchIndex productSearchIndex, ProductService productService) {
+        this.productSearchIndex = productSearchIndex;
+        this.productService = productService;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        productSearchIndex.rebuild(productService::streamAll);
+        log.info("Índice de búsqueda reconstruido con {} productos en {} ms",
+                productSearchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,249 @@
+package com.vimofama.productservice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vimofama.productservice.changes.ProductChangeLog;
+import com.vimofama.productservice.dto.CreateProductDTO;
+import com.vimofama.productservice.dto.ImportErrorDTO;
+import com.vimofama.productservice.dto.ImportResultDTO;
+import com.vimofama.productservice.exception.InvalidImportFileException;
+import com.vimofama.productservice.model.Product;
+import com.vimofama.productservice.model.ProductChangeType;
+import com.vimofama.productservice.repository.ProductRepository;
+import com.vimofama.productservice.search.ProductSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class ProductImportService {
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "price", "sku");
+
+    private final EntityManager entityManager;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductChangeLog productChangeLog;
+    private final int defaultBatchSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(EntityManager entityManager, ProductRepository productRepository, TransactionTemplate transactionTemplate,
+                                Validator validator, ObjectMapper objectMapper, ProductSearchIndex productSearchIndex,
+                                ProductChangeLog productChangeLog,
+                                @Value("${product.import.batch-size:500}") int defaultBatchSize,
+                                @Value("${product.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.entityManager = entityManager;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.productSearchIndex = productSearchIndex;
+        this.productChangeLog = productChangeLog;
+        this.defaultBatchSize = defaultBatchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportResultDTO importCsv(InputStream input, Integer batchSize) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        CsvRecordReader csv = new CsvRecordReader(reader);
+
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new InvalidImportFileException("El archivo CSV está vacío");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new InvalidImportFileException("Falta la columna obligatoria '" + column + "' en la cabecera del CSV");
+            }
+        }
+
+        ImportRun run = new ImportRun(batchSize);
+        long row = 0;
+        List<String> record;
+        while ((record = csv.readRecord()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            row++;
+            String sku = field(record, columns.get("sku"));
+            String price = field(record, columns.get("price"));
+            BigDecimal parsedPrice = null;
+            if (price != null && !price.isBlank()) {
+                try {
+                    parsedPrice = new BigDecimal(price.trim());
+                } catch (NumberFormatException e) {
+                    run.reject(row, sku, Map.of("price", "El formato del precio no es válido. Use punto (.) como separador decimal (ejemplo: 19.99)"));
+                    continue;
+                }
+            }
+            run.accept(row, new CreateProductDTO(
+                    field(record, columns.get("name")),
+                    field(record, columns.get("description")),
+                    parsedPrice,
+                    sku
+            ));
+        }
+        return run.finish();
+    }
+
+    public ImportResultDTO importJson(InputStream input, Integer batchSize) throws IOException {
+        ImportRun run = new ImportRun(batchSize);
+        try (JsonParser parser = objectMapper.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidImportFileException("El cuerpo JSON debe ser un arreglo de productos");
+            }
+            long row = 0;
+            try {
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                    row++;
+                    JsonNode node = objectMapper.readTree(parser);
+                    if (token != JsonToken.START_OBJECT) {
+                        run.reject(row, null, Map.of("row", "Se esperaba un objeto de producto"));
+                        continue;
+                    }
+                    try {
+                        run.accept(row, objectMapper.treeToValue(node, CreateProductDTO.class));
+                    } catch (JsonProcessingException e) {
+                        run.reject(row, node.path("sku").asText(null), Map.of("row", "Uno o más campos tienen un formato incorrecto"));
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                run.reject(row, null, Map.of("file", "Error en el formato JSON enviado; la importación se detuvo en esta fila"));
+            }
+        }
+        return run.finish();
+    }
+
+    private static String field(List<String> record, int index) {
+        return index < record.size() ? record.get(index) : null;
+    }
+
+    private class ImportRun {
+
+        private final int batchSize;
+        private final List<PendingRow> pending;
+        private final List<ImportErrorDTO> errors = new ArrayList<>();
+        private long processed;
+        private long imported;
+        private long failed;
+
+        ImportRun(Integer batchSize) {
+            this.batchSize = batchSize != null && batchSize > 0 ? batchSize : defaultBatchSize;
+            this.pending = new ArrayList<>(this.batchSize);
+        }
+
+        void accept(long row, CreateProductDTO dto) {
+            processed++;
+            var violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                Map<String, String> fieldErrors = new LinkedHashMap<>();
+                for (ConstraintViolation<CreateProductDTO> violation : violations) {
+                    fieldErrors.put(violation.getPropertyPath().toString(), violation.getMessage());
+                }
+                addError(row, dto.sku(), fieldErrors);
+                return;
+            }
+            pending.add(new PendingRow(row, new Product(dto.name(), dto.description(), dto.price(), dto.sku())));
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String sku, Map<String, String> fieldErrors) {
+            processed++;
+            addError(row, sku, fieldErrors);
+        }
+
+        ImportResultDTO finish() {
+            flush();
+            return new ImportResultDTO(processed, imported, failed, errors, failed > errors.size());
+        }
+
+        private void addError(long row, String sku, Map<String, String> fieldErrors) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportErrorDTO(row, sku, fieldErrors));
+            }
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<PendingRow> rows = withoutDuplicateSkus();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                    for (PendingRow row : rows) {
+                        entityManager.persist(row.product());
+                        productChangeLog.record(ProductChangeType.CREATED, row.product());
+                    }
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+                imported += rows.size();
+                for (PendingRow row : rows) {
+                    productSearchIndex.index(row.product());
+                }
+            } catch (DataIntegrityViolationException e) {
+                for (PendingRow row : rows) {
+                    addError(row.row(), row.product().getSku(), Map.of("sku", "No se pudo guardar el lote por un SKU duplicado concurrente"));
+                }
+            }
+            pending.clear();
+        }
+
+        private List<PendingRow> withoutDuplicateSkus() {
+            Set<String> skus = new HashSet<>();
+            for (PendingRow row : pending) {
+                skus.add(row.product().getSku());
+            }
+            Set<String> existing = productRepository.findExistingSkus(skus);
+            Set<String> seen = new HashSet<>();
+            List<PendingRow> rows = new ArrayList<>(pending.size());
+            for (PendingRow row : pending) {
+                String sku = row.product().getSku();
+                if (existing.contains(sku) || !seen.add(sku)) {
+                    addError(row.row(), sku, Map.of("sku", "Ya existe un producto con el SKU " + sku));
+                } else {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+    }
+
+    private record PendingRow(long row, Product product) {
+    }
+}
@@ -1,61 +1,175 @@
 package com.vimofama.productservice.service;
 
+import com.vimofama.productservice.cache.ProductVersionCache;
+import com.vimofama.productservice.changes.ProductChangeLog;
 import com.vimofama.productservice.dto.CreateProductDTO;
+import com.vimofama.productservice.dto.CursorPageDTO;
+import com.vimofama.productservice.dto.ProductChangePageDTO;
+import com.vimofama.productservice.dto.ProductLookupResultDTO;
+import com.vimofama.productservice.dto.ProductSearchHitDTO;
 import com.vimofama.productservice.dto.UpdateProductDTO;
+import com.vimofama.productservice.exception.DuplicateSkuException;
 import com.vimofama.productservice.model.Product;
+import com.vimofama.productservice.model.ProductChangeType;
 import com.vimofama.productservice.repository.ProductRepository;
+import com.vimofama.productservice.search.ProductSearchIndex;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductVersionCache productVersionCache;
+    private final ProductChangeLog productChangeLog;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, EntityManager entityManager,
+                          ProductSearchIndex productSearchIndex, ProductVersionCache productVersionCache,
+                          ProductChangeLog productChangeLog) {
         this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.productSearchIndex = productSearchIndex;
+        this.productVersionCache = productVersionCache;
+        this.productChangeLog = productChangeLog;
     }
 
+    @Transactional
     public Product create(CreateProductDTO createProductDTO) {
+        if (productRepository.existsBySku(createProductDTO.sku())) {
+            throw new DuplicateSkuException(createProductDTO.sku());
+        }
         Product product = new Product(
                 createProductDTO.name(),
                 createProductDTO.description(),
                 createProductDTO.price(),
                 createProductDTO.sku()
         );
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productChangeLog.record(ProductChangeType.CREATED, saved);
+        afterCommit(() -> productSearchIndex.index(saved));
+        afterCommit(() -> productVersionCache.record(saved.getId(), saved.getVersion()));
+        return saved;
     }
 
     public List<Product> getAll() {
         return productRepository.findAll();
     }
 
+    public CursorPageDTO<Product> getPage(Long after, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<Product> products = productRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(pageSize));
+        Long nextCursor = products.size() == pageSize ? products.get(products.size() - 1).getId() : null;
+        return new CursorPageDTO<>(products, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
+    }
+
     public Product getById(Long id) {
         Optional<Product> product = productRepository.findById(id);
+        product.ifPresent(found -> productVersionCache.record(found.getId(), found.getVersion()));
         return product.orElse(null);
     }
 
+    public Long getCachedVersion(Long id) {
+        return productVersionCache.get(id);
+    }
+
+    public ProductLookupResultDTO lookup(Set<Long> ids) {
+        List<Product> found = productRepository.findAllById(ids);
+        Set<Long> foundIds = new HashSet<>();
+        for (Product product : found) {
+            foundIds.add(product.getId());
+        }
+        List<Long> missing = ids.stream()
+                .filter(id -> !foundIds.contains(id))
+                .sorted()
+                .toList();
+        return new ProductLookupResultDTO(found, missing);
+    }
+
+    public ProductChangePageDTO getChanges(long after, int limit) {
+        return productChangeLog.read(after, limit);
+    }
+
+    public List<ProductSearchHitDTO> search(String query, int limit) {
+        return productSearchIndex.search(query, limit);
+    }
+
+    public Product getBySku(String sku) {
+        return productRepository.findBySku(sku).orElse(null);
+    }
+
+    @Transactional
     public Product update(Long id, UpdateProductDTO updateProductDTO) {
         Product product = getById(id);
         if (product == null) {
             return null;
         }
+        if (updateProductDTO.sku() != null && !updateProductDTO.sku().equals(product.getSku())
+                && productRepository.existsBySku(updateProductDTO.sku())) {
+            throw new DuplicateSkuException(updateProductDTO.sku());
+        }
         if (updateProductDTO.name() != null) product.setName(updateProductDTO.name());
         if (updateProductDTO.description() != null) product.setDescription(updateProductDTO.description());
         if (updateProductDTO.price() != null) product.setPrice(updateProductDTO.price());
         if (updateProductDTO.sku() != null) product.setSku(updateProductDTO.sku());
+        product.setUpdatedAt(LocalDateTime.now());
 
-        return productRepository.save(product);
+        // Flushed so the feed entry carries the version this update produces
+        Product saved = productRepository.saveAndFlush(product);
+        productChangeLog.record(ProductChangeType.UPDATED, saved);
+        afterCommit(() -> productSearchIndex.index(saved));
+        afterCommit(() -> productVersionCache.record(saved.getId(), saved.getVersion()));
+        return saved;
     }
 
+    @Transactional
     public boolean delete(Long id) {
         Product product = getById(id);
         if (product == null) {
             return false;
         }
         productRepository.delete(product);
+        productChangeLog.record(ProductChangeType.DELETED, product);
+        afterCommit(() -> productSearchIndex.remove(id));
+        afterCommit(() -> productVersionCache.invalidate(id));
         return true;
     }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
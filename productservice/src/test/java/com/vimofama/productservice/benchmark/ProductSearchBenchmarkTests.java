@@ -0,0 +1,79 @@
+package com.vimofama.productservice.benchmark;
+
+import com.vimofama.productservice.model.Product;
+import com.vimofama.productservice.search.ProductSearchIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures search latency of {@link ProductSearchIndex} holding 1M products, for exact sku tokens, two-token
+ * name queries and short prefixes.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -pl productservice -Dtest=ProductSearchBenchmarkTests}.
+ */
+@Tag("benchmark")
+public class ProductSearchBenchmarkTests {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int QUERIES = 20_000;
+    private static final List<String> WORDS = List.of("laptop", "monitor", "teclado", "mouse", "cable", "impresora",
+            "parlante", "cargador", "audifonos", "camara", "router", "disco", "memoria", "tablet", "celular");
+
+    @Test
+    void measureSearchLatency() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        long start = System.nanoTime();
+        index.rebuild(sink -> {
+            for (long id = 1; id <= PRODUCTS; id++) {
+                String word = WORDS.get((int) (id % WORDS.size()));
+                String brand = "marca" + (id % 1000);
+                Product product = new Product(word + " " + brand + " modelo " + id, "Descripción de " + word + " " + brand,
+                        new BigDecimal("10.00"), "SKU-" + id);
+                product.setId(id);
+                sink.accept(product);
+            }
+        });
+        System.out.printf("%nindexed %d products in %d ms%n", index.size(), (System.nanoTime() - start) / 1_000_000);
+
+        System.out.printf("%-14s %10s %12s %12s%n", "query", "samples", "p50 (us)", "p99 (us)");
+        long[] sku = measure(index, () -> "sku-" + ThreadLocalRandom.current().nextInt(1, PRODUCTS + 1));
+        long[] twoTokens = measure(index, () -> WORDS.get(ThreadLocalRandom.current().nextInt(WORDS.size()))
+                + " marca" + ThreadLocalRandom.current().nextInt(1000));
+        long[] prefix = measure(index, () -> "marca" + ThreadLocalRandom.current().nextInt(100, 1000));
+        print("sku", sku);
+        print("word + brand", twoTokens);
+        print("brand prefix", prefix);
+
+        assertThat(percentile(sku, 0.50)).isLessThan(1_000_000);
+        assertThat(percentile(twoTokens, 0.50)).isLessThan(1_000_000);
+    }
+
+    private long[] measure(ProductSearchIndex index, Supplier<String> queries) {
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = queries.get();
+            long start = System.nanoTime();
+            index.search(query, 20);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void print(String label, long[] latencies) {
+        System.out.printf("%-14s %10d %12.1f %12.1f%n", label, latencies.length,
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) (sorted.length * percentile)];
+    }
+}
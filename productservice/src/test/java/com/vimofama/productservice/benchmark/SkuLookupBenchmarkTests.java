@@ -0,0 +1,78 @@
+package com.vimofama.productservice.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures {@code select ... where sku = ?} latency on a 1M-row product table in H2, first as a full table scan
+ * and then after creating the unique index declared on {@code Product}.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -pl productservice -Dtest=SkuLookupBenchmarkTests}.
+ */
+@Tag("benchmark")
+public class SkuLookupBenchmarkTests {
+
+    private static final int ROWS = 1_000_000;
+    private static final int LOOKUPS_WITHOUT_INDEX = 50;
+    private static final int LOOKUPS_WITH_INDEX = 20_000;
+
+    @Test
+    void compareSkuLookupWithAndWithoutIndex() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:sku-benchmark;DB_CLOSE_DELAY=-1")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table product (id bigint primary key, name varchar(255), description varchar(255), " +
+                        "price numeric(38,2), sku varchar(255), created_at timestamp(6), updated_at timestamp(6))");
+                statement.execute("insert into product select x, 'Product ' || x, 'Description ' || x, 10.00, 'SKU-' || x, " +
+                        "current_timestamp, current_timestamp from system_range(1, " + ROWS + ")");
+            }
+
+            long[] withoutIndex = measure(connection, LOOKUPS_WITHOUT_INDEX);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create unique index ux_product_sku on product (sku)");
+            }
+            long[] withIndex = measure(connection, LOOKUPS_WITH_INDEX);
+
+            System.out.printf("%n%-14s %10s %12s %12s%n", "sku lookup", "samples", "p50 (us)", "p99 (us)");
+            print("no index", withoutIndex);
+            print("unique index", withIndex);
+
+            assertThat(percentile(withIndex, 0.99)).isLessThan(percentile(withoutIndex, 0.50));
+        }
+    }
+
+    private long[] measure(Connection connection, int lookups) throws SQLException {
+        long[] latencies = new long[lookups];
+        try (PreparedStatement statement = connection.prepareStatement("select id, name, price from product where sku = ?")) {
+            for (int i = 0; i < lookups; i++) {
+                statement.setString(1, "SKU-" + ThreadLocalRandom.current().nextInt(1, ROWS + 1));
+                long start = System.nanoTime();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    assertThat(resultSet.next()).isTrue();
+                }
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private void print(String label, long[] latencies) {
+        System.out.printf("%-14s %10d %12.1f %12.1f%n", label, latencies.length,
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3);
+    }
+
+    private long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, sorted.length * percentile)];
+    }
+}
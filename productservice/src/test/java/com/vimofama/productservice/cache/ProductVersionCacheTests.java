@@ -0,0 +1,30 @@
+package com.vimofama.productservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductVersionCacheTests {
+
+    @Test
+    void shouldKeepTheNewestRecordedVersion() {
+        ProductVersionCache cache = new ProductVersionCache(100, Duration.ofMinutes(1));
+        cache.record(1L, 2L);
+        cache.record(1L, 1L);
+
+        assertThat(cache.get(1L)).isEqualTo(2L);
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    @Test
+    void shouldNotLetAReadStartedBeforeADeleteRestoreTheVersion() {
+        ProductVersionCache cache = new ProductVersionCache(100, Duration.ofMinutes(1));
+        cache.record(1L, 0L);
+        cache.invalidate(1L);
+        cache.record(1L, 0L);
+
+        assertThat(cache.get(1L)).isNull();
+    }
+}
@@ -0,0 +1,39 @@
+package com.vimofama.productservice.controller;
+
+import com.vimofama.productservice.dto.CreateProductDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+public class MetricsEndpointTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    void shouldExposeEndpointRepositoryAndPoolMetrics() {
+        restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Teclado", "Teclado mecánico", new BigDecimal("49.90"), "SKU-MET-1"), String.class);
+        restTemplate.getForEntity("/api/products/1", String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/products/{id}\"")
+                .contains("spring_data_repository_invocations_seconds_count{")
+                .contains("repository=\"ProductRepository\"")
+                .contains("hikaricp_connections_active")
+                .contains("cache_gets_total{cache=\"product-version\"");
+    }
+}
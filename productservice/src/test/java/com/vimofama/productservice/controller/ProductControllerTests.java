@@ -4,21 +4,28 @@ import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.vimofama.productservice.dto.CreateProductDTO;
 import com.vimofama.productservice.dto.UpdateProductDTO;
+import com.vimofama.productservice.service.ProductService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
@@ -27,6 +34,12 @@ public class ProductControllerTests {
     @Autowired
     TestRestTemplate restTemplate = new TestRestTemplate();
 
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     @Test
     void shouldCreateProductSuccessfully() {
         CreateProductDTO createProductDTO = new CreateProductDTO(
@@ -230,4 +243,288 @@ public class ProductControllerTests {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
+
+    @Test
+    void shouldPageProductsWithCursor() {
+        for (int i = 1; i <= 5; i++) {
+            CreateProductDTO product = new CreateProductDTO("Product " + i, "Description " + i, new BigDecimal("10.00"), "PAGE-SKU" + i);
+            restTemplate.postForEntity("/api/products", product, String.class);
+        }
+
+        ResponseEntity<String> firstPage = restTemplate.getForEntity("/api/products/page?size=3", String.class);
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        DocumentContext firstContext = JsonPath.parse(firstPage.getBody());
+        int firstCount = firstContext.read("$.items.length()");
+        Number cursor = firstContext.read("$.nextCursor");
+        assertThat(firstCount).isEqualTo(3);
+        assertThat(cursor).isNotNull();
+
+        ResponseEntity<String> secondPage = restTemplate.getForEntity("/api/products/page?size=3&after=" + cursor, String.class);
+        DocumentContext secondContext = JsonPath.parse(secondPage.getBody());
+        int secondCount = secondContext.read("$.items.length()");
+        String firstName = secondContext.read("$.items[0].name");
+        Object nextCursor = secondContext.read("$.nextCursor");
+        assertThat(secondCount).isEqualTo(2);
+        assertThat(firstName).isEqualTo("Product 4");
+        assertThat(nextCursor).isNull();
+    }
+
+    @Test
+    void shouldStreamProductsAsNdjson() {
+        CreateProductDTO product1 = new CreateProductDTO("Product 1", "Description 1", new BigDecimal("10.00"), "SKU1");
+        CreateProductDTO product2 = new CreateProductDTO("Product 2", "Description 2", new BigDecimal("20.00"), "SKU2");
+        restTemplate.postForEntity("/api/products", product1, String.class);
+        restTemplate.postForEntity("/api/products", product2, String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/products/stream", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        String[] lines = response.getBody().split("\n");
+        assertThat(lines).hasSize(2);
+        String secondName = JsonPath.parse(lines[1]).read("$.name");
+        assertThat(secondName).isEqualTo("Product 2");
+    }
+
+    @Test
+    void shouldImportProductsFromCsv() {
+        String csv = """
+                name,description,price,sku
+                Teclado,"Teclado mecánico, switches rojos",49.90,KB-001
+                Mouse,Mouse inalámbrico,19.99,MS-001
+                ab,Sin nombre válido,10.00,BAD-001
+                Monitor,Monitor 27 pulgadas,precio,MON-001
+                """;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/products/import?batchSize=1",
+                new HttpEntity<>(csv, headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        assertThat((Integer) documentContext.read("$.processed")).isEqualTo(4);
+        assertThat((Integer) documentContext.read("$.imported")).isEqualTo(2);
+        assertThat((Integer) documentContext.read("$.failed")).isEqualTo(2);
+        assertThat((Integer) documentContext.read("$.errors[0].row")).isEqualTo(3);
+        assertThat((String) documentContext.read("$.errors[0].errors.name")).isNotBlank();
+        assertThat((String) documentContext.read("$.errors[1].sku")).isEqualTo("MON-001");
+
+        ResponseEntity<String> products = restTemplate.getForEntity("/api/products", String.class);
+        DocumentContext productsContext = JsonPath.parse(products.getBody());
+        assertThat((Integer) productsContext.read("$.length()")).isEqualTo(2);
+        assertThat((String) productsContext.read("$[0].description")).isEqualTo("Teclado mecánico, switches rojos");
+    }
+
+    @Test
+    void shouldImportProductsFromJsonArray() {
+        String json = """
+                [
+                  {"name": "Teclado", "description": "Teclado mecánico", "price": 49.90, "sku": "KB-001"},
+                  {"name": "Mouse", "description": "Mouse inalámbrico", "price": -1, "sku": "MS-001"},
+                  {"name": "Monitor", "description": "Monitor 27", "price": "abc", "sku": "MON-001"}
+                ]
+                """;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/products/import",
+                new HttpEntity<>(json, headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        assertThat((Integer) documentContext.read("$.imported")).isEqualTo(1);
+        assertThat((Integer) documentContext.read("$.failed")).isEqualTo(2);
+        assertThat((String) documentContext.read("$.errors[0].errors.price")).isNotBlank();
+        assertThat((Integer) documentContext.read("$.errors[1].row")).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRejectCsvWithoutRequiredColumns() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/products/import",
+                new HttpEntity<>("name,price\nTeclado,10.00\n", headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldGetProductBySku() {
+        CreateProductDTO createProductDTO = new CreateProductDTO("Scanner", "Lector de códigos", new BigDecimal("120.00"), "POS-SCAN-01");
+        restTemplate.postForEntity("/api/products", createProductDTO, String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/products/sku/POS-SCAN-01", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String name = JsonPath.parse(response.getBody()).read("$.name");
+        assertThat(name).isEqualTo("Scanner");
+
+        ResponseEntity<String> missing = restTemplate.getForEntity("/api/products/sku/NOPE", String.class);
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldReturnConflictWhenSkuAlreadyExists() {
+        CreateProductDTO product = new CreateProductDTO("Product 1", "Description 1", new BigDecimal("10.00"), "DUP-SKU");
+        restTemplate.postForEntity("/api/products", product, String.class);
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/products", product, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void shouldReportDuplicateSkusDuringImport() {
+        restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Existing", "Already stored", new BigDecimal("5.00"), "SKU-A"), String.class);
+        String csv = """
+                name,description,price,sku
+                Product A,Description A,10.00,SKU-A
+                Product B,Description B,10.00,SKU-B
+                Product B2,Description B2,10.00,SKU-B
+                """;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/products/import",
+                new HttpEntity<>(csv, headers), String.class);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        assertThat((Integer) documentContext.read("$.imported")).isEqualTo(1);
+        assertThat((Integer) documentContext.read("$.failed")).isEqualTo(2);
+        assertThat((String) documentContext.read("$.errors[0].sku")).isEqualTo("SKU-A");
+        assertThat((Integer) documentContext.read("$.errors[1].row")).isEqualTo(3);
+    }
+
+    @Test
+    void shouldLookupManyProductsInOneCall() {
+        ResponseEntity<String> created = restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Product 1", "Description 1", new BigDecimal("10.00"), "SKU1"), String.class);
+        String productId = created.getHeaders().getLocation().getPath().split("/")[3];
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/products/lookup",
+                Map.of("ids", List.of(Long.parseLong(productId), 998L, 999L)), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        assertThat((Integer) documentContext.read("$.found.length()")).isEqualTo(1);
+        assertThat((String) documentContext.read("$.found[0].sku")).isEqualTo("SKU1");
+        assertThat((Integer) documentContext.read("$.missing.length()")).isEqualTo(2);
+        assertThat((Integer) documentContext.read("$.missing[0]")).isEqualTo(998);
+    }
+
+    @Test
+    void shouldSearchProductsByPrefixAndKeepIndexInSync() {
+        restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Laptop Dell", "Portátil de 13 pulgadas", new BigDecimal("899.99"), "DELL-XPS-13"), String.class);
+        ResponseEntity<String> created = restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Mouse Logitech", "Mouse inalámbrico", new BigDecimal("19.99"), "LOGI-M1"), String.class);
+        URI location = created.getHeaders().getLocation();
+
+        DocumentContext documentContext = JsonPath.parse(restTemplate.getForObject("/api/products/search?q=lap", String.class));
+        assertThat((Integer) documentContext.read("$.length()")).isEqualTo(1);
+        assertThat((String) documentContext.read("$[0].sku")).isEqualTo("DELL-XPS-13");
+
+        restTemplate.exchange(location, HttpMethod.PUT,
+                new HttpEntity<>(new UpdateProductDTO("Laptop stand", null, null, null)), String.class);
+        documentContext = JsonPath.parse(restTemplate.getForObject("/api/products/search?q=laptop", String.class));
+        assertThat((Integer) documentContext.read("$.length()")).isEqualTo(2);
+
+        restTemplate.delete(location);
+        documentContext = JsonPath.parse(restTemplate.getForObject("/api/products/search?q=laptop", String.class));
+        assertThat((Integer) documentContext.read("$.length()")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotIndexProductsWhoseTransactionRollsBack() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.create(new CreateProductDTO("Laptop Dell", "Portátil de 13 pulgadas", new BigDecimal("899.99"), "DELL-XPS-13"));
+            status.setRollbackOnly();
+        });
+
+        DocumentContext documentContext = JsonPath.parse(restTemplate.getForObject("/api/products/search?q=laptop", String.class));
+        assertThat((Integer) documentContext.read("$.length()")).isZero();
+        assertThat(restTemplate.getForEntity("/api/products/sku/DELL-XPS-13", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldAnswerConditionalGetWithNotModifiedUntilProductChanges() {
+        ResponseEntity<String> created = restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Monitor LG", "Monitor de 27 pulgadas", new BigDecimal("199.99"), "LG-27"), String.class);
+        URI location = created.getHeaders().getLocation();
+
+        ResponseEntity<String> first = restTemplate.getForEntity(location, String.class);
+        String etag = first.getHeaders().getETag();
+        assertThat(etag).isNotNull();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<String> notModified = restTemplate.exchange(location, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getBody()).isNull();
+
+        restTemplate.exchange(location, HttpMethod.PUT,
+                new HttpEntity<>(new UpdateProductDTO(null, null, new BigDecimal("179.99"), null)), String.class);
+
+        ResponseEntity<String> changed = restTemplate.exchange(location, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getHeaders().getETag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void shouldAnswerConditionalGetOfDeletedProductWithNotFound() {
+        ResponseEntity<String> created = restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Monitor LG", "Monitor de 27 pulgadas", new BigDecimal("199.99"), "LG-27"), String.class);
+        URI location = created.getHeaders().getLocation();
+        String etag = restTemplate.getForEntity(location, String.class).getHeaders().getETag();
+
+        restTemplate.delete(location);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<String> response = restTemplate.exchange(location, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldPublishChangeFeedInSequenceOrder() {
+        ResponseEntity<String> created = restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Teclado", "Teclado mecánico", new BigDecimal("49.99"), "KB-1"), String.class);
+        URI location = created.getHeaders().getLocation();
+        restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Mouse", "Mouse inalámbrico", new BigDecimal("19.99"), "MS-1"), String.class);
+        restTemplate.exchange(location, HttpMethod.PUT,
+                new HttpEntity<>(new UpdateProductDTO(null, null, new BigDecimal("44.99"), null)), String.class);
+        restTemplate.delete(location);
+
+        DocumentContext feed = JsonPath.parse(restTemplate.getForObject("/api/products/changes", String.class));
+        assertThat((List<String>) feed.read("$.changes[*].type")).containsExactly("CREATED", "CREATED", "UPDATED", "DELETED");
+        assertThat((List<String>) feed.read("$.changes[*].sku")).containsExactly("KB-1", "MS-1", "KB-1", "KB-1");
+        assertThat(new BigDecimal(feed.read("$.changes[2].price").toString())).isEqualByComparingTo("44.99");
+        assertThat((Integer) feed.read("$.changes[2].version")).isEqualTo(1);
+        assertThat((Integer) feed.read("$.lastSequence")).isEqualTo(4);
+        assertThat((Integer) feed.read("$.headSequence")).isEqualTo(4);
+
+        DocumentContext catchUp = JsonPath.parse(restTemplate.getForObject("/api/products/changes?after=2&limit=1", String.class));
+        assertThat((List<Integer>) catchUp.read("$.changes[*].sequence")).containsExactly(3);
+        assertThat((Integer) catchUp.read("$.lastSequence")).isEqualTo(3);
+
+        DocumentContext upToDate = JsonPath.parse(restTemplate.getForObject("/api/products/changes?after=4", String.class));
+        assertThat((Integer) upToDate.read("$.changes.length()")).isZero();
+        assertThat((Integer) upToDate.read("$.lastSequence")).isEqualTo(4);
+    }
+
+    @Test
+    void shouldNotPublishChangesOfRejectedUpdates() {
+        restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Teclado", "Teclado mecánico", new BigDecimal("49.99"), "KB-1"), String.class);
+        ResponseEntity<String> created = restTemplate.postForEntity("/api/products",
+                new CreateProductDTO("Mouse", "Mouse inalámbrico", new BigDecimal("19.99"), "MS-1"), String.class);
+
+        ResponseEntity<String> conflict = restTemplate.exchange(created.getHeaders().getLocation(), HttpMethod.PUT,
+                new HttpEntity<>(new UpdateProductDTO(null, null, null, "KB-1")), String.class);
+        assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+
+        DocumentContext feed = JsonPath.parse(restTemplate.getForObject("/api/products/changes", String.class));
+        assertThat((List<String>) feed.read("$.changes[*].type")).containsExactly("CREATED", "CREATED");
+    }
 }
@@ -0,0 +1,63 @@
+package com.vimofama.productservice.search;
+
+import com.vimofama.productservice.dto.ProductSearchHitDTO;
+import com.vimofama.productservice.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductSearchIndexTests {
+
+    @Test
+    void shouldMatchPrefixesOfEveryTokenAndRankBySkuThenNameThenDescription() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(product(1L, "Cable USB", "Cable para laptop", "CBL-1"));
+        index.index(product(2L, "Laptop Dell", "Portátil de 13 pulgadas", "DELL-XPS-13"));
+        index.index(product(3L, "Mouse", "Inalámbrico", "LAPTOP-MOUSE"));
+
+        List<Long> ids = index.search("lapt", 10).stream().map(ProductSearchHitDTO::id).toList();
+        assertThat(ids).containsExactly(3L, 2L, 1L);
+
+        assertThat(index.search("laptop dell", 10)).extracting(ProductSearchHitDTO::id).containsExactly(2L);
+        assertThat(index.search("PORTATIL", 10)).extracting(ProductSearchHitDTO::id).containsExactly(2L);
+        assertThat(index.search("teclado", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldReflectUpdatesAndDeletes() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(product(1L, "Teclado", "Mecánico", "KB-1"));
+        index.index(product(1L, "Monitor", "Curvo", "MN-1"));
+        index.index(product(2L, "Monitor 4K", "Plano", "MN-2"));
+        index.remove(2L);
+
+        assertThat(index.search("teclado", 10)).isEmpty();
+        assertThat(index.search("monitor", 10)).extracting(ProductSearchHitDTO::id).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCompactAfterManyDeletes() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (long id = 1; id <= 5000; id++) {
+            index.index(product(id, "Producto " + id, "Descripción", "SKU-" + id));
+        }
+        for (long id = 1; id <= 4000; id++) {
+            index.remove(id);
+        }
+
+        assertThat(index.size()).isEqualTo(1000);
+        assertThat(index.search("sku 4500", 10)).extracting(ProductSearchHitDTO::id).containsExactly(4500L);
+        assertThat(index.search("producto", 100)).hasSize(100).allMatch(hit -> hit.id() > 4000);
+    }
+
+    private static Product product(Long id, String name, String description, String sku) {
+        Product product = new Product(name, description, new BigDecimal("10.00"), sku);
+        product.setId(id);
+        return product;
+    }
+}